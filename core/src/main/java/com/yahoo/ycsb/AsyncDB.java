@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+
+/**
+ * A DB layer for bindings built on asynchronous drivers. Instead of blocking
+ * until the database responds, each operation returns a {@link StatusFuture}
+ * that the binding completes from its driver callback.
+ * <p>
+ * When the "asyncwindow" property is greater than one, {@link DBFactory} wraps
+ * an AsyncDB in an {@link AsyncDBWrapper}, which lets each client thread keep
+ * up to that many operations in flight at once. Otherwise the synchronous
+ * {@link DB} methods are used; by default they simply wait on the future.
+ * <p>
+ * As with {@link DB}, the result containers passed to {@link #readAsync} and
+ * {@link #scanAsync} must only be filled in before the future is completed.
+ */
+public abstract class AsyncDB extends DB {
+
+  /**
+   * Read a record from the database. Each field/value pair from the result will be stored in a HashMap.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to read.
+   * @param fields The list of fields to read, or null for all of them
+   * @param result A HashMap of field/value pairs for the result
+   * @return A future completed with the result of the operation.
+   */
+  public abstract StatusFuture readAsync(String table, String key, Set<String> fields,
+                                         Map<String, ByteIterator> result);
+
+  /**
+   * Perform a range scan for a set of records in the database. Each field/value pair from the result will be stored
+   * in a HashMap.
+   *
+   * @param table The name of the table
+   * @param startkey The record key of the first record to read.
+   * @param recordcount The number of records to read
+   * @param fields The list of fields to read, or null for all of them
+   * @param result A Vector of HashMaps, where each HashMap is a set field/value pairs for one record
+   * @return A future completed with the result of the operation.
+   */
+  public abstract StatusFuture scanAsync(String table, String startkey, int recordcount, Set<String> fields,
+                                         Vector<HashMap<String, ByteIterator>> result);
+
+  /**
+   * Update a record in the database. Any field/value pairs in the specified values HashMap will be written into the
+   * record with the specified record key, overwriting any existing values with the same field name.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to write.
+   * @param values A HashMap of field/value pairs to update in the record
+   * @return A future completed with the result of the operation.
+   */
+  public abstract StatusFuture updateAsync(String table, String key, Map<String, ByteIterator> values);
+
+  /**
+   * Insert a record in the database. Any field/value pairs in the specified values HashMap will be written into the
+   * record with the specified record key.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to insert.
+   * @param values A HashMap of field/value pairs to insert in the record
+   * @return A future completed with the result of the operation.
+   */
+  public abstract StatusFuture insertAsync(String table, String key, Map<String, ByteIterator> values);
+
+  /**
+   * Delete a record from the database.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to delete.
+   * @return A future completed with the result of the operation.
+   */
+  public abstract StatusFuture deleteAsync(String table, String key);
+
+  @Override
+  public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+    return readAsync(table, key, fields, result).join();
+  }
+
+  @Override
+  public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                     Vector<HashMap<String, ByteIterator>> result) {
+    return scanAsync(table, startkey, recordcount, fields, result).join();
+  }
+
+  @Override
+  public Status update(String table, String key, Map<String, ByteIterator> values) {
+    return updateAsync(table, key, values).join();
+  }
+
+  @Override
+  public Status insert(String table, String key, Map<String, ByteIterator> values) {
+    return insertAsync(table, key, values).join();
+  }
+
+  @Override
+  public Status delete(String table, String key) {
+    return deleteAsync(table, key).join();
+  }
+}
@@ -0,0 +1,347 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements.Operation;
+import org.apache.htrace.core.TraceScope;
+import org.apache.htrace.core.Tracer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wrapper around an {@link AsyncDB} that lets a single client thread keep a
+ * window of operations in flight. Each call from the workload dispatches the
+ * asynchronous operation and returns as soon as it has been handed to the
+ * binding, blocking only while the window is full. Latencies and return codes
+ * are recorded when the operation's future completes.
+ * <p>
+ * Operations that are still pending when the call returns are reported to the
+ * workload as {@link Status#BATCHED_OK}. Result containers are only valid once
+ * the operation has completed, so workloads that inspect results (e.g. with
+ * "dataintegrity" enabled) should run with the default window of one. Anything
+ * that has to wait for the operations themselves, such as making inserted keys
+ * available to readers or counting completed operations, goes through
+ * {@link #whenComplete(Runnable)}, which only waits for the operations of the
+ * last call, so it costs the same however large the window is.
+ * <p>
+ * {@link #cleanup()} waits for every outstanding operation before cleaning up
+ * the binding, so a client thread only finishes once all of its operations
+ * have been measured.
+ */
+public class AsyncDBWrapper extends DBWrapper {
+  /**
+   * The maximum number of outstanding operations per client thread.
+   */
+  public static final String ASYNC_WINDOW_PROPERTY = "asyncwindow";
+  public static final String ASYNC_WINDOW_PROPERTY_DEFAULT = "1";
+
+  /**
+   * An operation in flight, and the actions waiting for it.
+   */
+  private static final class Tracked {
+    private boolean done;
+    private List<Runnable> waiting;
+
+    /**
+     * @return False if the operation already completed.
+     */
+    synchronized boolean await(Runnable action) {
+      if (done) {
+        return false;
+      }
+      if (waiting == null) {
+        waiting = new ArrayList<>(2);
+      }
+      waiting.add(action);
+      return true;
+    }
+
+    void finish() {
+      List<Runnable> actions;
+      synchronized (this) {
+        done = true;
+        actions = waiting;
+        waiting = null;
+      }
+      if (actions != null) {
+        for (Runnable action : actions) {
+          action.run();
+        }
+      }
+    }
+  }
+
+  private final AsyncDB db;
+  private final int window;
+  private final Semaphore inflight;
+  // the operations dispatched by the last call from the workload, one unless it was a batch
+  private final List<Tracked> lastCall = new ArrayList<>();
+  // whether the records of a batch are being dispatched, as part of one call
+  private boolean inBatch;
+
+  public AsyncDBWrapper(final AsyncDB db, final Tracer tracer, final int window) {
+    super(db, tracer);
+    if (window < 1) {
+      throw new IllegalArgumentException(ASYNC_WINDOW_PROPERTY + " must be at least 1");
+    }
+    this.db = db;
+    this.window = window;
+    inflight = new Semaphore(window);
+  }
+
+  /**
+   * @return The configured number of outstanding operations.
+   */
+  public int getWindow() {
+    return window;
+  }
+
+  /**
+   * @return The number of operations dispatched but not yet completed.
+   */
+  public int getOutstanding() {
+    return window - inflight.availablePermits();
+  }
+
+  /**
+   * Block until every outstanding operation has completed.
+   */
+  public void drain() {
+    inflight.acquireUninterruptibly(window);
+    inflight.release(window);
+  }
+
+  /**
+   * Cleanup any state for this DB, after waiting for outstanding operations.
+   */
+  @Override
+  public void cleanup() throws DBException {
+    drain();
+    super.cleanup();
+  }
+
+  @Override
+  public Status read(String table, String key, Set<String> fields,
+                     Map<String, ByteIterator> result) {
+    try (final TraceScope span = tracer.newScope(scopeStringRead)) {
+      awaitBudget(Operation.READ);
+      inflight.acquireUninterruptibly();
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      try {
+        return track(Operation.READ, db.readAsync(table, key, fields, result), ist, st);
+      } catch (RuntimeException e) {
+        inflight.release();
+        throw e;
+      }
+    }
+  }
+
+  @Override
+  public Status scan(String table, String startkey, int recordcount,
+                     Set<String> fields, Vector<HashMap<String, ByteIterator>> result) {
+    try (final TraceScope span = tracer.newScope(scopeStringScan)) {
+      awaitBudget(Operation.SCAN);
+      inflight.acquireUninterruptibly();
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      try {
+        return track(Operation.SCAN, db.scanAsync(table, startkey, recordcount, fields, result), ist, st);
+      } catch (RuntimeException e) {
+        inflight.release();
+        throw e;
+      }
+    }
+  }
+
+  @Override
+  public Status update(String table, String key,
+                       Map<String, ByteIterator> values) {
+    try (final TraceScope span = tracer.newScope(scopeStringUpdate)) {
+      awaitBudget(Operation.UPDATE);
+      inflight.acquireUninterruptibly();
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      try {
+        return track(Operation.UPDATE, db.updateAsync(table, key, values), ist, st);
+      } catch (RuntimeException e) {
+        inflight.release();
+        throw e;
+      }
+    }
+  }
+
+  @Override
+  public Status insert(String table, String key,
+                       Map<String, ByteIterator> values) {
+    try (final TraceScope span = tracer.newScope(scopeStringInsert)) {
+      awaitBudget(Operation.INSERT);
+      inflight.acquireUninterruptibly();
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      try {
+        return track(Operation.INSERT, db.insertAsync(table, key, values), ist, st);
+      } catch (RuntimeException e) {
+        inflight.release();
+        throw e;
+      }
+    }
+  }
+
+  @Override
+  public Status delete(String table, String key) {
+    try (final TraceScope span = tracer.newScope(scopeStringDelete)) {
+      awaitBudget(Operation.DELETE);
+      inflight.acquireUninterruptibly();
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      try {
+        return track(Operation.DELETE, db.deleteAsync(table, key), ist, st);
+      } catch (RuntimeException e) {
+        inflight.release();
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Run the action once the operations of the last call have completed, on the thread that completes the
+   * last of them. Operations finish running their actions before they leave the window, so once
+   * {@link #drain()} returns every action has run.
+   */
+  @Override
+  public void whenComplete(final Runnable action) {
+    if (lastCall.size() == 1) {
+      if (!lastCall.get(0).await(action)) {
+        action.run();
+      }
+      return;
+    }
+    final AtomicInteger remaining = new AtomicInteger(1);
+    Runnable countdown = new Runnable() {
+      @Override
+      public void run() {
+        if (remaining.decrementAndGet() == 0) {
+          action.run();
+        }
+      }
+    };
+    for (Tracked tracked : lastCall) {
+      remaining.incrementAndGet();
+      if (!tracked.await(countdown)) {
+        remaining.decrementAndGet();
+      }
+    }
+    countdown.run();
+  }
+
+  /**
+   * Commit once every operation of the transaction has completed.
+   */
+  @Override
+  public Status commit() {
+    drain();
+    return super.commit();
+  }
+
+  /**
+   * Abort once every operation of the transaction has completed.
+   */
+  @Override
+  public Status abort() {
+    drain();
+    return super.abort();
+  }
+
+  /**
+   * An asynchronous binding has no batch operations, so the records of a batch are dispatched one at a time
+   * and measured on their own.
+   */
+  @Override
+  public Status batchRead(String table, List<String> keys, Set<String> fields,
+                          List<Map<String, ByteIterator>> results) {
+    startBatch();
+    try {
+      return readEach(table, keys, fields, results);
+    } finally {
+      inBatch = false;
+    }
+  }
+
+  @Override
+  public Status batchInsert(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    startBatch();
+    try {
+      return insertEach(table, keys, values);
+    } finally {
+      inBatch = false;
+    }
+  }
+
+  @Override
+  public Status batchUpdate(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    startBatch();
+    try {
+      return updateEach(table, keys, values);
+    } finally {
+      inBatch = false;
+    }
+  }
+
+  private void startBatch() {
+    lastCall.clear();
+    inBatch = true;
+  }
+
+  /**
+   * Record the operation once its future completes and release its slot in the window.
+   *
+   * @return The result if the operation already completed, {@link Status#BATCHED_OK} otherwise.
+   */
+  private Status track(final Operation op, final StatusFuture future,
+                       final long intendedStartTimeNanos, final long startTimeNanos) {
+    if (!inBatch) {
+      lastCall.clear();
+    }
+    final Tracked tracked = new Tracked();
+    lastCall.add(tracked);
+    future.addListener(new StatusFuture.Listener() {
+      @Override
+      public void onComplete(Status status) {
+        try {
+          measure(op, status, intendedStartTimeNanos, startTimeNanos, System.nanoTime());
+          measurements.reportStatus(op, status);
+        } finally {
+          try {
+            tracked.finish();
+          } finally {
+            inflight.release();
+          }
+        }
+      }
+    });
+    return future.isDone() ? future.join() : Status.BATCHED_OK;
+  }
+}
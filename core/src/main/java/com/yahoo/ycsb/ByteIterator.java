@@ -103,4 +103,13 @@ public abstract class ByteIterator implements Iterator<Byte> {
     return ret;
   }
 
+  /**
+   * Consumes remaining contents of this object, and returns them as a buffer.
+   * Implementations that hold their contents in memory may return a view of
+   * it rather than a copy, so the buffer must not be modified.
+   */
+  public ByteBuffer toByteBuffer() {
+    return ByteBuffer.wrap(toArray());
+  }
+
 }
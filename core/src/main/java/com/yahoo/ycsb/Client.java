@@ -34,7 +34,6 @@ import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.LockSupport;
 
 /**
  * A thread to periodically show the status of the experiment to reassure you that progress is being made.
@@ -55,6 +54,18 @@ class StatusThread extends Thread {
   private final String label;
   private final boolean standardstatus;
 
+  // Whether the number of client threads changes during the run.
+  private boolean elastic;
+
+  // The warmup after which the counts and the measurements start over, or null.
+  private Warmup warmup;
+
+  // The start of the window the throughput is reported for, the start of the current interval, and the
+  // operations done at its start.
+  private long startTimeMs;
+  private long startIntervalMs;
+  private long lastTotalOps;
+
   // The interval for reporting status.
   private long sleeptimeNs;
 
@@ -106,23 +117,37 @@ class StatusThread extends Thread {
     this.trackJVMStats = trackJVMStats;
   }
 
+  /**
+   * Report how many client threads are running the workload, and record it as the ACTIVE_THREADS measurement.
+   */
+  public void setElastic(boolean elasticPool) {
+    elastic = elasticPool;
+  }
+
+  /**
+   * Report the operations and throughput of the measured window once the warmup is done.
+   */
+  public void setWarmup(Warmup warmupPhase) {
+    warmup = warmupPhase;
+  }
+
   /**
    * Run and periodically report status.
    */
   @Override
   public void run() {
-    final long startTimeMs = System.currentTimeMillis();
+    startTimeMs = System.currentTimeMillis();
     final long startTimeNanos = System.nanoTime();
     long deadline = startTimeNanos + sleeptimeNs;
-    long startIntervalMs = startTimeMs;
-    long lastTotalOps = 0;
+    startIntervalMs = startTimeMs;
+    lastTotalOps = 0;
 
     boolean alldone;
 
     do {
       long nowMs = System.currentTimeMillis();
 
-      lastTotalOps = computeStats(startTimeMs, startIntervalMs, nowMs, lastTotalOps);
+      computeStats(nowMs);
 
       if (trackJVMStats) {
         measureJVM();
@@ -139,32 +164,38 @@ class StatusThread extends Thread {
       measureJVM();
     }
     // Print the final stats.
-    computeStats(startTimeMs, startIntervalMs, System.currentTimeMillis(), lastTotalOps);
+    computeStats(System.currentTimeMillis());
   }
 
   /**
-   * Computes and prints the stats.
+   * Computes and prints the stats of the interval that ends now.
    *
-   * @param startTimeMs     The start time of the test.
-   * @param startIntervalMs The start time of this interval.
    * @param endIntervalMs   The end time (now) for the interval.
-   * @param lastTotalOps    The last total operations count.
-   * @return The current operation count.
    */
-  private long computeStats(final long startTimeMs, long startIntervalMs, long endIntervalMs,
-                            long lastTotalOps) {
+  private void computeStats(long endIntervalMs) {
     SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss:SSS");
 
     long totalops = 0;
     long todoops = 0;
 
     // Calculate the total number of operations completed.
-    for (ClientThread t : clients) {
-      totalops += t.getOpsDone();
-      todoops += t.getOpsTodo();
+    if (warmup != null) {
+      // the warmup starts the counts over with this lock held, so they are all from the same window
+      synchronized (warmup) {
+        if (warmup.getMeasuredStartMs() > startTimeMs) {
+          // the warmup is done and the counts started over: report the measured window
+          startTimeMs = warmup.getMeasuredStartMs();
+          startIntervalMs = startTimeMs;
+          lastTotalOps = 0;
+        }
+        totalops = sumOpsDone();
+        todoops = sumOpsTodo();
+      }
+    } else {
+      totalops = sumOpsDone();
+      todoops = sumOpsTodo();
     }
 
-
     long interval = endIntervalMs - startTimeMs;
     double throughput = 1000.0 * (((double) totalops) / (double) interval);
     double curthroughput = 1000.0 * (((double) (totalops - lastTotalOps)) /
@@ -181,6 +212,16 @@ class StatusThread extends Thread {
     if (totalops != 0) {
       msg.append(d.format(curthroughput)).append(" current ops/sec; ");
     }
+    if (elastic) {
+      int activeThreads = 0;
+      for (ClientThread t : clients) {
+        if (t.isActive()) {
+          activeThreads++;
+        }
+      }
+      msg.append(activeThreads).append(" active threads; ");
+      measurements.measure("ACTIVE_THREADS", activeThreads);
+    }
     if (todoops != 0) {
       msg.append("est completion in ").append(RemainingFormatter.format(estremaining));
     }
@@ -192,7 +233,23 @@ class StatusThread extends Thread {
     if (standardstatus) {
       System.out.println(msg);
     }
-    return totalops;
+    lastTotalOps = totalops;
+  }
+
+  private long sumOpsDone() {
+    long ops = 0;
+    for (ClientThread t : clients) {
+      ops += t.getOpsDone();
+    }
+    return ops;
+  }
+
+  private long sumOpsTodo() {
+    long ops = 0;
+    for (ClientThread t : clients) {
+      ops += t.getOpsTodo();
+    }
+    return ops;
   }
 
   /**
@@ -355,168 +412,6 @@ final class RemainingFormatter {
   }
 }
 
-/**
- * A thread for executing transactions or data inserts to the database.
- */
-class ClientThread implements Runnable {
-  // Counts down each of the clients completing.
-  private final CountDownLatch completeLatch;
-
-  private static boolean spinSleep;
-  private DB db;
-  private boolean dotransactions;
-  private Workload workload;
-  private int opcount;
-  private double targetOpsPerMs;
-
-  private int opsdone;
-  private int threadid;
-  private int threadcount;
-  private Object workloadstate;
-  private Properties props;
-  private long targetOpsTickNs;
-  private final Measurements measurements;
-
-  /**
-   * Constructor.
-   *
-   * @param db                   the DB implementation to use
-   * @param dotransactions       true to do transactions, false to insert data
-   * @param workload             the workload to use
-   * @param props                the properties defining the experiment
-   * @param opcount              the number of operations (transactions or inserts) to do
-   * @param targetperthreadperms target number of operations per thread per ms
-   * @param completeLatch        The latch tracking the completion of all clients.
-   */
-  public ClientThread(DB db, boolean dotransactions, Workload workload, Properties props, int opcount,
-                      double targetperthreadperms, CountDownLatch completeLatch) {
-    this.db = db;
-    this.dotransactions = dotransactions;
-    this.workload = workload;
-    this.opcount = opcount;
-    opsdone = 0;
-    if (targetperthreadperms > 0) {
-      targetOpsPerMs = targetperthreadperms;
-      targetOpsTickNs = (long) (1000000 / targetOpsPerMs);
-    }
-    this.props = props;
-    measurements = Measurements.getMeasurements();
-    spinSleep = Boolean.valueOf(this.props.getProperty("spin.sleep", "false"));
-    this.completeLatch = completeLatch;
-  }
-
-  public void setThreadId(final int threadId) {
-    threadid = threadId;
-  }
-  
-  public void setThreadCount(final int threadCount) {
-    threadcount = threadCount;
-  }
-  
-  public int getOpsDone() {
-    return opsdone;
-  }
-
-  @Override
-  public void run() {
-    try {
-      db.init();
-    } catch (DBException e) {
-      e.printStackTrace();
-      e.printStackTrace(System.out);
-      return;
-    }
-
-    try {
-      workloadstate = workload.initThread(props, threadid, threadcount);
-    } catch (WorkloadException e) {
-      e.printStackTrace();
-      e.printStackTrace(System.out);
-      return;
-    }
-
-    //NOTE: Switching to using nanoTime and parkNanos for time management here such that the measurements
-    // and the client thread have the same view on time.
-
-    //spread the thread operations out so they don't all hit the DB at the same time
-    // GH issue 4 - throws exception if _target>1 because random.nextInt argument must be >0
-    // and the sleep() doesn't make sense for granularities < 1 ms anyway
-    if ((targetOpsPerMs > 0) && (targetOpsPerMs <= 1.0)) {
-      long randomMinorDelay = Utils.random().nextInt((int) targetOpsTickNs);
-      sleepUntil(System.nanoTime() + randomMinorDelay);
-    }
-    try {
-      if (dotransactions) {
-        long startTimeNanos = System.nanoTime();
-
-        while (((opcount == 0) || (opsdone < opcount)) && !workload.isStopRequested()) {
-
-          if (!workload.doTransaction(db, workloadstate)) {
-            break;
-          }
-
-          opsdone++;
-
-          throttleNanos(startTimeNanos);
-        }
-      } else {
-        long startTimeNanos = System.nanoTime();
-
-        while (((opcount == 0) || (opsdone < opcount)) && !workload.isStopRequested()) {
-
-          if (!workload.doInsert(db, workloadstate)) {
-            break;
-          }
-
-          opsdone++;
-
-          throttleNanos(startTimeNanos);
-        }
-      }
-    } catch (Exception e) {
-      e.printStackTrace();
-      e.printStackTrace(System.out);
-      System.exit(0);
-    }
-
-    try {
-      measurements.setIntendedStartTimeNs(0);
-      db.cleanup();
-    } catch (DBException e) {
-      e.printStackTrace();
-      e.printStackTrace(System.out);
-    } finally {
-      completeLatch.countDown();
-    }
-  }
-
-  private static void sleepUntil(long deadline) {
-    while (System.nanoTime() < deadline) {
-      if (!spinSleep) {
-        LockSupport.parkNanos(deadline - System.nanoTime());
-      }
-    }
-  }
-
-  private void throttleNanos(long startTimeNanos) {
-    //throttle the operations
-    if (targetOpsPerMs > 0) {
-      // delay until next tick
-      long deadline = startTimeNanos + opsdone * targetOpsTickNs;
-      sleepUntil(deadline);
-      measurements.setIntendedStartTimeNs(deadline);
-    }
-  }
-
-  /**
-   * The total amount of work this thread is still expected to do.
-   */
-  int getOpsTodo() {
-    int todo = opcount - opsdone;
-    return todo < 0 ? 0 : todo;
-  }
-}
-
 /**
  * Main class for executing YCSB.
  */
@@ -576,6 +471,20 @@ public final class Client {
    */
   public static final String TARGET_PROPERTY = "target";
 
+  /**
+   * How operations are spaced when a target throughput is set. "uniform" (the default) issues them at evenly
+   * spaced ticks. "poisson" draws exponentially distributed inter-arrival times, i.e. an open-loop Poisson
+   * arrival process whose bursts expose queueing in the store. In both cases each operation's scheduled time is
+   * passed to {@link Measurements#setIntendedStartTimeNs(long)}, so set "measurement.interval" to "intended"
+   * or "both" to report latency under load.
+   */
+  public static final String ARRIVAL_DISTRIBUTION_PROPERTY = "arrivaldistribution";
+
+  /**
+   * Default arrival distribution.
+   */
+  public static final String ARRIVAL_DISTRIBUTION_PROPERTY_DEFAULT = "uniform";
+
   /**
    * The maximum amount of time (in seconds) for which the benchmark will be run.
    */
@@ -631,6 +540,11 @@ public final class Client {
     System.out.println("          values in the propertyfile");
     System.out.println("  -s:  show status during run (default: no status)");
     System.out.println("  -l label:  use label for status (e.g. to label one experiment out of a whole batch)");
+    System.out.println("  -p runplan=file:  run the phases listed in the file one after the other in this JVM,");
+    System.out.println("          one phase per line as a name followed by the options of the phase");
+    System.out.println("  -p sweep.threads=1:256:  run the workload at each thread count, reusing the DB " +
+        "connections,");
+    System.out.println("          and print the throughput and latencies of every step as one table to stderr");
     System.out.println("");
     System.out.println("Required properties:");
     System.out.println("  " + WORKLOAD_PROPERTY + ": the name of the workload class to use (e.g. " +
@@ -640,6 +554,10 @@ public final class Client {
     System.out.println("To run the load phase from multiple servers, start a separate client on each; additionally,");
     System.out.println("use the \"insertcount\" and \"insertstart\" properties to divide up the records " +
         "to be inserted");
+    System.out.println("Alternatively, set \"coordinator.workers\" to have one client split the phase between " +
+        "worker clients");
+    System.out.println("and combine their measurements, launching the workers itself or accepting workers " +
+        "started with -p worker.coordinator=host:port.");
   }
 
   public static boolean checkRequiredProperties(Properties props) {
@@ -653,98 +571,188 @@ public final class Client {
 
 
   /**
-   * Exports the measurements to either sysout or a file using the exporter
-   * loaded from conf.
+   * Opens the exporter that writes the measurements to either sysout or a file,
+   * as configured.
    *
-   * @throws IOException Either failed to write to output stream or failed to close it.
+   * @throws IOException Failed to open the output file.
    */
-  private static void exportMeasurements(Properties props, int opcount, long runtime)
-      throws IOException {
-    MeasurementsExporter exporter = null;
-    try {
-      // if no destination file is provided the results will be written to stdout
-      OutputStream out;
-      String exportFile = props.getProperty(EXPORT_FILE_PROPERTY);
-      if (exportFile == null) {
-        out = System.out;
-      } else {
-        out = new FileOutputStream(exportFile);
-      }
+  static MeasurementsExporter openExporter(Properties props) throws IOException {
+    // if no destination file is provided the results will be written to stdout
+    OutputStream out;
+    String exportFile = props.getProperty(EXPORT_FILE_PROPERTY);
+    if (exportFile == null) {
+      out = System.out;
+    } else {
+      out = new FileOutputStream(exportFile);
+    }
 
-      // if no exporter is provided the default text one will be used
-      String exporterStr = props.getProperty(EXPORTER_PROPERTY,
-          "com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter");
-      try {
-        exporter = (MeasurementsExporter) Class.forName(exporterStr).getConstructor(OutputStream.class)
-            .newInstance(out);
-      } catch (Exception e) {
-        System.err.println("Could not find exporter " + exporterStr
-            + ", will use default text reporter.");
-        e.printStackTrace();
-        exporter = new TextMeasurementsExporter(out);
-      }
+    // if no exporter is provided the default text one will be used
+    String exporterStr = props.getProperty(EXPORTER_PROPERTY,
+        "com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter");
+    try {
+      return (MeasurementsExporter) Class.forName(exporterStr).getConstructor(OutputStream.class)
+          .newInstance(out);
+    } catch (Exception e) {
+      System.err.println("Could not find exporter " + exporterStr
+          + ", will use default text reporter.");
+      e.printStackTrace();
+      return new TextMeasurementsExporter(out);
+    }
+  }
 
-      exporter.write("OVERALL", "RunTime(ms)", runtime);
-      double throughput = 1000.0 * (opcount) / (runtime);
-      exporter.write("OVERALL", "Throughput(ops/sec)", throughput);
-
-      final Map<String, Long[]> gcs = Utils.getGCStatst();
-      long totalGCCount = 0;
-      long totalGCTime = 0;
-      for (final Entry<String, Long[]> entry : gcs.entrySet()) {
-        exporter.write("TOTAL_GCS_" + entry.getKey(), "Count", entry.getValue()[0]);
-        exporter.write("TOTAL_GC_TIME_" + entry.getKey(), "Time(ms)", entry.getValue()[1]);
-        exporter.write("TOTAL_GC_TIME_%_" + entry.getKey(), "Time(%)",
-            ((double) entry.getValue()[1] / runtime) * (double) 100);
-        totalGCCount += entry.getValue()[0];
-        totalGCTime += entry.getValue()[1];
-      }
-      exporter.write("TOTAL_GCs", "Count", totalGCCount);
-
-      exporter.write("TOTAL_GC_TIME", "Time(ms)", totalGCTime);
-      exporter.write("TOTAL_GC_TIME_%", "Time(%)", ((double) totalGCTime / runtime) * (double) 100);
-      if (statusthread != null && statusthread.trackJVMStats()) {
-        exporter.write("MAX_MEM_USED", "MBs", statusthread.getMaxUsedMem());
-        exporter.write("MIN_MEM_USED", "MBs", statusthread.getMinUsedMem());
-        exporter.write("MAX_THREADS", "Count", statusthread.getMaxThreads());
-        exporter.write("MIN_THREADS", "Count", statusthread.getMinThreads());
-        exporter.write("MAX_SYS_LOAD_AVG", "Load", statusthread.getMaxLoadAvg());
-        exporter.write("MIN_SYS_LOAD_AVG", "Load", statusthread.getMinLoadAvg());
-      }
+  /**
+   * Exports the measurements.
+   *
+   * @throws IOException Failed to write to output stream.
+   */
+  private static void exportMeasurements(MeasurementsExporter exporter, long opcount, long runtime,
+                                         ThroughputSearch search) throws IOException {
+    exporter.write("OVERALL", "RunTime(ms)", runtime);
+    double throughput = 1000.0 * (opcount) / (runtime);
+    exporter.write("OVERALL", "Throughput(ops/sec)", throughput);
+
+    final Map<String, Long[]> gcs = Utils.getGCStatst();
+    long totalGCCount = 0;
+    long totalGCTime = 0;
+    for (final Entry<String, Long[]> entry : gcs.entrySet()) {
+      exporter.write("TOTAL_GCS_" + entry.getKey(), "Count", entry.getValue()[0]);
+      exporter.write("TOTAL_GC_TIME_" + entry.getKey(), "Time(ms)", entry.getValue()[1]);
+      exporter.write("TOTAL_GC_TIME_%_" + entry.getKey(), "Time(%)",
+          ((double) entry.getValue()[1] / runtime) * (double) 100);
+      totalGCCount += entry.getValue()[0];
+      totalGCTime += entry.getValue()[1];
+    }
+    exporter.write("TOTAL_GCs", "Count", totalGCCount);
+
+    exporter.write("TOTAL_GC_TIME", "Time(ms)", totalGCTime);
+    exporter.write("TOTAL_GC_TIME_%", "Time(%)", ((double) totalGCTime / runtime) * (double) 100);
+    if (statusthread != null && statusthread.trackJVMStats()) {
+      exporter.write("MAX_MEM_USED", "MBs", statusthread.getMaxUsedMem());
+      exporter.write("MIN_MEM_USED", "MBs", statusthread.getMinUsedMem());
+      exporter.write("MAX_THREADS", "Count", statusthread.getMaxThreads());
+      exporter.write("MIN_THREADS", "Count", statusthread.getMinThreads());
+      exporter.write("MAX_SYS_LOAD_AVG", "Load", statusthread.getMaxLoadAvg());
+      exporter.write("MIN_SYS_LOAD_AVG", "Load", statusthread.getMinLoadAvg());
+    }
 
-      Measurements.getMeasurements().exportMeasurements(exporter);
-    } finally {
-      if (exporter != null) {
-        exporter.close();
-      }
+    if (search != null) {
+      search.exportResults(exporter);
     }
+
+    Measurements.getMeasurements().exportMeasurements(exporter);
   }
 
   @SuppressWarnings("unchecked")
   public static void main(String[] args) {
-    Properties props = parseArguments(args);
+    System.err.print("Command line:");
+    for (String arg : args) {
+      System.err.print(" " + arg);
+    }
+
+    if (args.length == 0) {
+      usageMessage();
+      System.out.println("At least one argument specifying a workload is required.");
+      System.exit(0);
+    }
+
+    Properties props = parseArguments(args, new Properties());
+
+    String coordinator = props.getProperty(Worker.COORDINATOR_PROPERTY);
+    if (coordinator != null) {
+      Worker.run(coordinator);
+      System.exit(0);
+    }
+
+    if (props.containsKey(Coordinator.WORKERS_PROPERTY)) {
+      Coordinator.run(props);
+      System.exit(0);
+    }
+
+    String plan = props.getProperty(RunPlan.RUN_PLAN_PROPERTY);
+    if (plan != null) {
+      RunPlan.run(plan, props);
+      System.exit(0);
+    }
+
+    if (props.containsKey(ConcurrencySweep.THREADS_PROPERTY)) {
+      ConcurrencySweep.run(props);
+      System.exit(0);
+    }
+
+    if (!checkRequiredProperties(props)) {
+      System.out.println("Failed check required properties.");
+      System.exit(0);
+    }
+
+    try {
+      MeasurementsExporter exporter = openExporter(props);
+      try {
+        run(props, exporter, null, null);
+      } finally {
+        exporter.close();
+      }
+    } catch (IOException e) {
+      System.err.println("Could not export measurements, error: " + e.getMessage());
+      e.printStackTrace();
+      System.exit(-1);
+    }
+
+    System.exit(0);
+  }
 
+  /**
+   * Run the load or transaction phase described by the properties and write its measurements.
+   *
+   * @param props The properties of the phase.
+   * @param exporter Where to write the measurements, or null to not write them.
+   * @param dbs null if each client thread creates, initializes and cleans up its own DB. Otherwise the DBs
+   *            are shared between the phases of a run plan: this holds the (already initialized) DBs of
+   *            earlier phases, which are reused, and the DBs created for this phase are added to it. Shared
+   *            DBs are not cleaned up.
+   * @param listener Notified before the client threads start and once they are done, may be null.
+   */
+  static void run(Properties props, MeasurementsExporter exporter, List<DB> dbs, PhaseListener listener)
+      throws IOException {
     boolean status = Boolean.valueOf(props.getProperty(STATUS_PROPERTY, String.valueOf(false)));
     String label = props.getProperty(LABEL_PROPERTY, "");
 
     long maxExecutionTime = Integer.parseInt(props.getProperty(MAX_EXECUTION_TIME, "0"));
 
-    //get number of threads, target and db
+    //get number of threads and target
     int threadcount = Integer.parseInt(props.getProperty(THREAD_COUNT_PROPERTY, "1"));
-    String dbname = props.getProperty(DB_PROPERTY, "com.yahoo.ycsb.BasicDB");
-    int target = Integer.parseInt(props.getProperty(TARGET_PROPERTY, "0"));
+    ElasticPool pool = createPool(props, threadcount);
+    if (pool != null) {
+      threadcount = pool.getMaxThreads();
+    }
 
     //compute the target throughput
-    double targetperthreadperms = -1;
-    if (target > 0) {
-      double targetperthread = ((double) target) / ((double) threadcount);
-      targetperthreadperms = targetperthread / 1000.0;
+    ThroughputSearch search = null;
+    ThroughputProfile profile = null;
+    try {
+      if (Boolean.valueOf(props.getProperty(ThroughputSearch.SEARCH_PROPERTY,
+          ThroughputSearch.SEARCH_PROPERTY_DEFAULT))) {
+        search = new ThroughputSearch(props);
+        profile = search.createProfile();
+        // the clients run until the search is done
+        props.setProperty(OPERATION_COUNT_PROPERTY, "0");
+      } else {
+        profile = ThroughputProfile.create(props);
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("Unable to set up the target throughput: " + e.getMessage());
+      System.exit(0);
+    }
+
+    Warmup warmup = null;
+    if (Boolean.valueOf(props.getProperty(DO_TRANSACTIONS_PROPERTY, String.valueOf(true)))) {
+      warmup = Warmup.create(props, threadcount);
     }
 
     Thread warningthread = setupWarningThread();
     warningthread.start();
 
     Measurements.setProperties(props);
+    Utils.setSeed(props);
 
     Workload workload = getWorkload(props);
 
@@ -755,26 +763,20 @@ public final class Client {
     System.err.println("Starting test.");
     final CountDownLatch completeLatch = new CountDownLatch(threadcount);
 
-    final List<ClientThread> clients = initDb(dbname, props, threadcount, targetperthreadperms,
-        workload, tracer, completeLatch);
+    final List<ClientThread> clients = initDb(props, profile, workload, tracer, completeLatch, dbs, pool);
+    for (ClientThread client : clients) {
+      client.setWarmup(warmup);
+    }
 
+    statusthread = null;
     if (status) {
-      boolean standardstatus = false;
-      if (props.getProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, "").compareTo("timeseries") == 0) {
-        standardstatus = true;
-      }
-      int statusIntervalSeconds = Integer.parseInt(props.getProperty("status.interval", "10"));
-      boolean trackJVMStats = props.getProperty(Measurements.MEASUREMENT_TRACK_JVM_PROPERTY,
-          Measurements.MEASUREMENT_TRACK_JVM_PROPERTY_DEFAULT).equals("true");
-      statusthread = new StatusThread(completeLatch, clients, label, standardstatus, statusIntervalSeconds,
-          trackJVMStats);
-      statusthread.start();
+      startStatusThread(props, label, clients, completeLatch, warmup);
     }
 
     Thread terminator = null;
     long st;
     long en;
-    int opsDone;
+    long opsDone;
 
     try (final TraceScope span = tracer.newScope(CLIENT_WORKLOAD_SPAN)) {
 
@@ -783,8 +785,16 @@ public final class Client {
         threads.put(new Thread(tracer.wrap(client, "ClientThread")), client);
       }
 
+      if (listener != null) {
+        listener.beforeStart(warmup);
+      }
+
       st = System.currentTimeMillis();
 
+      if (pool != null) {
+        pool.start(workload);
+      }
+
       for (Thread t : threads.keySet()) {
         t.start();
       }
@@ -794,6 +804,18 @@ public final class Client {
         terminator.start();
       }
 
+      if (search != null) {
+        try {
+          if (warmup != null) {
+            warmup.await();
+          }
+          search.run((ThroughputProfile.Adjustable) profile, clients, completeLatch);
+        } catch (InterruptedException ignored) {
+          // stop searching
+        }
+        workload.requestStop();
+      }
+
       opsDone = 0;
 
       for (Map.Entry<Thread, ClientThread> entry : threads.entrySet()) {
@@ -806,8 +828,30 @@ public final class Client {
       }
 
       en = System.currentTimeMillis();
+
+      if (pool != null) {
+        pool.stop();
+      }
+
+      if (warmup != null && warmup.getMeasuredStartMs() > 0) {
+        st = warmup.getMeasuredStartMs();
+      }
+    }
+
+    cleanup(tracer, terminator, status, workload);
+
+    if (listener != null) {
+      listener.finished(opsDone, en - st);
+    }
+
+    if (exporter != null) {
+      try (final TraceScope span = tracer.newScope(CLIENT_EXPORT_MEASUREMENTS_SPAN)) {
+        exportMeasurements(exporter, opsDone, en - st, search);
+      }
     }
+  }
 
+  private static void cleanup(Tracer tracer, Thread terminator, boolean status, Workload workload) {
     try {
       try (final TraceScope span = tracer.newScope(CLIENT_CLEANUP_SPAN)) {
 
@@ -833,63 +877,117 @@ public final class Client {
       e.printStackTrace(System.out);
       System.exit(0);
     }
+  }
 
+  /**
+   * @return The pool if the number of client threads changes during the run, with the properties adjusted to
+   * start a thread for the most threads the pool may grow to, each of which runs until the pool stops the run.
+   */
+  private static ElasticPool createPool(Properties props, int threadcount) {
+    ElasticPool pool = null;
     try {
-      try (final TraceScope span = tracer.newScope(CLIENT_EXPORT_MEASUREMENTS_SPAN)) {
-        exportMeasurements(props, opsDone, en - st);
-      }
-    } catch (IOException e) {
-      System.err.println("Could not export measurements, error: " + e.getMessage());
-      e.printStackTrace();
-      System.exit(-1);
+      pool = ElasticPool.create(props, threadcount);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Unable to set up the elastic thread pool: " + e.getMessage());
+      System.exit(0);
     }
+    if (pool != null) {
+      props.setProperty(THREAD_COUNT_PROPERTY, String.valueOf(pool.getMaxThreads()));
+      props.setProperty(OPERATION_COUNT_PROPERTY, "0");
+    }
+    return pool;
+  }
 
-    System.exit(0);
+  private static void startStatusThread(Properties props, String label, List<ClientThread> clients,
+                                        CountDownLatch completeLatch, Warmup warmup) {
+    boolean standardstatus = false;
+    if (props.getProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, "").compareTo("timeseries") == 0) {
+      standardstatus = true;
+    }
+    int statusIntervalSeconds = Integer.parseInt(props.getProperty("status.interval", "10"));
+    boolean trackJVMStats = props.getProperty(Measurements.MEASUREMENT_TRACK_JVM_PROPERTY,
+        Measurements.MEASUREMENT_TRACK_JVM_PROPERTY_DEFAULT).equals("true");
+    statusthread = new StatusThread(completeLatch, clients, label, standardstatus, statusIntervalSeconds,
+        trackJVMStats);
+    statusthread.setElastic(ElasticPool.isEnabled(props));
+    statusthread.setWarmup(warmup);
+    statusthread.start();
   }
 
-  private static List<ClientThread> initDb(String dbname, Properties props, int threadcount,
-                                           double targetperthreadperms, Workload workload, Tracer tracer,
-                                           CountDownLatch completeLatch) {
+  private static List<ClientThread> initDb(Properties props, ThroughputProfile profile, Workload workload,
+                                           Tracer tracer, CountDownLatch completeLatch, List<DB> dbs,
+                                           ElasticPool pool) {
+    int threadcount = Integer.parseInt(props.getProperty(THREAD_COUNT_PROPERTY, "1"));
+    String dbname = props.getProperty(DB_PROPERTY, "com.yahoo.ycsb.BasicDB");
     boolean initFailed = false;
     boolean dotransactions = Boolean.valueOf(props.getProperty(DO_TRANSACTIONS_PROPERTY, String.valueOf(true)));
 
+    RateLimiter limiter = null;
+    RateLimiter[] budgets = null;
+    try {
+      limiter = RateLimiter.create(props, profile);
+      budgets = RateLimiter.createBudgets(props);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Unable to set up the rate limits: " + e.getMessage());
+      System.exit(0);
+    }
+
     final List<ClientThread> clients = new ArrayList<>(threadcount);
     try (final TraceScope span = tracer.newScope(CLIENT_INIT_SPAN)) {
-      int opcount;
+      long opcount;
       if (dotransactions) {
-        opcount = Integer.parseInt(props.getProperty(OPERATION_COUNT_PROPERTY, "0"));
+        opcount = Long.parseLong(props.getProperty(OPERATION_COUNT_PROPERTY, "0"));
       } else {
         if (props.containsKey(INSERT_COUNT_PROPERTY)) {
-          opcount = Integer.parseInt(props.getProperty(INSERT_COUNT_PROPERTY, "0"));
+          opcount = Long.parseLong(props.getProperty(INSERT_COUNT_PROPERTY, "0"));
         } else {
-          opcount = Integer.parseInt(props.getProperty(RECORD_COUNT_PROPERTY, DEFAULT_RECORD_COUNT));
+          opcount = Long.parseLong(props.getProperty(RECORD_COUNT_PROPERTY, DEFAULT_RECORD_COUNT));
         }
       }
 
       for (int threadid = 0; threadid < threadcount; threadid++) {
         DB db;
-        try {
-          db = DBFactory.newDB(dbname, props, tracer);
-        } catch (UnknownDBException e) {
-          System.out.println("Unknown DB " + dbname);
-          initFailed = true;
-          break;
+        boolean reused = dbs != null && threadid < dbs.size();
+        if (reused) {
+          db = dbs.get(threadid);
+        } else {
+          try {
+            db = DBFactory.newDB(dbname, props, tracer);
+          } catch (UnknownDBException e) {
+            System.out.println("Unknown DB " + dbname);
+            initFailed = true;
+            break;
+          }
+          if (dbs != null) {
+            dbs.add(db);
+          }
         }
 
-        int threadopcount = opcount / threadcount;
+        long threadopcount = opcount / threadcount;
 
         // ensure correct number of operations, in case opcount is not a multiple of threadcount
         if (threadid < opcount % threadcount) {
           ++threadopcount;
         }
 
-        ClientThread t = new ClientThread(db, dotransactions, workload, props, threadopcount, targetperthreadperms,
+        if (db instanceof DBWrapper) {
+          ((DBWrapper) db).setBudgets(budgets);
+        }
+        ClientThread t = new ClientThread(db, dotransactions, workload, props, threadopcount, profile,
             completeLatch);
         t.setThreadId(threadid);
+        t.setRateLimiter(limiter);
+        t.setPool(pool);
         t.setThreadCount(threadcount);
+        if (dbs != null) {
+          t.setDbLifecycle(!reused, false);
+        }
         clients.add(t);
       }
 
+      if (pool != null) {
+        pool.setDbSource(dbname, tracer, budgets);
+      }
       if (initFailed) {
         System.err.println("Error initializing datastore bindings.");
         System.exit(0);
@@ -970,23 +1068,20 @@ public final class Client {
     return null;
   }
 
-  private static Properties parseArguments(String[] args) {
+  /**
+   * Parse command line arguments.
+   *
+   * @param args The arguments.
+   * @param defaults Properties that apply unless the arguments, including property files, override them.
+   * @return The properties described by the arguments.
+   */
+  static Properties parseArguments(String[] args, Properties defaults) {
     Properties props = new Properties();
-    System.err.print("Command line:");
-    for (String arg : args) {
-      System.err.print(" " + arg);
-    }
-
     Properties fileprops = new Properties();
+    fileprops.putAll(defaults);
     int argindex = 0;
 
-    if (args.length == 0) {
-      usageMessage();
-      System.out.println("At least one argument specifying a workload is required.");
-      System.exit(0);
-    }
-
-    while (args[argindex].startsWith("-")) {
+    while (argindex < args.length && args[argindex].startsWith("-")) {
       if (args[argindex].compareTo("-threads") == 0) {
         argindex++;
         if (argindex >= args.length) {
@@ -1110,13 +1205,6 @@ public final class Client {
       fileprops.setProperty(prop, props.getProperty(prop));
     }
 
-    props = fileprops;
-
-    if (!checkRequiredProperties(props)) {
-      System.out.println("Failed check required properties.");
-      System.exit(0);
-    }
-
-    return props;
+    return fileprops;
   }
 }
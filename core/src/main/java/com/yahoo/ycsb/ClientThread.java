@@ -0,0 +1,433 @@
+/**
+ * Copyright (c) 2010-2016 Yahoo! Inc., 2017 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.generator.ExponentialGenerator;
+import com.yahoo.ycsb.measurements.Measurements;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A thread for executing transactions or data inserts to the database.
+ */
+class ClientThread implements Runnable {
+  // Counts down each of the clients completing.
+  private final CountDownLatch completeLatch;
+
+  private static boolean spinSleep;
+  private DB db;
+  private boolean dotransactions;
+  private Workload workload;
+  private long opcount;
+  private final ThroughputProfile profile;
+  private Warmup warmup;
+  private RateLimiter limiter;
+  private ElasticPool pool;
+  private boolean initDb = true;
+  private boolean cleanupDb = true;
+
+  // the operations started, and those whose last DB call completed, which an asynchronous DB finishes later
+  private volatile long opsstarted;
+  private final AtomicLong opsdone = new AtomicLong();
+  private final Runnable countDone = new Runnable() {
+    @Override
+    public void run() {
+      opsdone.incrementAndGet();
+    }
+  };
+  private volatile boolean active;
+  private int threadid;
+  private int threadcount;
+  private Object workloadstate;
+  private Properties props;
+  private final Measurements measurements;
+
+  // Unit mean inter-arrival times for open-loop Poisson arrivals, null for evenly spaced operations.
+  private ExponentialGenerator interarrival;
+  // The scheduled start of the next operation, relative to the start of the run.
+  private double arrivalOffsetNs;
+  // The last restart of the profile's schedule this thread has caught up with.
+  private long restartNanos;
+
+  // The resolution at which a changing target is followed when operations are further apart than this.
+  private static final long PROFILE_STEP_NS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /**
+   * Constructor.
+   *
+   * @param db                   the DB implementation to use
+   * @param dotransactions       true to do transactions, false to insert data
+   * @param workload             the workload to use
+   * @param props                the properties defining the experiment
+   * @param opcount              the number of operations (transactions or inserts) to do
+   * @param profile              the target throughput of the whole client, or null to run unthrottled
+   * @param completeLatch        The latch tracking the completion of all clients.
+   */
+  public ClientThread(DB db, boolean dotransactions, Workload workload, Properties props, long opcount,
+                      ThroughputProfile profile, CountDownLatch completeLatch) {
+    this.db = db;
+    this.dotransactions = dotransactions;
+    this.workload = workload;
+    this.opcount = opcount;
+    this.profile = profile;
+    this.props = props;
+    String arrivals = props.getProperty(Client.ARRIVAL_DISTRIBUTION_PROPERTY,
+        Client.ARRIVAL_DISTRIBUTION_PROPERTY_DEFAULT);
+    switch (arrivals) {
+    case "uniform":
+      break;
+    case "poisson":
+      interarrival = new ExponentialGenerator(1.0);
+      break;
+    default:
+      throw new IllegalArgumentException("unknown " + Client.ARRIVAL_DISTRIBUTION_PROPERTY + "=" + arrivals);
+    }
+    measurements = Measurements.getMeasurements();
+    spinSleep = Boolean.valueOf(this.props.getProperty("spin.sleep", "false"));
+    this.completeLatch = completeLatch;
+  }
+
+  public void setThreadId(final int threadId) {
+    threadid = threadId;
+  }
+  
+  public void setThreadCount(final int threadCount) {
+    threadcount = threadCount;
+  }
+
+  public void setWarmup(final Warmup warmupPhase) {
+    warmup = warmupPhase;
+    if (warmup != null) {
+      // every thread is waiting for the warmup to finish, so none of them is running an operation
+      warmup.onMeasuredStart(new Runnable() {
+        @Override
+        public void run() {
+          opsstarted = 0;
+          opsdone.set(0);
+        }
+      });
+    }
+  }
+
+  /**
+   * Draw from a rate limiter shared with the other threads instead of pacing this thread's share of the target.
+   */
+  public void setRateLimiter(final RateLimiter rateLimiter) {
+    limiter = rateLimiter;
+  }
+
+  /**
+   * Run only while the pool counts this thread among its active ones.
+   */
+  public void setPool(final ElasticPool elasticPool) {
+    pool = elasticPool;
+  }
+  
+  /**
+   * Used when the DB is shared with other phases of a run plan.
+   *
+   * @param init      false if the DB was already initialized by an earlier phase
+   * @param cleanup   false if the DB will be used by a later phase
+   */
+  public void setDbLifecycle(final boolean init, final boolean cleanup) {
+    initDb = init;
+    cleanupDb = cleanup;
+  }
+
+  public long getOpsDone() {
+    return opsdone.get();
+  }
+
+  /**
+   * @return Whether this thread is running the workload with an initialized DB.
+   */
+  public boolean isActive() {
+    return active;
+  }
+
+  @Override
+  public void run() {
+    Utils.setStream(threadid);
+    if (pool != null && !pool.isActive(threadid)) {
+      // not one of the threads the run starts with: skip the warmup and wait to be added
+      leaveWarmup();
+      warmup = null;
+      if (!pool.awaitActive(threadid)) {
+        completeLatch.countDown();
+        return;
+      }
+    }
+
+    try {
+      if (initDb) {
+        db.init();
+      }
+    } catch (DBException e) {
+      e.printStackTrace();
+      e.printStackTrace(System.out);
+      leaveWarmup();
+      return;
+    }
+
+    try {
+      workloadstate = workload.initThread(props, threadid, threadcount);
+    } catch (WorkloadException e) {
+      e.printStackTrace();
+      e.printStackTrace(System.out);
+      leaveWarmup();
+      return;
+    }
+    active = true;
+
+    //NOTE: Switching to using nanoTime and parkNanos for time management here such that the measurements
+    // and the client thread have the same view on time.
+
+    //spread the thread operations out so they don't all hit the DB at the same time
+    // GH issue 4 - throws exception if _target>1 because random.nextInt argument must be >0
+    // and the sleep() doesn't make sense for granularities < 1 ms anyway
+    if (profile != null && interarrival == null && limiter == null) {
+      double targetOpsPerMs = getTargetPerThread(0) / 1000.0;
+      if ((targetOpsPerMs > 0) && (targetOpsPerMs <= 1.0)) {
+        long randomMinorDelay = (long) (Utils.random().nextDouble() * (1000000 / targetOpsPerMs));
+        sleepUntil(System.nanoTime() + randomMinorDelay);
+      }
+    }
+    try {
+      if (dotransactions) {
+        long startTimeNanos = System.nanoTime();
+
+        if (warmup != null) {
+          warmUp(startTimeNanos);
+          startTimeNanos = System.nanoTime();
+          if (limiter != null) {
+            limiter.restart(startTimeNanos);
+          }
+        }
+
+        while (((opcount == 0) || (opsstarted < opcount)) && !workload.isStopRequested()) {
+
+          if (pool != null && ((!pool.isActive(threadid) && !retire(startTimeNanos)) || !pool.claimOperation())) {
+            break;
+          }
+
+          if (!workload.doTransaction(db, workloadstate)) {
+            break;
+          }
+
+          started();
+
+          throttleNanos(startTimeNanos);
+        }
+      } else {
+        long startTimeNanos = System.nanoTime();
+
+        while (((opcount == 0) || (opsstarted < opcount)) && !workload.isStopRequested()) {
+
+          if (!workload.doInsert(db, workloadstate)) {
+            break;
+          }
+
+          started();
+
+          throttleNanos(startTimeNanos);
+        }
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      e.printStackTrace(System.out);
+      System.exit(0);
+    }
+
+    try {
+      if (active) {
+        releaseDb();
+      }
+    } catch (DBException e) {
+      e.printStackTrace();
+      e.printStackTrace(System.out);
+    } finally {
+      completeLatch.countDown();
+    }
+  }
+
+  private void releaseDb() throws DBException {
+    active = false;
+    measurements.setIntendedStartTimeNs(0);
+    if (cleanupDb) {
+      db.cleanup();
+    } else if (db instanceof AsyncDBWrapper) {
+      ((AsyncDBWrapper) db).drain();
+    }
+  }
+
+  /**
+   * Clean up the DB while the pool has this thread retired, and start over with a new one once the thread is
+   * added again. The thread doesn't make up for the operations it missed meanwhile.
+   *
+   * @return False if the run ended first.
+   */
+  private boolean retire(long startTimeNanos) {
+    try {
+      releaseDb();
+    } catch (DBException e) {
+      e.printStackTrace();
+      e.printStackTrace(System.out);
+    }
+    if (!pool.awaitActive(threadid)) {
+      return false;
+    }
+    if (cleanupDb) {
+      try {
+        db = pool.newDb();
+        db.init();
+      } catch (UnknownDBException | DBException e) {
+        e.printStackTrace();
+        e.printStackTrace(System.out);
+        return false;
+      }
+    }
+    active = true;
+    arrivalOffsetNs = Math.max(arrivalOffsetNs, System.nanoTime() - startTimeNanos);
+    return true;
+  }
+
+  /**
+   * Run the warmup operations, then wait for the other threads to finish theirs. The schedule and the
+   * operation count start over for the measured window.
+   */
+  private void warmUp(long startTimeNanos) {
+    long warmupops = warmup.getOperations(threadid, threadcount);
+    long deadline = warmup.getDeadlineNanos(startTimeNanos);
+    try {
+      while (((warmupops == 0) || (opsstarted < warmupops)) && (System.nanoTime() < deadline)
+          && !workload.isStopRequested()) {
+
+        if (!workload.doTransaction(db, workloadstate)) {
+          break;
+        }
+
+        started();
+
+        throttleNanos(startTimeNanos);
+      }
+      if (db instanceof AsyncDBWrapper) {
+        ((AsyncDBWrapper) db).drain();
+      }
+    } finally {
+      warmup.finish();
+    }
+    arrivalOffsetNs = 0;
+  }
+
+  /**
+   * Count an operation as started, and as done once the DB completes its last call.
+   */
+  private void started() {
+    opsstarted++;
+    db.whenComplete(countDone);
+  }
+
+  private void leaveWarmup() {
+    if (warmup != null) {
+      warmup.leave();
+    }
+  }
+
+  private static void sleepUntil(long deadline) {
+    while (System.nanoTime() < deadline) {
+      if (!spinSleep) {
+        LockSupport.parkNanos(deadline - System.nanoTime());
+      }
+    }
+  }
+
+  private void throttleNanos(long startTimeNanos) {
+    if (limiter != null) {
+      throttleShared();
+      return;
+    }
+    //throttle the operations
+    if (profile != null) {
+      // The next operation is due once the profile's target, integrated from the last scheduled start,
+      // adds up to one operation (evenly spaced ticks) or to an exponentially distributed amount (Poisson
+      // arrivals). Arrivals are scheduled from the start of the run rather than from the completion of the
+      // last operation, so a slow operation makes the following ones late instead of silently lowering the
+      // offered load; their latency is measured from the scheduled arrival.
+      double due = interarrival == null ? 1.0 : interarrival.nextValue();
+      long restart = profile.getRestartNanos();
+      if (restart != restartNanos) {
+        restartNanos = restart;
+        arrivalOffsetNs = Math.max(arrivalOffsetNs, restart - startTimeNanos);
+      }
+      while (true) {
+        double target = getTargetPerThread((long) arrivalOffsetNs);
+        if (target > 0) {
+          double tickNs = due * TimeUnit.SECONDS.toNanos(1) / target;
+          if (tickNs <= PROFILE_STEP_NS) {
+            arrivalOffsetNs += tickNs;
+            break;
+          }
+          due -= target * PROFILE_STEP_NS / TimeUnit.SECONDS.toNanos(1);
+        }
+        if (workload.isStopRequested()) {
+          return;
+        }
+        arrivalOffsetNs += PROFILE_STEP_NS;
+        sleepUntil(startTimeNanos + (long) arrivalOffsetNs);
+      }
+      long deadline = startTimeNanos + (long) arrivalOffsetNs;
+      sleepUntil(deadline);
+      measurements.setIntendedStartTimeNs(deadline);
+    }
+  }
+
+  /**
+   * Wait for the next slot of the rate limiter shared by all threads. Whichever thread is free takes the next
+   * slot, so the threads stuck on slow operations don't hold back the offered load.
+   */
+  private void throttleShared() {
+    while (!workload.isStopRequested()) {
+      long slot = limiter.reserve(System.nanoTime());
+      if (slot != RateLimiter.PAUSED) {
+        sleepUntil(slot);
+        measurements.setIntendedStartTimeNs(slot);
+        return;
+      }
+      sleepUntil(System.nanoTime() + PROFILE_STEP_NS);
+    }
+  }
+
+  /**
+   * @return This thread's share of the target throughput, in operations per second.
+   */
+  private double getTargetPerThread(long elapsedNanos) {
+    return profile.getTarget(elapsedNanos) / (pool == null ? threadcount : Math.max(pool.getActive(), 1));
+  }
+
+  /**
+   * The total amount of work this thread is still expected to do.
+   */
+  long getOpsTodo() {
+    long todo = opcount - opsstarted;
+    return todo < 0 ? 0 : todo;
+  }
+}
@@ -0,0 +1,391 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.util.DefaultPrettyPrinter;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Runs the same workload at a series of thread counts, and optionally
+ * targets, in a single invocation to find where the store saturates and where
+ * the client becomes the bottleneck.
+ * <p>
+ * Each step is a full run of the workload, with its own warmup, operation
+ * count or maximum execution time. The DB instances, and so their connections,
+ * are kept from one step to the next; the data should be loaded beforehand.
+ * The measurements of each step are written to the exporter with the step's
+ * name prepended to every metric, e.g. "16threads-READ", and once every step
+ * is done the throughput, the share of the machine's CPU used by the client
+ * and the latencies of each step are printed to stderr as one table, next to
+ * the client's progress messages, leaving stdout to the exporter.
+ * <p>
+ * Properties to control the sweep:
+ * <UL>
+ * <LI><b>sweep.threads</b>: the thread counts to run, separated by commas. "min:max" stands for the
+ * powers of two from min up to max, e.g. "1:256" (required to sweep)
+ * <LI><b>sweep.targets</b>: the targets to run each thread count at, in ops/sec, separated by commas
+ * with 0 for no target (default: only the target of the workload)
+ * <LI><b>sweep.file</b>: write the curve as JSON to this file too (default: none)
+ * </ul>
+ */
+public final class ConcurrencySweep {
+  public static final String THREADS_PROPERTY = "sweep.threads";
+
+  public static final String TARGETS_PROPERTY = "sweep.targets";
+
+  public static final String FILE_PROPERTY = "sweep.file";
+
+  /**
+   * The outcome of one step of the sweep.
+   */
+  static final class Step implements PhaseListener {
+    private final int threads;
+    private final double target;
+    private long runtimeMs;
+    private double throughput;
+    private double clientCpu = -1;
+    private long cpuStart;
+    private long wallStart;
+    private final Map<String, Map<String, Double>> latencies = new LinkedHashMap<>();
+
+    Step(int threads, double target) {
+      this.threads = threads;
+      this.target = target;
+    }
+
+    String getName() {
+      return target > 0 ? threads + "threads@" + format(target) : threads + "threads";
+    }
+
+    int getThreads() {
+      return threads;
+    }
+
+    double getThroughput() {
+      return throughput;
+    }
+
+    /**
+     * @return The share of all the machine's processors used by the client while the threads ran, in percent,
+     * or a negative value if the JVM can't tell.
+     */
+    double getClientCpu() {
+      return clientCpu;
+    }
+
+    /**
+     * @return The latency measurements of each operation, e.g. "READ" to "99thPercentileLatency(us)".
+     */
+    Map<String, Map<String, Double>> getLatencies() {
+      return latencies;
+    }
+
+    @Override
+    public void beforeStart(Warmup warmup) {
+      cpuStart = Utils.getProcessCpuTime();
+      wallStart = System.nanoTime();
+    }
+
+    @Override
+    public void finished(long opsDone, long runtime) {
+      long cpu = Utils.getProcessCpuTime();
+      long wall = System.nanoTime() - wallStart;
+      if (cpuStart >= 0 && cpu >= 0 && wall > 0) {
+        clientCpu = 100.0 * (cpu - cpuStart) / wall / Runtime.getRuntime().availableProcessors();
+      }
+      runtimeMs = runtime;
+    }
+
+    private void record(String metric, String measurement, double value) {
+      if ("OVERALL".equals(metric) && "Throughput(ops/sec)".equals(measurement)) {
+        throughput = value;
+      } else if (measurement.endsWith("Latency(us)")) {
+        Map<String, Double> operation = latencies.get(metric);
+        if (operation == null) {
+          operation = new LinkedHashMap<>();
+          latencies.put(metric, operation);
+        }
+        operation.put(measurement, value);
+      }
+    }
+  }
+
+  private final Properties base;
+  private final List<Step> steps = new ArrayList<>();
+
+  /**
+   * @param props The properties given on the command line.
+   */
+  ConcurrencySweep(Properties props) {
+    base = new Properties();
+    base.putAll(props);
+    base.remove(THREADS_PROPERTY);
+
+    List<Integer> threads = parseThreads(props.getProperty(THREADS_PROPERTY));
+    List<Double> targets = parseTargets(props.getProperty(TARGETS_PROPERTY));
+    for (int threadcount : threads) {
+      if (targets.isEmpty()) {
+        double target = Double.parseDouble(base.getProperty(Client.TARGET_PROPERTY, "0"));
+        steps.add(new Step(threadcount, target));
+      }
+      for (double target : targets) {
+        steps.add(new Step(threadcount, target));
+      }
+    }
+  }
+
+  /**
+   * Parse a list of thread counts such as "1,2,4" or "1:256".
+   */
+  static List<Integer> parseThreads(String spec) {
+    List<Integer> threads = new ArrayList<>();
+    for (String part : spec.split(",")) {
+      part = part.trim();
+      int colon = part.indexOf(':');
+      if (colon < 0) {
+        threads.add(checkThreads(Integer.parseInt(part)));
+        continue;
+      }
+      int min = checkThreads(Integer.parseInt(part.substring(0, colon).trim()));
+      int max = checkThreads(Integer.parseInt(part.substring(colon + 1).trim()));
+      for (long count = min; count < max; count *= 2) {
+        threads.add((int) count);
+      }
+      threads.add(max);
+    }
+    return threads;
+  }
+
+  private static int checkThreads(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException(THREADS_PROPERTY + " must only have positive thread counts");
+    }
+    return threads;
+  }
+
+  private static List<Double> parseTargets(String spec) {
+    List<Double> targets = new ArrayList<>();
+    if (spec != null) {
+      for (String part : spec.split(",")) {
+        targets.add(Double.parseDouble(part.trim()));
+      }
+    }
+    return targets;
+  }
+
+  List<Step> getSteps() {
+    return steps;
+  }
+
+  /**
+   * Run every step of the sweep.
+   *
+   * @param exporter Where to write the measurements of each step.
+   */
+  void run(MeasurementsExporter exporter) throws IOException {
+    List<DB> dbs = new ArrayList<>();
+    try {
+      for (Step step : steps) {
+        Properties stepProps = new Properties();
+        stepProps.putAll(base);
+        stepProps.setProperty(Client.THREAD_COUNT_PROPERTY, String.valueOf(step.getThreads()));
+        if (step.target > 0) {
+          stepProps.setProperty(Client.TARGET_PROPERTY, String.valueOf(step.target));
+        } else {
+          stepProps.remove(Client.TARGET_PROPERTY);
+        }
+
+        System.err.println("Starting sweep step " + step.getName() + ".");
+        Client.run(stepProps, new StepExporter(step, new RunPlan.PhaseExporter(step.getName(), exporter)), dbs,
+            step);
+        Measurements.getMeasurements().clear();
+        System.err.println(String.format("Sweep step %s: %.1f ops/sec", step.getName(), step.getThroughput()));
+      }
+    } finally {
+      RunPlan.cleanup(dbs);
+    }
+  }
+
+  /**
+   * Print the curve as a table with a row for each operation of each step.
+   */
+  void writeTable(PrintStream out) {
+    Set<String> measurements = new LinkedHashSet<>();
+    for (Step step : steps) {
+      for (Map<String, Double> operation : step.getLatencies().values()) {
+        measurements.addAll(operation.keySet());
+      }
+    }
+    List<String> columns = new ArrayList<>();
+    columns.add("Threads");
+    columns.add("Target(ops/sec)");
+    columns.add("Throughput(ops/sec)");
+    columns.add("ClientCPU(%)");
+    columns.add("Operation");
+    columns.addAll(measurements);
+
+    StringBuilder format = new StringBuilder();
+    for (String column : columns) {
+      format.append(format.length() == 0 ? "%" : "  %").append(column.length()).append('s');
+    }
+    String line = format.toString();
+    out.println(String.format(line, columns.toArray()));
+    for (Step step : steps) {
+      for (Map.Entry<String, Map<String, Double>> operation : step.getLatencies().entrySet()) {
+        List<String> row = new ArrayList<>();
+        row.add(String.valueOf(step.getThreads()));
+        row.add(step.target > 0 ? format(step.target) : "-");
+        row.add(String.format("%.1f", step.getThroughput()));
+        row.add(step.getClientCpu() < 0 ? "-" : String.format("%.1f", step.getClientCpu()));
+        row.add(operation.getKey());
+        for (String measurement : measurements) {
+          Double value = operation.getValue().get(measurement);
+          row.add(value == null ? "-" : format(value));
+        }
+        out.println(String.format(line, row.toArray()));
+      }
+    }
+  }
+
+  /**
+   * Write the curve as a JSON array with an object for each step.
+   */
+  void writeJson(OutputStream out) throws IOException {
+    JsonGenerator g = new JsonFactory().createJsonGenerator(new OutputStreamWriter(out, "UTF-8"));
+    g.setPrettyPrinter(new DefaultPrettyPrinter());
+    g.writeStartArray();
+    for (Step step : steps) {
+      g.writeStartObject();
+      g.writeNumberField("threads", step.getThreads());
+      if (step.target > 0) {
+        g.writeNumberField("target", step.target);
+      }
+      g.writeNumberField("runtime", step.runtimeMs);
+      g.writeNumberField("throughput", step.getThroughput());
+      if (step.getClientCpu() >= 0) {
+        g.writeNumberField("clientcpu", step.getClientCpu());
+      }
+      g.writeObjectFieldStart("operations");
+      for (Map.Entry<String, Map<String, Double>> operation : step.getLatencies().entrySet()) {
+        g.writeObjectFieldStart(operation.getKey());
+        for (Map.Entry<String, Double> measurement : operation.getValue().entrySet()) {
+          g.writeNumberField(measurement.getKey(), measurement.getValue());
+        }
+        g.writeEndObject();
+      }
+      g.writeEndObject();
+      g.writeEndObject();
+    }
+    g.writeEndArray();
+    g.close();
+  }
+
+  private static String format(double value) {
+    return value == Math.rint(value) ? String.valueOf((long) value) : String.format("%.2f", value);
+  }
+
+  /**
+   * Run the sweep described by the properties given on the command line and report the curve.
+   */
+  static void run(Properties props) {
+    if (!Client.checkRequiredProperties(props)) {
+      System.out.println("Failed check required properties.");
+      System.exit(0);
+    }
+    ConcurrencySweep sweep = null;
+    try {
+      sweep = new ConcurrencySweep(props);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Unable to set up the sweep: " + e.getMessage());
+      System.exit(0);
+    }
+
+    try {
+      MeasurementsExporter exporter = Client.openExporter(props);
+      try {
+        sweep.run(exporter);
+      } finally {
+        exporter.close();
+      }
+      sweep.writeTable(System.err);
+
+      String file = props.getProperty(FILE_PROPERTY);
+      if (file != null) {
+        try (OutputStream out = new FileOutputStream(file)) {
+          sweep.writeJson(out);
+        }
+      }
+    } catch (IOException e) {
+      System.err.println("Could not export measurements, error: " + e.getMessage());
+      e.printStackTrace();
+      System.exit(-1);
+    }
+  }
+
+  /**
+   * Passes the measurements of a step on while recording those that make up the curve.
+   */
+  private static final class StepExporter implements MeasurementsExporter {
+    private final Step step;
+    private final MeasurementsExporter exporter;
+
+    private StepExporter(Step step, MeasurementsExporter exporter) {
+      this.step = step;
+      this.exporter = exporter;
+    }
+
+    @Override
+    public void write(String metric, String measurement, int i) throws IOException {
+      step.record(metric, measurement, i);
+      exporter.write(metric, measurement, i);
+    }
+
+    @Override
+    public void write(String metric, String measurement, long i) throws IOException {
+      step.record(metric, measurement, i);
+      exporter.write(metric, measurement, i);
+    }
+
+    @Override
+    public void write(String metric, String measurement, double d) throws IOException {
+      step.record(metric, measurement, d);
+      exporter.write(metric, measurement, d);
+    }
+
+    @Override
+    public void close() {
+      // the exporter is shared by every step
+    }
+  }
+}
@@ -0,0 +1,425 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.DataFormatException;
+
+/**
+ * Runs a load or transaction phase across several {@link Worker} processes,
+ * for when a single client process can't generate enough load. The
+ * coordinator splits the phase between the workers, starts them all at once,
+ * merges the HdrHistograms they stream back while they run, and exports the
+ * combined measurements as a single client would.
+ * <p>
+ * Each worker gets an even share of the keys to insert (load phase) or of the
+ * operations to perform (transaction phase), and of the target throughput,
+ * whose profile each worker scales down by the number of workers, and of the
+ * throttle budget of each type of operation. Workers only
+ * stream the latencies measured after their warmup.
+ * The thread count applies to each worker. Workers always measure with
+ * "hdrhistogram" (or "perthreadhdrhistogram"), so that their latencies can be merged exactly.
+ * <p>
+ * Properties to control the coordinator:
+ * <UL>
+ * <LI><b>coordinator.workers</b>: the number of workers to split the phase between
+ * <LI><b>coordinator.host</b>: the address to listen on for workers (default: localhost)
+ * <LI><b>coordinator.port</b>: the port to listen on for workers, 0 for any free port (default: 0)
+ * <LI><b>coordinator.launch</b>: whether to launch the workers as processes on this machine. If false, start
+ * them by hand with "-p worker.coordinator=host:port", using the address the coordinator prints
+ * (default: true)
+ * <LI><b>coordinator.interval</b>: how often workers send their measurements, in seconds (default: 1)
+ * <LI><b>coordinator.timeout</b>: how long to wait for the workers to connect, in seconds (default: 60)
+ * </ul>
+ */
+public final class Coordinator {
+  public static final String WORKERS_PROPERTY = "coordinator.workers";
+
+  public static final String HOST_PROPERTY = "coordinator.host";
+  public static final String HOST_PROPERTY_DEFAULT = "localhost";
+
+  public static final String PORT_PROPERTY = "coordinator.port";
+  public static final String PORT_PROPERTY_DEFAULT = "0";
+
+  public static final String LAUNCH_PROPERTY = "coordinator.launch";
+  public static final String LAUNCH_PROPERTY_DEFAULT = "true";
+
+  public static final String INTERVAL_PROPERTY = "coordinator.interval";
+  public static final String INTERVAL_PROPERTY_DEFAULT = "1";
+
+  public static final String TIMEOUT_PROPERTY = "coordinator.timeout";
+  public static final String TIMEOUT_PROPERTY_DEFAULT = "60";
+
+  /** Coordinator to worker: the properties of the worker's partition. */
+  static final byte CONFIG = 1;
+  /** Worker to coordinator: initialized and waiting to start. */
+  static final byte READY = 2;
+  /** Coordinator to worker: start the client threads. */
+  static final byte START = 3;
+  /** Worker to coordinator: the latencies of one measurement since the last interval. */
+  static final byte INTERVAL = 4;
+  /** Worker to coordinator: the number of operations of one measurement that returned a status. */
+  static final byte STATUS = 5;
+  /** Worker to coordinator: the number of operations done and the runtime. */
+  static final byte DONE = 6;
+
+  // the number of random streams of each worker is 2 to the power of this
+  private static final int WORKER_STREAM_BITS = 32;
+
+  private final Properties props;
+  private final int workers;
+  private final Measurements measurements;
+  private final AtomicLong opsDone = new AtomicLong();
+  // the longest runtime of a worker, which leaves out its setup and warmup
+  private final AtomicLong runtimeMs = new AtomicLong();
+  private ServerSocket server;
+
+  /**
+   * @throws IllegalArgumentException if the number of workers isn't positive.
+   */
+  Coordinator(Properties props) {
+    this.props = props;
+    workers = Integer.parseInt(props.getProperty(WORKERS_PROPERTY));
+    if (workers <= 0) {
+      throw new IllegalArgumentException(WORKERS_PROPERTY + " must be positive");
+    }
+    Properties measurementProps = new Properties();
+    measurementProps.putAll(props);
+    measurementProps.setProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, "hdrhistogram");
+    measurements = new Measurements(measurementProps);
+  }
+
+  /**
+   * Run the phase described by the properties across the workers and export the measurements.
+   */
+  static void run(Properties props) {
+    if (!Client.checkRequiredProperties(props)) {
+      System.out.println("Failed check required properties.");
+      System.exit(0);
+    }
+    try {
+      MeasurementsExporter exporter = Client.openExporter(props);
+      try {
+        new Coordinator(props).run(exporter);
+      } finally {
+        exporter.close();
+      }
+    } catch (IOException e) {
+      System.err.println("Distributed run failed, error: " + e.getMessage());
+      e.printStackTrace();
+      System.exit(-1);
+    }
+  }
+
+  /**
+   * Start listening for workers, if not listening yet.
+   *
+   * @return The host:port workers connect to.
+   */
+  String listen() throws IOException {
+    String host = props.getProperty(HOST_PROPERTY, HOST_PROPERTY_DEFAULT);
+    if (server == null) {
+      int port = Integer.parseInt(props.getProperty(PORT_PROPERTY, PORT_PROPERTY_DEFAULT));
+      server = new ServerSocket(port, workers, InetAddress.getByName(host));
+    }
+    return host + ":" + server.getLocalPort();
+  }
+
+  /**
+   * Run the phase across the workers.
+   *
+   * @param exporter Where to write the combined measurements.
+   */
+  void run(MeasurementsExporter exporter) throws IOException {
+    boolean launch = Boolean.valueOf(props.getProperty(LAUNCH_PROPERTY, LAUNCH_PROPERTY_DEFAULT));
+    int timeout = Integer.parseInt(props.getProperty(TIMEOUT_PROPERTY, TIMEOUT_PROPERTY_DEFAULT));
+
+    List<Process> processes = new ArrayList<>();
+    List<Socket> sockets = new ArrayList<>();
+    String address = listen();
+    try {
+      System.err.println("Coordinator listening on " + address + " for " + workers + " workers.");
+      if (launch) {
+        for (int i = 0; i < workers; i++) {
+          processes.add(launch(address));
+        }
+      }
+
+      server.setSoTimeout(timeout * 1000);
+      List<DataInputStream> ins = new ArrayList<>();
+      List<DataOutputStream> outs = new ArrayList<>();
+      for (int i = 0; i < workers; i++) {
+        Socket socket = server.accept();
+        socket.setTcpNoDelay(true);
+        sockets.add(socket);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        out.writeByte(CONFIG);
+        writeProperties(out, partition(props, i, workers));
+        out.flush();
+        outs.add(out);
+        ins.add(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+      }
+
+      // Start every worker at once, after the slowest one has initialized.
+      for (DataInputStream in : ins) {
+        if (in.readByte() != READY) {
+          throw new IOException("Expected a worker to be ready");
+        }
+      }
+      for (DataOutputStream out : outs) {
+        out.writeByte(START);
+        out.flush();
+      }
+      System.err.println("Started " + workers + " workers.");
+
+      List<Receiver> receivers = new ArrayList<>();
+      for (int i = 0; i < workers; i++) {
+        Receiver receiver = new Receiver(i, ins.get(i));
+        receivers.add(receiver);
+        receiver.start();
+      }
+      for (Receiver receiver : receivers) {
+        try {
+          receiver.join();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while waiting for the workers", e);
+        }
+        if (receiver.error != null) {
+          throw receiver.error;
+        }
+      }
+      long runtime = runtimeMs.get();
+      exporter.write("OVERALL", "RunTime(ms)", runtime);
+      exporter.write("OVERALL", "Throughput(ops/sec)", 1000.0 * opsDone.get() / runtime);
+      exporter.write("OVERALL", "Operations", opsDone.get());
+      exporter.write("OVERALL", "Workers", workers);
+      measurements.exportMeasurements(exporter);
+    } finally {
+      server.close();
+      for (Socket socket : sockets) {
+        socket.close();
+      }
+      for (Process process : processes) {
+        try {
+          process.waitFor();
+        } catch (InterruptedException e) {
+          process.destroy();
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  /**
+   * @return The measurements merged from the workers.
+   */
+  Measurements getMeasurements() {
+    return measurements;
+  }
+
+  /**
+   * @return The number of operations all the workers did.
+   */
+  long getOpsDone() {
+    return opsDone.get();
+  }
+
+  /**
+   * @return The longest time a worker measured for, in milliseconds.
+   */
+  long getRuntimeMs() {
+    return runtimeMs.get();
+  }
+
+  private static Process launch(String address) throws IOException {
+    String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+        Client.class.getName(), "-p", Worker.COORDINATOR_PROPERTY + "=" + address);
+    builder.inheritIO();
+    return builder.start();
+  }
+
+  /**
+   * Reads what one worker sends until it is done.
+   */
+  private final class Receiver extends Thread {
+    private final DataInputStream in;
+    private IOException error;
+
+    private Receiver(int worker, DataInputStream in) {
+      super("CoordinatorReceiver-" + worker);
+      this.in = in;
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (true) {
+          byte frame = in.readByte();
+          switch (frame) {
+          case INTERVAL:
+            String name = in.readUTF();
+            measurements.merge(name, readHistogram(in));
+            break;
+          case STATUS:
+            String operation = in.readUTF();
+            Status status = new Status(in.readUTF(), in.readUTF());
+            measurements.mergeStatus(operation, status, in.readLong());
+            break;
+          case DONE:
+            opsDone.addAndGet(in.readLong());
+            long runtime = in.readLong();
+            long longest = runtimeMs.get();
+            while (runtime > longest && !runtimeMs.compareAndSet(longest, runtime)) {
+              longest = runtimeMs.get();
+            }
+            return;
+          default:
+            throw new IOException("Unexpected message " + frame + " from " + getName());
+          }
+        }
+      } catch (IOException e) {
+        error = e;
+      }
+    }
+  }
+
+  /**
+   * Split a phase between workers.
+   *
+   * @param props The properties of the whole phase.
+   * @param worker The index of the worker, from 0.
+   * @param workers The number of workers.
+   * @return The properties of the worker's share of the phase.
+   */
+  static Properties partition(Properties props, int worker, int workers) {
+    Properties part = new Properties();
+    for (String name : props.stringPropertyNames()) {
+      if (!name.startsWith("coordinator.")) {
+        part.setProperty(name, props.getProperty(name));
+      }
+    }
+    part.setProperty(INTERVAL_PROPERTY, props.getProperty(INTERVAL_PROPERTY, INTERVAL_PROPERTY_DEFAULT));
+    if (!"perthreadhdrhistogram".equals(props.getProperty(Measurements.MEASUREMENT_TYPE_PROPERTY))) {
+      part.setProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, "hdrhistogram");
+    }
+    part.setProperty(Client.STATUS_PROPERTY, "false");
+    part.remove(Client.EXPORT_FILE_PROPERTY);
+
+    boolean dotransactions = Boolean.valueOf(props.getProperty(Client.DO_TRANSACTIONS_PROPERTY, "true"));
+    if (dotransactions) {
+      long operations = Long.parseLong(props.getProperty(Client.OPERATION_COUNT_PROPERTY, "0"));
+      part.setProperty(Client.OPERATION_COUNT_PROPERTY, String.valueOf(share(operations, worker, workers)));
+    } else {
+      long insertstart = Long.parseLong(props.getProperty(Workload.INSERT_START_PROPERTY,
+          Workload.INSERT_START_PROPERTY_DEFAULT));
+      long insertcount;
+      if (props.containsKey(Client.INSERT_COUNT_PROPERTY)) {
+        insertcount = Long.parseLong(props.getProperty(Client.INSERT_COUNT_PROPERTY));
+      } else {
+        insertcount = Long.parseLong(props.getProperty(Client.RECORD_COUNT_PROPERTY,
+            Client.DEFAULT_RECORD_COUNT)) - insertstart;
+      }
+      long start = insertstart;
+      for (int i = 0; i < worker; i++) {
+        start += share(insertcount, i, workers);
+      }
+      part.setProperty(Workload.INSERT_START_PROPERTY, String.valueOf(start));
+      part.setProperty(Client.INSERT_COUNT_PROPERTY, String.valueOf(share(insertcount, worker, workers)));
+    }
+
+    double scale = Double.parseDouble(props.getProperty(ThroughputProfile.SCALE_PROPERTY,
+        ThroughputProfile.SCALE_PROPERTY_DEFAULT));
+    part.setProperty(ThroughputProfile.SCALE_PROPERTY, String.valueOf(scale / workers));
+    String seed = props.getProperty(Utils.SEED_PROPERTY);
+    if (seed != null) {
+      // a worker's threads draw from streams of its seed, so the seeds of workers are far enough apart
+      // that their streams don't meet
+      part.setProperty(Utils.SEED_PROPERTY,
+          String.valueOf(Utils.streamSeed(Long.parseLong(seed), (long) worker << WORKER_STREAM_BITS)));
+    }
+    for (Measurements.Operation operation : Measurements.Operation.values()) {
+      String name = RateLimiter.THROTTLE_PROPERTY + "." + operation.name().toLowerCase(Locale.ROOT);
+      if (props.containsKey(name)) {
+        part.setProperty(name, String.valueOf(Double.parseDouble(props.getProperty(name)) / workers));
+      }
+    }
+    return part;
+  }
+
+  private static long share(long total, int worker, int workers) {
+    long share = total / workers;
+    if (worker < total % workers) {
+      ++share;
+    }
+    return share;
+  }
+
+  static void writeProperties(DataOutputStream out, Properties props) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    props.store(bytes, null);
+    out.writeInt(bytes.size());
+    bytes.writeTo(out);
+  }
+
+  static Properties readProperties(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    Properties props = new Properties();
+    props.load(new ByteArrayInputStream(bytes));
+    return props;
+  }
+
+  static void writeHistogram(DataOutputStream out, Histogram histogram) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+    int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+    out.writeInt(length);
+    out.write(buffer.array(), 0, length);
+  }
+
+  static Histogram readHistogram(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    try {
+      return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0);
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt histogram from a worker", e);
+    }
+  }
+}
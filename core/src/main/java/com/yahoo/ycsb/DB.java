@@ -18,6 +18,7 @@
 package com.yahoo.ycsb;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -41,6 +42,14 @@ import java.util.Vector;
  * to match the database's default semantics, or the semantics of your 
  * target application.  For the sake of comparison between experiments we also 
  * recommend you explain the semantics you chose when presenting performance results.
+ *
+ * The batch methods work on several records at once. By default they work on
+ * each record in turn; bindings for stores with multi-get or bulk write APIs
+ * should override them to use those.
+ *
+ * Bindings for transactional stores can also group operations into
+ * transactions, between begin() and commit() or abort(). By default these do
+ * nothing, and each operation takes effect on its own.
  */
 public abstract class DB {
   /**
@@ -132,4 +141,123 @@ public abstract class DB {
    * @return The result of the operation.
    */
   public abstract Status delete(String table, String key);
+
+  /**
+   * Read several records from the database, e.g. with a multi-get.
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to read.
+   * @param fields The list of fields to read, or null for all of them
+   * @param results A HashMap for the field/value pairs of each record, in the order of the keys
+   * @return The result of the operation: OK if every record was read, or else the first failure.
+   */
+  public Status batchRead(String table, List<String> keys, Set<String> fields,
+                          List<Map<String, ByteIterator>> results) {
+    return readEach(table, keys, fields, results);
+  }
+
+  /**
+   * Insert several records in the database, e.g. with a bulk write.
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to insert.
+   * @param values A HashMap of field/value pairs to insert for each record, in the order of the keys
+   * @return The result of the operation: OK if every record was inserted, or else the first failure.
+   */
+  public Status batchInsert(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    return insertEach(table, keys, values);
+  }
+
+  /**
+   * Update several records in the database, e.g. with a bulk write.
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to write.
+   * @param values A HashMap of field/value pairs to update for each record, in the order of the keys
+   * @return The result of the operation: OK if every record was updated, or else the first failure.
+   */
+  public Status batchUpdate(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    return updateEach(table, keys, values);
+  }
+
+  /**
+   * Start a transaction, which the following operations of this DB instance belong to until it is
+   * committed or aborted.
+   *
+   * @return The result of the operation.
+   */
+  public Status begin() {
+    return Status.OK;
+  }
+
+  /**
+   * Commit the transaction. If it can't be committed, it is aborted.
+   *
+   * @return The result of the operation, {@link Status#CONFLICT} if the transaction could not be
+   * committed because of another one.
+   */
+  public Status commit() {
+    return Status.OK;
+  }
+
+  /**
+   * Abort the transaction, undoing its operations.
+   *
+   * @return The result of the operation.
+   */
+  public Status abort() {
+    return Status.OK;
+  }
+
+  /**
+   * Run an action once the last call to this DB instance has completed, i.e. the operation it issued, or
+   * every record of a batch. The operations of a DB complete before they return, so by default the action
+   * runs right away.
+   *
+   * @param action What to do, e.g. make the keys that were inserted available to readers.
+   */
+  public void whenComplete(Runnable action) {
+    action.run();
+  }
+
+  /**
+   * Read the records of a batch one at a time.
+   */
+  protected final Status readEach(String table, List<String> keys, Set<String> fields,
+                                  List<Map<String, ByteIterator>> results) {
+    Status res = Status.OK;
+    for (int i = 0; i < keys.size(); i++) {
+      res = worst(res, read(table, keys.get(i), fields, results.get(i)));
+    }
+    return res;
+  }
+
+  /**
+   * Insert the records of a batch one at a time.
+   */
+  protected final Status insertEach(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    Status res = Status.OK;
+    for (int i = 0; i < keys.size(); i++) {
+      res = worst(res, insert(table, keys.get(i), values.get(i)));
+    }
+    return res;
+  }
+
+  /**
+   * Update the records of a batch one at a time.
+   */
+  protected final Status updateEach(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    Status res = Status.OK;
+    for (int i = 0; i < keys.size(); i++) {
+      res = worst(res, update(table, keys.get(i), values.get(i)));
+    }
+    return res;
+  }
+
+  private static Status worst(Status sofar, Status next) {
+    if (!sofar.isOk()) {
+      return sofar;
+    }
+    return next == null ? Status.ERROR : next;
+  }
 }
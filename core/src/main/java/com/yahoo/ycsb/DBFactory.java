@@ -45,6 +45,14 @@ public final class DBFactory {
 
     ret.setProperties(properties);
 
+    if (ret instanceof AsyncDB) {
+      int window = Integer.parseInt(properties.getProperty(AsyncDBWrapper.ASYNC_WINDOW_PROPERTY,
+          AsyncDBWrapper.ASYNC_WINDOW_PROPERTY_DEFAULT));
+      if (window > 1) {
+        return new AsyncDBWrapper((AsyncDB) ret, tracer, window);
+      }
+    }
+
     return new DBWrapper(ret, tracer);
   }
 
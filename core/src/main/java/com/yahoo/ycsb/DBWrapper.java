@@ -19,6 +19,7 @@ package com.yahoo.ycsb;
 
 import java.util.Map;
 import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.measurements.Measurements.Operation;
 import org.apache.htrace.core.TraceScope;
 import org.apache.htrace.core.Tracer;
 
@@ -27,11 +28,15 @@ import java.util.*;
 /**
  * Wrapper around a "real" DB that measures latencies and counts return codes.
  * Also reports latency separately between OK and failed operations.
+ * <p>
+ * A batch is measured as a whole, as e.g. BATCH-READ, and each of its records
+ * as an operation of its own, e.g. READ, with the latency and the result of
+ * the batch: a record is only done once its batch is.
  */
 public class DBWrapper extends DB {
   private final DB db;
-  private final Measurements measurements;
-  private final Tracer tracer;
+  protected final Measurements measurements;
+  protected final Tracer tracer;
 
   private boolean reportLatencyForEachError = false;
   private Set<String> latencyTrackedErrors = new HashSet<String>();
@@ -41,13 +46,21 @@ public class DBWrapper extends DB {
 
   private static final String LATENCY_TRACKED_ERRORS_PROPERTY = "latencytrackederrors";
 
+  private RateLimiter[] budgets;
+
   private final String scopeStringCleanup;
-  private final String scopeStringDelete;
+  protected final String scopeStringDelete;
   private final String scopeStringInit;
-  private final String scopeStringInsert;
-  private final String scopeStringRead;
-  private final String scopeStringScan;
-  private final String scopeStringUpdate;
+  protected final String scopeStringInsert;
+  protected final String scopeStringRead;
+  protected final String scopeStringScan;
+  protected final String scopeStringUpdate;
+  private final String scopeStringBatchRead;
+  private final String scopeStringBatchInsert;
+  private final String scopeStringBatchUpdate;
+  private final String scopeStringBegin;
+  private final String scopeStringCommit;
+  private final String scopeStringAbort;
 
   public DBWrapper(final DB db, final Tracer tracer) {
     this.db = db;
@@ -61,6 +74,40 @@ public class DBWrapper extends DB {
     scopeStringRead = simple + "#read";
     scopeStringScan = simple + "#scan";
     scopeStringUpdate = simple + "#update";
+    scopeStringBatchRead = simple + "#batchRead";
+    scopeStringBatchInsert = simple + "#batchInsert";
+    scopeStringBatchUpdate = simple + "#batchUpdate";
+    scopeStringBegin = simple + "#begin";
+    scopeStringCommit = simple + "#commit";
+    scopeStringAbort = simple + "#abort";
+  }
+
+  /**
+   * Limit the rate of some types of operations.
+   *
+   * @param operationBudgets A rate limiter shared by all client threads for each type of operation, indexed by
+   *                         ordinal, with null for the types that are not limited; or null if none is.
+   */
+  public void setBudgets(RateLimiter[] operationBudgets) {
+    budgets = operationBudgets;
+  }
+
+  /**
+   * Wait until the budget for the type of operation allows another one.
+   */
+  protected void awaitBudget(Operation op) {
+    if (budgets != null && budgets[op.ordinal()] != null) {
+      budgets[op.ordinal()].acquire();
+    }
+  }
+
+  /**
+   * Wait until the budget for the type of operation allows the records of a batch.
+   */
+  protected void awaitBudget(Operation op, int records) {
+    for (int i = 0; i < records && budgets != null; i++) {
+      awaitBudget(op);
+    }
   }
 
   /**
@@ -113,7 +160,7 @@ public class DBWrapper extends DB {
       long st = System.nanoTime();
       db.cleanup();
       long en = System.nanoTime();
-      measure("CLEANUP", Status.OK, ist, st, en);
+      measure(Operation.CLEANUP, Status.OK, ist, st, en);
     }
   }
 
@@ -130,12 +177,13 @@ public class DBWrapper extends DB {
   public Status read(String table, String key, Set<String> fields,
                      Map<String, ByteIterator> result) {
     try (final TraceScope span = tracer.newScope(scopeStringRead)) {
+      awaitBudget(Operation.READ);
       long ist = measurements.getIntendedtartTimeNs();
       long st = System.nanoTime();
       Status res = db.read(table, key, fields, result);
       long en = System.nanoTime();
-      measure("READ", res, ist, st, en);
-      measurements.reportStatus("READ", res);
+      measure(Operation.READ, res, ist, st, en);
+      measurements.reportStatus(Operation.READ, res);
       return res;
     }
   }
@@ -154,17 +202,31 @@ public class DBWrapper extends DB {
   public Status scan(String table, String startkey, int recordcount,
                      Set<String> fields, Vector<HashMap<String, ByteIterator>> result) {
     try (final TraceScope span = tracer.newScope(scopeStringScan)) {
+      awaitBudget(Operation.SCAN);
       long ist = measurements.getIntendedtartTimeNs();
       long st = System.nanoTime();
       Status res = db.scan(table, startkey, recordcount, fields, result);
       long en = System.nanoTime();
-      measure("SCAN", res, ist, st, en);
-      measurements.reportStatus("SCAN", res);
+      measure(Operation.SCAN, res, ist, st, en);
+      measurements.reportStatus(Operation.SCAN, res);
       return res;
     }
   }
 
-  private void measure(String op, Status result, long intendedStartTimeNanos,
+  /**
+   * Measure a DB operation. Successful operations are looked up by the operation rather than by name.
+   */
+  protected void measure(Operation op, Status result, long intendedStartTimeNanos,
+                         long startTimeNanos, long endTimeNanos) {
+    if (result == null || !result.isOk()) {
+      measure(op.name(), result, intendedStartTimeNanos, startTimeNanos, endTimeNanos);
+      return;
+    }
+    measurements.measure(op, (int) ((endTimeNanos - startTimeNanos) / 1000));
+    measurements.measureIntended(op, (int) ((endTimeNanos - intendedStartTimeNanos) / 1000));
+  }
+
+  protected void measure(String op, Status result, long intendedStartTimeNanos,
                        long startTimeNanos, long endTimeNanos) {
     String measurementName = op;
     if (result == null || !result.isOk()) {
@@ -193,12 +255,13 @@ public class DBWrapper extends DB {
   public Status update(String table, String key,
                        Map<String, ByteIterator> values) {
     try (final TraceScope span = tracer.newScope(scopeStringUpdate)) {
+      awaitBudget(Operation.UPDATE);
       long ist = measurements.getIntendedtartTimeNs();
       long st = System.nanoTime();
       Status res = db.update(table, key, values);
       long en = System.nanoTime();
-      measure("UPDATE", res, ist, st, en);
-      measurements.reportStatus("UPDATE", res);
+      measure(Operation.UPDATE, res, ist, st, en);
+      measurements.reportStatus(Operation.UPDATE, res);
       return res;
     }
   }
@@ -216,12 +279,13 @@ public class DBWrapper extends DB {
   public Status insert(String table, String key,
                        Map<String, ByteIterator> values) {
     try (final TraceScope span = tracer.newScope(scopeStringInsert)) {
+      awaitBudget(Operation.INSERT);
       long ist = measurements.getIntendedtartTimeNs();
       long st = System.nanoTime();
       Status res = db.insert(table, key, values);
       long en = System.nanoTime();
-      measure("INSERT", res, ist, st, en);
-      measurements.reportStatus("INSERT", res);
+      measure(Operation.INSERT, res, ist, st, en);
+      measurements.reportStatus(Operation.INSERT, res);
       return res;
     }
   }
@@ -235,13 +299,109 @@ public class DBWrapper extends DB {
    */
   public Status delete(String table, String key) {
     try (final TraceScope span = tracer.newScope(scopeStringDelete)) {
+      awaitBudget(Operation.DELETE);
       long ist = measurements.getIntendedtartTimeNs();
       long st = System.nanoTime();
       Status res = db.delete(table, key);
       long en = System.nanoTime();
-      measure("DELETE", res, ist, st, en);
-      measurements.reportStatus("DELETE", res);
+      measure(Operation.DELETE, res, ist, st, en);
+      measurements.reportStatus(Operation.DELETE, res);
+      return res;
+    }
+  }
+
+  @Override
+  public Status batchRead(String table, List<String> keys, Set<String> fields,
+                          List<Map<String, ByteIterator>> results) {
+    try (final TraceScope span = tracer.newScope(scopeStringBatchRead)) {
+      awaitBudget(Operation.READ, keys.size());
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.batchRead(table, keys, fields, results);
+      long en = System.nanoTime();
+      measureBatch(Operation.READ, keys.size(), res, ist, st, en);
+      return res;
+    }
+  }
+
+  @Override
+  public Status batchInsert(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    try (final TraceScope span = tracer.newScope(scopeStringBatchInsert)) {
+      awaitBudget(Operation.INSERT, keys.size());
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.batchInsert(table, keys, values);
+      long en = System.nanoTime();
+      measureBatch(Operation.INSERT, keys.size(), res, ist, st, en);
+      return res;
+    }
+  }
+
+  @Override
+  public Status batchUpdate(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    try (final TraceScope span = tracer.newScope(scopeStringBatchUpdate)) {
+      awaitBudget(Operation.UPDATE, keys.size());
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.batchUpdate(table, keys, values);
+      long en = System.nanoTime();
+      measureBatch(Operation.UPDATE, keys.size(), res, ist, st, en);
       return res;
     }
   }
+
+  @Override
+  public Status begin() {
+    try (final TraceScope span = tracer.newScope(scopeStringBegin)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.begin();
+      long en = System.nanoTime();
+      measure("BEGIN", res, ist, st, en);
+      measurements.reportStatus("BEGIN", res);
+      return res;
+    }
+  }
+
+  @Override
+  public Status commit() {
+    try (final TraceScope span = tracer.newScope(scopeStringCommit)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.commit();
+      long en = System.nanoTime();
+      measure("COMMIT", res, ist, st, en);
+      measurements.reportStatus("COMMIT", res);
+      return res;
+    }
+  }
+
+  @Override
+  public Status abort() {
+    try (final TraceScope span = tracer.newScope(scopeStringAbort)) {
+      long ist = measurements.getIntendedtartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.abort();
+      long en = System.nanoTime();
+      measure("ABORT", res, ist, st, en);
+      measurements.reportStatus("ABORT", res);
+      return res;
+    }
+  }
+
+  /**
+   * Measure a batch, and each of its records under BATCH-<op>-ITEM, which keeps the latency of
+   * the single record operations free of whole batches.
+   */
+  protected void measureBatch(Operation op, int records, Status result, long intendedStartTimeNanos,
+                              long startTimeNanos, long endTimeNanos) {
+    String batch = "BATCH-" + op.name();
+    measure(batch, result, intendedStartTimeNanos, startTimeNanos, endTimeNanos);
+    measurements.reportStatus(batch, result);
+    String item = batch + "-ITEM";
+    for (int i = 0; i < records; i++) {
+      measure(item, result, intendedStartTimeNanos, startTimeNanos, endTimeNanos);
+      measurements.reportStatus(item, result);
+    }
+  }
 }
@@ -0,0 +1,338 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import org.apache.htrace.core.Tracer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Changes the number of client threads running the transaction phase while it
+ * is in progress, e.g. to model a connection storm or an application tier
+ * that scales out and back in, and see how the store's latency reacts.
+ * <p>
+ * The client starts a thread for the most threads the pool may grow to, but
+ * only the first "active" ones run the workload. A thread that is retired
+ * finishes its current operation and cleans up its DB; when it is added
+ * again it initializes a new DB instance, so every change of the concurrency
+ * also opens or closes that many connections. The target throughput is shared
+ * by the active threads. The run ends once operationcount operations are done
+ * by all threads together, or after maxexecutiontime.
+ * <p>
+ * Properties to control the pool:
+ * <UL>
+ * <LI><b>threads.schedule</b>: the number of active threads over time, as second:threads pairs separated by
+ * commas, e.g. "0:4,30:64,90:8" (default: none, threadcount threads throughout)
+ * <LI><b>threads.control</b>: the port to accept commands on, one per line: "threads N" sets the number of
+ * active threads, "threads" reports it. 0 picks a free port (default: none)
+ * <LI><b>threads.control.host</b>: the address to accept commands on. The commands are not authenticated, so
+ * only make this reachable from other machines on a trusted network (default: localhost)
+ * <LI><b>threads.max</b>: the most threads the pool may grow to (default: threadcount, or the largest count
+ * of the schedule if that is higher)
+ * </ul>
+ * The DB instances of a run plan are kept open while their thread is retired.
+ */
+public final class ElasticPool {
+  public static final String SCHEDULE_PROPERTY = "threads.schedule";
+
+  public static final String CONTROL_PROPERTY = "threads.control";
+
+  public static final String CONTROL_HOST_PROPERTY = "threads.control.host";
+  public static final String CONTROL_HOST_PROPERTY_DEFAULT = "localhost";
+
+  public static final String MAX_PROPERTY = "threads.max";
+
+  // how often the schedule is checked
+  private static final long TICK_MS = 100;
+
+  private final Properties props;
+  private final int maxThreads;
+  private final long[] scheduleNanos;
+  private final int[] scheduleThreads;
+  private final Integer controlPort;
+  private final long opcount;
+  private final AtomicLong remaining;
+  private volatile int active;
+
+  private String dbname;
+  private Tracer tracer;
+  private RateLimiter[] budgets;
+  private Workload workload;
+  private Thread controller;
+  private ServerSocket server;
+
+  /**
+   * @param props The properties of the phase.
+   * @param threadcount The number of client threads asked for.
+   */
+  ElasticPool(Properties props, int threadcount) {
+    this.props = props;
+    List<long[]> schedule = parseSchedule(props.getProperty(SCHEDULE_PROPERTY, ""));
+    scheduleNanos = new long[schedule.size()];
+    scheduleThreads = new int[schedule.size()];
+    int max = threadcount;
+    for (int i = 0; i < schedule.size(); i++) {
+      scheduleNanos[i] = schedule.get(i)[0];
+      scheduleThreads[i] = (int) schedule.get(i)[1];
+      max = Math.max(max, scheduleThreads[i]);
+    }
+    maxThreads = Integer.parseInt(props.getProperty(MAX_PROPERTY, String.valueOf(max)));
+    if (maxThreads < max) {
+      throw new IllegalArgumentException(MAX_PROPERTY + " is below the thread count");
+    }
+    String port = props.getProperty(CONTROL_PROPERTY);
+    controlPort = port == null ? null : Integer.valueOf(port);
+    opcount = Long.parseLong(props.getProperty(Client.OPERATION_COUNT_PROPERTY, "0"));
+    remaining = new AtomicLong(opcount);
+    active = scheduleNanos.length > 0 && scheduleNanos[0] == 0 ? scheduleThreads[0] : threadcount;
+  }
+
+  /**
+   * @return The pool described by the properties, or null if the number of threads is fixed.
+   */
+  static ElasticPool create(Properties props, int threadcount) {
+    if (!isEnabled(props)) {
+      return null;
+    }
+    return new ElasticPool(props, threadcount);
+  }
+
+  /**
+   * @return Whether the properties ask for an elastic pool.
+   */
+  static boolean isEnabled(Properties props) {
+    return Boolean.valueOf(props.getProperty(Client.DO_TRANSACTIONS_PROPERTY, String.valueOf(true)))
+        && (props.containsKey(SCHEDULE_PROPERTY) || props.containsKey(CONTROL_PROPERTY));
+  }
+
+  /**
+   * Parse second:threads pairs into nanoseconds:threads, in order.
+   */
+  static List<long[]> parseSchedule(String spec) {
+    List<long[]> schedule = new ArrayList<>();
+    long last = -1;
+    for (String part : spec.split(",")) {
+      part = part.trim();
+      if (part.isEmpty()) {
+        continue;
+      }
+      int colon = part.indexOf(':');
+      if (colon < 0) {
+        throw new IllegalArgumentException("expected second:threads in " + SCHEDULE_PROPERTY + " but got " + part);
+      }
+      long nanos = (long) (Double.parseDouble(part.substring(0, colon).trim()) * TimeUnit.SECONDS.toNanos(1));
+      int threads = Integer.parseInt(part.substring(colon + 1).trim());
+      if (nanos <= last || threads < 0) {
+        throw new IllegalArgumentException(SCHEDULE_PROPERTY + " must be in order of time, with no negative "
+            + "thread counts");
+      }
+      last = nanos;
+      schedule.add(new long[]{nanos, threads});
+    }
+    return schedule;
+  }
+
+  /**
+   * @return The number of client threads to start, active or not.
+   */
+  int getMaxThreads() {
+    return maxThreads;
+  }
+
+  /**
+   * @return The number of threads that should currently be running the workload.
+   */
+  int getActive() {
+    return active;
+  }
+
+  boolean isActive(int threadid) {
+    return threadid < active;
+  }
+
+  /**
+   * Set the number of threads that should be running the workload, waking those that are added.
+   */
+  synchronized void setActive(int threads) {
+    if (threads < 0 || threads > maxThreads) {
+      throw new IllegalArgumentException("the number of threads must be between 0 and " + maxThreads);
+    }
+    if (threads != active) {
+      System.err.println("Changing the number of active client threads from " + active + " to " + threads + ".");
+      active = threads;
+      notifyAll();
+    }
+  }
+
+  /**
+   * Take one of the operations left to do, as the threads don't have a fixed share of them.
+   *
+   * @return False once operationcount operations were taken, in which case the run is stopped.
+   */
+  boolean claimOperation() {
+    if (opcount == 0 || remaining.getAndDecrement() > 0) {
+      return true;
+    }
+    workload.requestStop();
+    return false;
+  }
+
+  /**
+   * Wait until a retired thread is added again.
+   *
+   * @return False if the run was stopped first.
+   */
+  synchronized boolean awaitActive(int threadid) {
+    while (!isActive(threadid) && !workload.isStopRequested()) {
+      try {
+        wait(TICK_MS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    return isActive(threadid);
+  }
+
+  /**
+   * Where the DB instances of threads that are added again come from.
+   */
+  void setDbSource(String db, Tracer dbTracer, RateLimiter[] operationBudgets) {
+    dbname = db;
+    tracer = dbTracer;
+    budgets = operationBudgets;
+  }
+
+  /**
+   * @return A new, uninitialized DB instance for a thread that is added again.
+   */
+  DB newDb() throws UnknownDBException {
+    DB db = DBFactory.newDB(dbname, props, tracer);
+    if (db instanceof DBWrapper) {
+      ((DBWrapper) db).setBudgets(budgets);
+    }
+    return db;
+  }
+
+  /**
+   * Start following the schedule and accepting commands, right before the client threads start.
+   */
+  void start(final Workload runWorkload) throws IOException {
+    workload = runWorkload;
+    if (controlPort != null) {
+      String host = props.getProperty(CONTROL_HOST_PROPERTY, CONTROL_HOST_PROPERTY_DEFAULT);
+      server = new ServerSocket(controlPort, 0, InetAddress.getByName(host));
+      System.err.println("Accepting thread count changes on " + host + ":" + server.getLocalPort() + ".");
+      Thread acceptor = new Thread("ElasticPoolControl") {
+        @Override
+        public void run() {
+          accept();
+        }
+      };
+      acceptor.setDaemon(true);
+      acceptor.start();
+    }
+
+    final long startNanos = System.nanoTime();
+    controller = new Thread("ElasticPool") {
+      @Override
+      public void run() {
+        int next = 0;
+        while (!workload.isStopRequested()) {
+          long elapsed = System.nanoTime() - startNanos;
+          while (next < scheduleNanos.length && scheduleNanos[next] <= elapsed) {
+            setActive(scheduleThreads[next++]);
+          }
+          try {
+            sleep(TICK_MS);
+          } catch (InterruptedException e) {
+            break;
+          }
+        }
+        // wake up the retired threads so they finish
+        synchronized (ElasticPool.this) {
+          ElasticPool.this.notifyAll();
+        }
+      }
+    };
+    controller.setDaemon(true);
+    controller.start();
+  }
+
+  /**
+   * Stop following the schedule and accepting commands, once the client threads are done.
+   */
+  void stop() {
+    if (controller != null) {
+      controller.interrupt();
+    }
+    if (server != null) {
+      try {
+        server.close();
+      } catch (IOException e) {
+        // already closed
+      }
+    }
+  }
+
+  private void accept() {
+    while (!server.isClosed()) {
+      try (Socket socket = server.accept();
+           BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+           PrintWriter out = new PrintWriter(socket.getOutputStream(), true)) {
+        String line;
+        while ((line = in.readLine()) != null) {
+          out.println(execute(line.trim()));
+        }
+      } catch (IOException e) {
+        // the connection, or the server, was closed
+      }
+    }
+  }
+
+  /**
+   * Run one control command.
+   *
+   * @return The reply.
+   */
+  String execute(String command) {
+    String[] tokens = command.split("\\s+");
+    if (!"threads".equals(tokens[0]) || tokens.length > 2) {
+      return "error: expected \"threads\" or \"threads N\"";
+    }
+    if (tokens.length == 2) {
+      try {
+        setActive(Integer.parseInt(tokens[1]));
+      } catch (IllegalArgumentException e) {
+        return "error: " + e.getMessage();
+      }
+    }
+    return "threads " + active;
+  }
+}
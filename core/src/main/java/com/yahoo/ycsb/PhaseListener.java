@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.io.IOException;
+
+/**
+ * Callbacks for code that runs a phase on someone else's behalf, e.g. a {@link Worker} of a distributed run.
+ */
+interface PhaseListener {
+  /**
+   * Called once the workload and the client threads are set up, right before the threads start.
+   *
+   * @param warmup The warmup the threads start with, or null if there is none.
+   */
+  void beforeStart(Warmup warmup) throws IOException;
+
+  /**
+   * Called once every client thread is done.
+   *
+   * @param opsDone The number of operations done by the client threads.
+   * @param runtimeMs How long the client threads ran, in milliseconds.
+   */
+  void finished(long opsDone, long runtimeMs) throws IOException;
+}
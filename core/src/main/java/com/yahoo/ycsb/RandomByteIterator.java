@@ -60,8 +60,20 @@ public class RandomByteIterator extends ByteIterator {
   }
 
   public RandomByteIterator(long len) {
-    this.len = len;
     this.buf = new byte[6];
+    start(len);
+  }
+
+  /**
+   * Start a new random sequence of the given length, so that one iterator can
+   * produce many values.
+   */
+  public void reset(long length) {
+    start(length);
+  }
+
+  private void start(long length) {
+    this.len = length;
     this.bufOff = buf.length;
     fillBytes();
     this.off = 0;
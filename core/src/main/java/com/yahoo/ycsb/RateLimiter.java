@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.generator.ExponentialGenerator;
+import com.yahoo.ycsb.measurements.Measurements;
+
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A token bucket shared by all client threads. Instead of each thread pacing
+ * its own share of the target, every thread takes the next free slot of one
+ * schedule, so when some threads are held up by slow operations the others
+ * pick up their share and the aggregate offered load still follows the target.
+ * <p>
+ * Slots are handed out lock-free: the bucket is a single timestamp, the
+ * scheduled start of the next slot, advanced by compare-and-set. The schedule
+ * of the target is kept as the per-thread one is: slots that every thread was
+ * too busy to take are handed out late rather than dropped, and operations are
+ * measured from their scheduled start. The per-type budgets are caps instead, so
+ * a type that fell behind, or was idle, may start up to "burst" operations at
+ * once before it is paced again.
+ * <p>
+ * Properties to control the rate limiter:
+ * <UL>
+ * <LI><b>throttle</b>: "perthread" to divide the target evenly among the client threads, each pacing
+ * itself, or "global" to have every thread draw from one shared token bucket (default: perthread)
+ * <LI><b>throttle.burst</b>: the number of operations of a type with a budget that may start at once
+ * (default: 1)
+ * <LI><b>throttle.read</b>, <b>throttle.scan</b>, <b>throttle.update</b>, <b>throttle.insert</b>,
+ * <b>throttle.delete</b>: the most operations of that type per second across all threads, whatever the
+ * target, enforced as each operation is sent to the DB (default: no limit)
+ * </ul>
+ */
+public class RateLimiter {
+  public static final String THROTTLE_PROPERTY = "throttle";
+  public static final String THROTTLE_PROPERTY_DEFAULT = "perthread";
+
+  public static final String BURST_PROPERTY = "throttle.burst";
+  public static final String BURST_PROPERTY_DEFAULT = "1";
+
+  /**
+   * Returned by {@link #reserve(long)} while the target is zero.
+   */
+  public static final long PAUSED = Long.MIN_VALUE;
+
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final ThroughputProfile profile;
+  private final long burst;
+  private final boolean keepSchedule;
+  private final ExponentialGenerator interarrival;
+  private final AtomicLong next;
+  private volatile long startNanos;
+  private volatile long restartNanos;
+
+  /**
+   * @param profile The target throughput of all the threads together.
+   * @param burst The number of operations that may start at once, at least 1.
+   * @param poisson True to space operations by exponentially distributed gaps (open-loop Poisson
+   *                arrivals), false to space them evenly.
+   */
+  public RateLimiter(ThroughputProfile profile, long burst, boolean poisson) {
+    this(profile, burst, poisson, false);
+  }
+
+  /**
+   * @param profile The target throughput of all the threads together.
+   * @param burst The number of operations that may start at once, at least 1.
+   * @param poisson True to space operations by exponentially distributed gaps (open-loop Poisson
+   *                arrivals), false to space them evenly.
+   * @param keepSchedule True to hand out the slots the client fell behind on late, as arrivals that still
+   *                     have to be served; false to drop them beyond the burst.
+   */
+  public RateLimiter(ThroughputProfile profile, long burst, boolean poisson, boolean keepSchedule) {
+    if (burst < 1) {
+      throw new IllegalArgumentException(BURST_PROPERTY + " must be at least 1");
+    }
+    this.profile = profile;
+    this.burst = burst;
+    this.keepSchedule = keepSchedule;
+    interarrival = poisson ? new ExponentialGenerator(1.0) : null;
+    startNanos = System.nanoTime();
+    next = new AtomicLong(startNanos);
+    restartNanos = profile.getRestartNanos();
+  }
+
+  /**
+   * @return The limiter shared by the client threads, or null if each thread paces itself.
+   */
+  static RateLimiter create(Properties props, ThroughputProfile profile) {
+    String throttle = props.getProperty(THROTTLE_PROPERTY, THROTTLE_PROPERTY_DEFAULT);
+    switch (throttle) {
+    case "perthread":
+      return null;
+    case "global":
+      if (profile == null) {
+        return null;
+      }
+      boolean poisson = "poisson".equals(props.getProperty(Client.ARRIVAL_DISTRIBUTION_PROPERTY,
+          Client.ARRIVAL_DISTRIBUTION_PROPERTY_DEFAULT));
+      return new RateLimiter(profile, getBurst(props), poisson, true);
+    default:
+      throw new IllegalArgumentException("unknown " + THROTTLE_PROPERTY + "=" + throttle);
+    }
+  }
+
+  /**
+   * @return A limiter for each type of DB operation, indexed by ordinal, with null for the types that are not
+   * limited; or null if no type is.
+   */
+  static RateLimiter[] createBudgets(Properties props) {
+    RateLimiter[] budgets = null;
+    for (Measurements.Operation operation : Measurements.Operation.values()) {
+      String budget = props.getProperty(THROTTLE_PROPERTY + "." + operation.name().toLowerCase(Locale.ROOT));
+      if (budget == null) {
+        continue;
+      }
+      double rate = Double.parseDouble(budget);
+      if (rate <= 0) {
+        throw new IllegalArgumentException(THROTTLE_PROPERTY + "." + operation.name().toLowerCase(Locale.ROOT)
+            + " must be positive");
+      }
+      if (budgets == null) {
+        budgets = new RateLimiter[Measurements.Operation.values().length];
+      }
+      budgets[operation.ordinal()] = new RateLimiter(new ThroughputProfile.Constant(rate), getBurst(props), false);
+    }
+    return budgets;
+  }
+
+  private static long getBurst(Properties props) {
+    return Long.parseLong(props.getProperty(BURST_PROPERTY, BURST_PROPERTY_DEFAULT));
+  }
+
+  /**
+   * Start the schedule over, e.g. once the warmup is done, following the profile from its beginning.
+   */
+  public void restart(long nowNanos) {
+    startNanos = nowNanos;
+    next.set(nowNanos);
+  }
+
+  /**
+   * Take the next slot.
+   *
+   * @param nowNanos The current {@link System#nanoTime()}.
+   * @return The scheduled start of the operation, which may be in the past if the client fell behind, or
+   * {@link #PAUSED} if the target currently is zero.
+   */
+  public long reserve(long nowNanos) {
+    long restart = profile.getRestartNanos();
+    if (restart != restartNanos) {
+      // the target was changed: drop the backlog of the old target
+      restartNanos = restart;
+      long tat = next.get();
+      while (tat < nowNanos && !next.compareAndSet(tat, nowNanos)) {
+        tat = next.get();
+      }
+    }
+
+    double target = profile.getTarget(nowNanos - startNanos);
+    if (target <= 0) {
+      // no arrivals are due while paused
+      long tat = next.get();
+      while (tat < nowNanos && !next.compareAndSet(tat, nowNanos)) {
+        tat = next.get();
+      }
+      return PAUSED;
+    }
+    double meanIntervalNs = NANOS_PER_SECOND / target;
+    long interval = (long) ((interarrival == null ? 1.0 : interarrival.nextValue()) * meanIntervalNs);
+    long earliest = keepSchedule ? Long.MIN_VALUE : nowNanos - (long) ((burst - 1) * meanIntervalNs);
+    while (true) {
+      long tat = next.get();
+      long slot = Math.max(tat, earliest);
+      if (next.compareAndSet(tat, slot + interval)) {
+        return slot;
+      }
+    }
+  }
+
+  /**
+   * Take the next slot and wait for it. The target must not be zero.
+   */
+  public void acquire() {
+    long slot = reserve(System.nanoTime());
+    long now;
+    while ((now = System.nanoTime()) < slot) {
+      LockSupport.parkNanos(slot - now);
+    }
+  }
+}
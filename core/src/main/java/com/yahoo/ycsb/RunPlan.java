@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Runs several load and transaction phases one after the other in a single
+ * JVM, e.g. a load followed by runs of workloads A and B. Keeping the JVM
+ * around means the JIT stays warm, and the DB instances (and so their
+ * connections) are reused from one phase to the next.
+ * <p>
+ * The plan is a file with one phase per line: a name for the phase followed by
+ * the same options the client takes on the command line. Blank lines and lines
+ * starting with # are ignored. For example:
+ * <pre>
+ * load  -load -P workloads/workloada -threads 16
+ * runa  -t -P workloads/workloada -p operationcount=1000000
+ * runb  -t -P workloads/workloadb -p operationcount=1000000
+ * </pre>
+ * Each phase starts from the properties given on the command line, which its
+ * property files and -p options override. The measurements of each phase are
+ * written to the same exporter, with the name of the phase prepended to every
+ * metric, e.g. "runa-READ". The measurement type and interval are those of the
+ * first phase.
+ * <p>
+ * A phase reuses the DB instances of the previous phase if they use the same
+ * DB class, creating more if it runs with more threads. Reused DB instances
+ * keep the properties of the phase that created them; set
+ * "runplan.reusedb=false" for a phase that needs new ones.
+ */
+public final class RunPlan {
+  /**
+   * The file with the phases to run.
+   */
+  public static final String RUN_PLAN_PROPERTY = "runplan";
+
+  /**
+   * Whether a phase may reuse the DB instances of the previous phase.
+   */
+  public static final String REUSE_DB_PROPERTY = "runplan.reusedb";
+  public static final String REUSE_DB_PROPERTY_DEFAULT = "true";
+
+  private RunPlan() {
+    // not used
+  }
+
+  /**
+   * One phase of the plan.
+   */
+  static final class Phase {
+    private final String name;
+    private final Properties props;
+
+    Phase(String name, Properties props) {
+      this.name = name;
+      this.props = props;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    Properties getProperties() {
+      return props;
+    }
+  }
+
+  /**
+   * Read the phases of a plan.
+   *
+   * @param in The plan.
+   * @param base The properties every phase starts from.
+   * @return The phases, in order.
+   */
+  static List<Phase> parse(BufferedReader in, Properties base) throws IOException {
+    List<Phase> phases = new ArrayList<>();
+    String line;
+    while ((line = in.readLine()) != null) {
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] tokens = line.split("\\s+");
+      String[] args = new String[tokens.length - 1];
+      System.arraycopy(tokens, 1, args, 0, args.length);
+      phases.add(new Phase(tokens[0], Client.parseArguments(args, base)));
+    }
+    return phases;
+  }
+
+  /**
+   * Run every phase of the plan and export their measurements.
+   *
+   * @param planfile The file describing the phases.
+   * @param props The properties given on the command line.
+   */
+  static void run(String planfile, Properties props) {
+    Properties base = new Properties();
+    base.putAll(props);
+    base.remove(RUN_PLAN_PROPERTY);
+
+    List<Phase> phases = null;
+    try (BufferedReader in = new BufferedReader(new FileReader(planfile))) {
+      phases = parse(in, base);
+    } catch (IOException e) {
+      System.out.println("Unable to read the run plan " + planfile);
+      System.out.println(e.getMessage());
+      System.exit(0);
+    }
+    for (Phase phase : phases) {
+      if (!Client.checkRequiredProperties(phase.getProperties())) {
+        System.out.println("Failed check required properties for phase " + phase.getName() + ".");
+        System.exit(0);
+      }
+    }
+
+    List<DB> dbs = new ArrayList<>();
+    String dbname = null;
+    try {
+      MeasurementsExporter exporter = Client.openExporter(base);
+      try {
+        for (Phase phase : phases) {
+          Properties phaseProps = phase.getProperties();
+          String phaseDb = phaseProps.getProperty(Client.DB_PROPERTY, "com.yahoo.ycsb.BasicDB");
+          boolean reuse = Boolean.valueOf(phaseProps.getProperty(REUSE_DB_PROPERTY, REUSE_DB_PROPERTY_DEFAULT));
+          if (!reuse || !phaseDb.equals(dbname)) {
+            cleanup(dbs);
+            dbname = phaseDb;
+          }
+
+          System.err.println("Starting phase " + phase.getName() + ".");
+          Client.run(phaseProps, new PhaseExporter(phase.getName(), exporter), dbs, null);
+          Measurements.getMeasurements().clear();
+        }
+      } finally {
+        cleanup(dbs);
+        exporter.close();
+      }
+    } catch (IOException e) {
+      System.err.println("Could not export measurements, error: " + e.getMessage());
+      e.printStackTrace();
+      System.exit(-1);
+    }
+  }
+
+  static void cleanup(List<DB> dbs) {
+    for (DB db : dbs) {
+      try {
+        db.cleanup();
+      } catch (DBException e) {
+        e.printStackTrace();
+        e.printStackTrace(System.out);
+      }
+    }
+    dbs.clear();
+  }
+
+  /**
+   * Prepends the name of the phase to each metric, leaving the underlying exporter open.
+   */
+  static final class PhaseExporter implements MeasurementsExporter {
+    private final String prefix;
+    private final MeasurementsExporter exporter;
+
+    PhaseExporter(String phase, MeasurementsExporter exporter) {
+      this.prefix = phase + "-";
+      this.exporter = exporter;
+    }
+
+    @Override
+    public void write(String metric, String measurement, int i) throws IOException {
+      exporter.write(prefix + metric, measurement, i);
+    }
+
+    @Override
+    public void write(String metric, String measurement, long i) throws IOException {
+      exporter.write(prefix + metric, measurement, i);
+    }
+
+    @Override
+    public void write(String metric, String measurement, double d) throws IOException {
+      exporter.write(prefix + metric, measurement, d);
+    }
+
+    @Override
+    public void close() {
+      // the exporter is shared by every phase
+    }
+  }
+}
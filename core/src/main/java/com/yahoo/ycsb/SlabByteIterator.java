@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * A ByteIterator over a slice of a {@link ValueSlab}. A value longer than the
+ * slab wraps around to its start.
+ */
+public class SlabByteIterator extends ByteIterator {
+  private final ByteBuffer view;
+  private final int size;
+  private long start;
+  private long off;
+  private long len;
+
+  public SlabByteIterator(ValueSlab slab) {
+    this.view = slab.view();
+    this.size = slab.size();
+  }
+
+  /**
+   * Move to a new random slice of the given length, so that one iterator can
+   * produce many values.
+   */
+  public void reset(long length) {
+    len = length;
+    start = length < size ? Utils.random().nextInt((int) (size - length) + 1) : 0;
+    off = 0;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return off < len;
+  }
+
+  @Override
+  public byte nextByte() {
+    byte ret = view.get((int) ((start + off) % size));
+    off++;
+    return ret;
+  }
+
+  @Override
+  public int nextBuf(byte[] buf, int bufOff) {
+    int pos = (int) ((start + off) % size);
+    int n = (int) Math.min(Math.min(len - off, buf.length - bufOff), size - pos);
+    // through Buffer, whose position() newer JDKs override with a ByteBuffer one older runtimes lack
+    ((Buffer) view).position(pos);
+    view.get(buf, bufOff, n);
+    off += n;
+    return bufOff + n;
+  }
+
+  @Override
+  public long bytesLeft() {
+    return len - off;
+  }
+
+  @Override
+  public void reset() {
+    off = 0;
+  }
+
+  /**
+   * Consumes the rest of the value and returns it as a read-only view of the
+   * slab, unless it wraps around.
+   */
+  @Override
+  public ByteBuffer toByteBuffer() {
+    int pos = (int) ((start + off) % size);
+    if (pos + bytesLeft() > size) {
+      return super.toByteBuffer();
+    }
+    ByteBuffer slice = view.duplicate();
+    ((Buffer) slice).limit(pos + (int) bytesLeft()).position(pos);
+    off = len;
+    return slice.slice().asReadOnlyBuffer();
+  }
+}
@@ -106,5 +106,7 @@ public class Status {
       "service for the current binding is not available.");
   public static final Status BATCHED_OK = new Status("BATCHED_OK", "The operation has been batched by " +
       "the binding to be executed later.");
+  public static final Status CONFLICT = new Status("CONFLICT", "The transaction conflicted with another one " +
+      "and was aborted.");
 }
 
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The pending result of an {@link AsyncDB} operation. Bindings complete the
+ * future from their driver callback with {@link #complete(Status)}; YCSB
+ * registers {@link Listener}s to record the latency of the operation once it
+ * finishes.
+ * <p>
+ * This is a minimal, Java 7 compatible take on a completable future: it can
+ * only be completed once, it can't be cancelled, and listeners run on the
+ * thread that completes the future (or immediately on the registering thread
+ * if the future is already done).
+ */
+public class StatusFuture implements Future<Status> {
+
+  /**
+   * Callback invoked once the operation has completed.
+   */
+  public interface Listener {
+    /**
+     * @param status The result of the operation.
+     */
+    void onComplete(Status status);
+  }
+
+  private final CountDownLatch done = new CountDownLatch(1);
+  private List<Listener> listeners = new ArrayList<>(1);
+  private volatile Status status;
+
+  /**
+   * @param status The result of the operation.
+   * @return A future that has already been completed with the given status.
+   */
+  public static StatusFuture completed(Status status) {
+    StatusFuture future = new StatusFuture();
+    future.complete(status);
+    return future;
+  }
+
+  /**
+   * Complete the operation, waking up any waiters and running the listeners.
+   *
+   * @param result The result of the operation. A null result is treated as {@link Status#ERROR}.
+   * @return true if this call completed the future, false if it had already been completed.
+   */
+  public boolean complete(Status result) {
+    List<Listener> toNotify;
+    synchronized (this) {
+      if (status != null) {
+        return false;
+      }
+      status = result == null ? Status.ERROR : result;
+      toNotify = listeners;
+      listeners = null;
+    }
+    done.countDown();
+    for (Listener listener : toNotify) {
+      listener.onComplete(status);
+    }
+    return true;
+  }
+
+  /**
+   * Register a callback for when the operation completes. If it already has,
+   * the listener is invoked right away on the calling thread.
+   */
+  public void addListener(Listener listener) {
+    synchronized (this) {
+      if (status == null) {
+        listeners.add(listener);
+        return;
+      }
+    }
+    listener.onComplete(status);
+  }
+
+  /**
+   * Wait for the operation to complete without throwing checked exceptions.
+   * If the waiting thread is interrupted, its interrupt flag is restored and
+   * {@link Status#ERROR} is returned.
+   *
+   * @return The result of the operation.
+   */
+  public Status join() {
+    try {
+      done.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return Status.ERROR;
+    }
+    return status;
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    return false;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return false;
+  }
+
+  @Override
+  public boolean isDone() {
+    return status != null;
+  }
+
+  @Override
+  public Status get() throws InterruptedException, ExecutionException {
+    done.await();
+    return status;
+  }
+
+  @Override
+  public Status get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+    if (!done.await(timeout, unit)) {
+      throw new TimeoutException();
+    }
+    return status;
+  }
+}
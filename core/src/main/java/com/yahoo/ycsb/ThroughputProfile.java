@@ -0,0 +1,353 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The target throughput of the whole client as a function of time. Client
+ * threads divide the target evenly among themselves and evaluate it at each
+ * operation's scheduled start, so the offered load follows the profile while
+ * the run is in progress.
+ * <p>
+ * Properties to control the profile:
+ * <UL>
+ * <LI><b>targetprofile</b>: the shape of the target throughput. "constant", "ramp", "step", "sine" or "file"
+ * (default: constant)
+ * <LI><b>target</b>: the constant target, and the default end of a ramp and mean of a sine wave (ops/sec)
+ * <LI><b>targetprofile.start</b>: for a ramp, the target at the beginning of the run (default: 0)
+ * <LI><b>targetprofile.end</b>: for a ramp, the target reached once the ramp completes (default: target)
+ * <LI><b>targetprofile.duration</b>: for a ramp, how long it takes to go from start to end, in seconds
+ * <LI><b>targetprofile.steps</b>: for a step function, a comma separated list of second:target pairs, e.g.
+ * "0:1000,60:5000,90:1000". Each target holds until the next step.
+ * <LI><b>targetprofile.amplitude</b>: for a sine wave, the amplitude around the mean target (ops/sec)
+ * <LI><b>targetprofile.period</b>: for a sine wave, the length of one cycle, in seconds (default: 86400)
+ * <LI><b>targetprofile.file</b>: for a file, a file with one target per line, one line per second of the
+ * run. Blank lines and lines starting with # are ignored.
+ * <LI><b>targetprofile.scale</b>: a factor every target of the profile is multiplied with, e.g. to give each
+ * worker of a distributed run its share (default: 1)
+ * </ul>
+ * In every profile the last target holds once the profile runs out. A target of zero pauses the client
+ * until the profile picks up again.
+ */
+public abstract class ThroughputProfile {
+  public static final String PROFILE_PROPERTY = "targetprofile";
+  public static final String PROFILE_PROPERTY_DEFAULT = "constant";
+
+  public static final String START_PROPERTY = "targetprofile.start";
+  public static final String START_PROPERTY_DEFAULT = "0";
+
+  public static final String END_PROPERTY = "targetprofile.end";
+
+  public static final String DURATION_PROPERTY = "targetprofile.duration";
+
+  public static final String STEPS_PROPERTY = "targetprofile.steps";
+
+  public static final String AMPLITUDE_PROPERTY = "targetprofile.amplitude";
+
+  public static final String PERIOD_PROPERTY = "targetprofile.period";
+  public static final String PERIOD_PROPERTY_DEFAULT = "86400";
+
+  public static final String FILE_PROPERTY = "targetprofile.file";
+
+  public static final String SCALE_PROPERTY = "targetprofile.scale";
+  public static final String SCALE_PROPERTY_DEFAULT = "1";
+
+  /**
+   * @param elapsedNanos The time since the start of the run.
+   * @return The target throughput of the whole client at that time, in operations per second.
+   */
+  public abstract double getTarget(long elapsedNanos);
+
+  /**
+   * Client threads drop the operations they are behind schedule on whenever this value changes, so that a
+   * backlog built up under one target does not spill over into the next.
+   *
+   * @return The {@link System#nanoTime()} at which the schedule was last restarted, or 0 if it never was.
+   */
+  public long getRestartNanos() {
+    return 0;
+  }
+
+  /**
+   * Build the profile described by the properties.
+   *
+   * @param props The properties of the run.
+   * @return The profile, or null if the run is not throttled.
+   * @throws IllegalArgumentException if the profile is not properly described.
+   * @throws IOException if the profile file could not be read.
+   */
+  public static ThroughputProfile create(Properties props) throws IOException {
+    ThroughputProfile profile = createShape(props);
+    double scale = Double.parseDouble(props.getProperty(SCALE_PROPERTY, SCALE_PROPERTY_DEFAULT));
+    if (scale < 0) {
+      throw new IllegalArgumentException(SCALE_PROPERTY + " can't be negative");
+    }
+    return profile == null || scale == 1 ? profile : new Scaled(profile, scale);
+  }
+
+  private static ThroughputProfile createShape(Properties props) throws IOException {
+    double target = Double.parseDouble(props.getProperty(Client.TARGET_PROPERTY, "0"));
+    String shape = props.getProperty(PROFILE_PROPERTY, PROFILE_PROPERTY_DEFAULT);
+    switch (shape) {
+    case "constant":
+      return target > 0 ? new Constant(target) : null;
+    case "ramp":
+      return new Ramp(
+          Double.parseDouble(props.getProperty(START_PROPERTY, START_PROPERTY_DEFAULT)),
+          Double.parseDouble(props.getProperty(END_PROPERTY, String.valueOf(target))),
+          seconds(required(props, DURATION_PROPERTY)));
+    case "step":
+      return Step.parse(required(props, STEPS_PROPERTY));
+    case "sine":
+      return new Sine(target,
+          Double.parseDouble(required(props, AMPLITUDE_PROPERTY)),
+          seconds(props.getProperty(PERIOD_PROPERTY, PERIOD_PROPERTY_DEFAULT)));
+    case "file":
+      return Step.load(required(props, FILE_PROPERTY));
+    default:
+      throw new IllegalArgumentException("unknown " + PROFILE_PROPERTY + "=" + shape);
+    }
+  }
+
+  private static String required(Properties props, String name) {
+    String value = props.getProperty(name);
+    if (value == null) {
+      throw new IllegalArgumentException("Missing property: " + name);
+    }
+    return value;
+  }
+
+  private static long seconds(String value) {
+    return (long) (Double.parseDouble(value) * TimeUnit.SECONDS.toNanos(1));
+  }
+
+  /**
+   * The same target for the whole run.
+   */
+  public static class Constant extends ThroughputProfile {
+    private final double target;
+
+    public Constant(double target) {
+      this.target = target;
+    }
+
+    @Override
+    public double getTarget(long elapsedNanos) {
+      return target;
+    }
+  }
+
+  /**
+   * Another profile with every target multiplied by a factor.
+   */
+  public static class Scaled extends ThroughputProfile {
+    private final ThroughputProfile profile;
+    private final double scale;
+
+    public Scaled(ThroughputProfile profile, double scale) {
+      this.profile = profile;
+      this.scale = scale;
+    }
+
+    @Override
+    public double getTarget(long elapsedNanos) {
+      return scale * profile.getTarget(elapsedNanos);
+    }
+
+    @Override
+    public long getRestartNanos() {
+      return profile.getRestartNanos();
+    }
+  }
+
+  /**
+   * A target that is changed while the run is in progress, e.g. by a {@link ThroughputSearch}. Each change
+   * restarts the schedule of the client threads.
+   */
+  public static class Adjustable extends ThroughputProfile {
+    private volatile double target;
+    private volatile long restartNanos;
+
+    public Adjustable(double target) {
+      this.target = target;
+    }
+
+    /**
+     * @param newTarget The new target throughput of the whole client, in operations per second.
+     */
+    public void setTarget(double newTarget) {
+      target = newTarget;
+      restartNanos = System.nanoTime();
+    }
+
+    @Override
+    public double getTarget(long elapsedNanos) {
+      return target;
+    }
+
+    @Override
+    public long getRestartNanos() {
+      return restartNanos;
+    }
+  }
+
+  /**
+   * A linear ramp from one target to another.
+   */
+  public static class Ramp extends ThroughputProfile {
+    private final double start;
+    private final double end;
+    private final long durationNanos;
+
+    public Ramp(double start, double end, long durationNanos) {
+      if (durationNanos <= 0) {
+        throw new IllegalArgumentException("The ramp duration must be positive");
+      }
+      this.start = start;
+      this.end = end;
+      this.durationNanos = durationNanos;
+    }
+
+    @Override
+    public double getTarget(long elapsedNanos) {
+      if (elapsedNanos >= durationNanos) {
+        return end;
+      }
+      return start + (end - start) * ((double) elapsedNanos / durationNanos);
+    }
+  }
+
+  /**
+   * A sine wave around a mean target, e.g. to model daily traffic.
+   */
+  public static class Sine extends ThroughputProfile {
+    private final double mean;
+    private final double amplitude;
+    private final long periodNanos;
+
+    public Sine(double mean, double amplitude, long periodNanos) {
+      if (periodNanos <= 0) {
+        throw new IllegalArgumentException("The sine period must be positive");
+      }
+      this.mean = mean;
+      this.amplitude = amplitude;
+      this.periodNanos = periodNanos;
+    }
+
+    @Override
+    public double getTarget(long elapsedNanos) {
+      double phase = 2 * Math.PI * ((double) (elapsedNanos % periodNanos) / periodNanos);
+      return Math.max(0, mean + amplitude * Math.sin(phase));
+    }
+  }
+
+  /**
+   * A step function: each target holds from its start time until the next one.
+   */
+  public static class Step extends ThroughputProfile {
+    private final long[] startNanos;
+    private final double[] targets;
+
+    /**
+     * @param startNanos The (increasing) start time of each step, relative to the start of the run.
+     * @param targets The target of each step.
+     */
+    public Step(long[] startNanos, double[] targets) {
+      if (startNanos.length == 0 || startNanos.length != targets.length) {
+        throw new IllegalArgumentException("A step profile needs one target per step");
+      }
+      for (int i = 1; i < startNanos.length; i++) {
+        if (startNanos[i] <= startNanos[i - 1]) {
+          throw new IllegalArgumentException("Step start times must be increasing");
+        }
+      }
+      this.startNanos = startNanos;
+      this.targets = targets;
+    }
+
+    /**
+     * Parse a list of second:target pairs, e.g. "0:1000,60:5000".
+     */
+    static Step parse(String steps) {
+      String[] pairs = steps.split(",");
+      long[] starts = new long[pairs.length];
+      double[] targets = new double[pairs.length];
+      for (int i = 0; i < pairs.length; i++) {
+        String[] pair = pairs[i].trim().split(":");
+        if (pair.length != 2) {
+          throw new IllegalArgumentException("Expected second:target in " + STEPS_PROPERTY + " but got " + pairs[i]);
+        }
+        starts[i] = seconds(pair[0].trim());
+        targets[i] = Double.parseDouble(pair[1].trim());
+      }
+      return new Step(starts, targets);
+    }
+
+    /**
+     * Load a file with one target per line, one line per second.
+     */
+    static Step load(String filename) throws IOException {
+      List<Double> values = new ArrayList<>();
+      try (BufferedReader in = new BufferedReader(new FileReader(filename))) {
+        String line;
+        while ((line = in.readLine()) != null) {
+          line = line.trim();
+          if (line.isEmpty() || line.startsWith("#")) {
+            continue;
+          }
+          values.add(Double.parseDouble(line));
+        }
+      }
+      if (values.isEmpty()) {
+        throw new IllegalArgumentException("No targets in " + filename);
+      }
+      long[] starts = new long[values.size()];
+      double[] targets = new double[values.size()];
+      for (int i = 0; i < targets.length; i++) {
+        starts[i] = TimeUnit.SECONDS.toNanos(i);
+        targets[i] = values.get(i);
+      }
+      return new Step(starts, targets);
+    }
+
+    @Override
+    public double getTarget(long elapsedNanos) {
+      if (elapsedNanos < startNanos[0]) {
+        return 0;
+      }
+      int low = 0;
+      int high = startNanos.length - 1;
+      while (low < high) {
+        int mid = (low + high + 1) >>> 1;
+        if (startNanos[mid] <= elapsedNanos) {
+          low = mid;
+        } else {
+          high = mid - 1;
+        }
+      }
+      return targets[low];
+    }
+  }
+}
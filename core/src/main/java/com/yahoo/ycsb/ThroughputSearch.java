@@ -0,0 +1,313 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches for the highest throughput at which a latency objective holds,
+ * e.g. "the 99th percentile READ latency stays below 5ms".
+ * <p>
+ * The client threads keep running, with the same DB connections, for the whole
+ * search while their target is adjusted between short measurement windows. The
+ * target doubles until the objective is missed and is then narrowed down by
+ * binary search. A window meets the objective if the percentile latency is
+ * within the limit and the client actually achieved (nearly) the target, so a
+ * saturated client does not pass by running below the target.
+ * <p>
+ * Properties to control the search:
+ * <UL>
+ * <LI><b>search</b>: set to true to search for the maximum sustainable throughput instead of running the
+ * workload for a fixed number of operations (default: false)
+ * <LI><b>search.operation</b>: the measurement the objective applies to, e.g. READ, or Intended-READ with
+ * measurement.interval=both (default: READ)
+ * <LI><b>search.percentile</b>: the percentile the objective applies to (default: 99)
+ * <LI><b>search.latency</b>: the highest acceptable latency at that percentile, in us (required)
+ * <LI><b>search.start</b>: the first target to try, in ops/sec (default: 1000)
+ * <LI><b>search.max</b>: do not try targets above this, in ops/sec, 0 for no limit (default: 0)
+ * <LI><b>search.window</b>: the length of each measurement window, in seconds (default: 10)
+ * <LI><b>search.settle</b>: how long to run at a new target before its window starts, in seconds (default: 2)
+ * <LI><b>search.tolerance</b>: how far the achieved throughput may fall short of the target (default: 0.05)
+ * <LI><b>search.precision</b>: stop once the best passing and lowest failing targets are within this fraction
+ * of each other (default: 0.05)
+ * <LI><b>search.maxsteps</b>: the maximum number of windows (default: 20)
+ * </ul>
+ */
+public class ThroughputSearch {
+  public static final String SEARCH_PROPERTY = "search";
+  public static final String SEARCH_PROPERTY_DEFAULT = "false";
+
+  public static final String OPERATION_PROPERTY = "search.operation";
+  public static final String OPERATION_PROPERTY_DEFAULT = "READ";
+
+  public static final String PERCENTILE_PROPERTY = "search.percentile";
+  public static final String PERCENTILE_PROPERTY_DEFAULT = "99";
+
+  public static final String LATENCY_PROPERTY = "search.latency";
+
+  public static final String START_PROPERTY = "search.start";
+  public static final String START_PROPERTY_DEFAULT = "1000";
+
+  public static final String MAX_PROPERTY = "search.max";
+  public static final String MAX_PROPERTY_DEFAULT = "0";
+
+  public static final String WINDOW_PROPERTY = "search.window";
+  public static final String WINDOW_PROPERTY_DEFAULT = "10";
+
+  public static final String SETTLE_PROPERTY = "search.settle";
+  public static final String SETTLE_PROPERTY_DEFAULT = "2";
+
+  public static final String TOLERANCE_PROPERTY = "search.tolerance";
+  public static final String TOLERANCE_PROPERTY_DEFAULT = "0.05";
+
+  public static final String PRECISION_PROPERTY = "search.precision";
+  public static final String PRECISION_PROPERTY_DEFAULT = "0.05";
+
+  public static final String MAX_STEPS_PROPERTY = "search.maxsteps";
+  public static final String MAX_STEPS_PROPERTY_DEFAULT = "20";
+
+  /**
+   * Runs the workload at a target for one measurement window.
+   */
+  interface Trial {
+    /**
+     * @param target The target throughput of the whole client, in ops/sec.
+     * @return The outcome of the window, or null if the clients are no longer running.
+     */
+    Step run(double target) throws InterruptedException;
+  }
+
+  /**
+   * The outcome of one measurement window.
+   */
+  public static class Step {
+    private final double target;
+    private final double throughput;
+    private final long latency;
+    private final boolean met;
+
+    Step(double target, double throughput, long latency, boolean met) {
+      this.target = target;
+      this.throughput = throughput;
+      this.latency = latency;
+      this.met = met;
+    }
+
+    public double getTarget() {
+      return target;
+    }
+
+    public double getThroughput() {
+      return throughput;
+    }
+
+    /**
+     * @return The latency at the searched percentile, in us.
+     */
+    public long getLatency() {
+      return latency;
+    }
+
+    public boolean isMet() {
+      return met;
+    }
+  }
+
+  private final String operation;
+  private final double percentile;
+  private final long latencyLimit;
+  private final double start;
+  private final double max;
+  private final long windowNanos;
+  private final long settleNanos;
+  private final double tolerance;
+  private final double precision;
+  private final int maxSteps;
+
+  private final List<Step> steps = new ArrayList<>();
+  private Step best;
+
+  /**
+   * @throws IllegalArgumentException if the search is not properly configured.
+   */
+  public ThroughputSearch(Properties props) {
+    String limit = props.getProperty(LATENCY_PROPERTY);
+    if (limit == null) {
+      throw new IllegalArgumentException("Missing property: " + LATENCY_PROPERTY);
+    }
+    operation = props.getProperty(OPERATION_PROPERTY, OPERATION_PROPERTY_DEFAULT);
+    percentile = Double.parseDouble(props.getProperty(PERCENTILE_PROPERTY, PERCENTILE_PROPERTY_DEFAULT));
+    latencyLimit = Long.parseLong(limit);
+    start = Double.parseDouble(props.getProperty(START_PROPERTY, START_PROPERTY_DEFAULT));
+    max = Double.parseDouble(props.getProperty(MAX_PROPERTY, MAX_PROPERTY_DEFAULT));
+    windowNanos = seconds(props.getProperty(WINDOW_PROPERTY, WINDOW_PROPERTY_DEFAULT));
+    settleNanos = seconds(props.getProperty(SETTLE_PROPERTY, SETTLE_PROPERTY_DEFAULT));
+    tolerance = Double.parseDouble(props.getProperty(TOLERANCE_PROPERTY, TOLERANCE_PROPERTY_DEFAULT));
+    precision = Double.parseDouble(props.getProperty(PRECISION_PROPERTY, PRECISION_PROPERTY_DEFAULT));
+    maxSteps = Integer.parseInt(props.getProperty(MAX_STEPS_PROPERTY, MAX_STEPS_PROPERTY_DEFAULT));
+    if (start <= 0 || windowNanos <= 0) {
+      throw new IllegalArgumentException(START_PROPERTY + " and " + WINDOW_PROPERTY + " must be positive");
+    }
+  }
+
+  private static long seconds(String value) {
+    return (long) (Double.parseDouble(value) * TimeUnit.SECONDS.toNanos(1));
+  }
+
+  /**
+   * @return The profile the client threads should be started with.
+   */
+  public ThroughputProfile.Adjustable createProfile() {
+    return new ThroughputProfile.Adjustable(start);
+  }
+
+  /**
+   * @return Every window that was run, in order.
+   */
+  public List<Step> getSteps() {
+    return Collections.unmodifiableList(steps);
+  }
+
+  /**
+   * @return The window with the highest target that met the objective, or null if none did.
+   */
+  public Step getBest() {
+    return best;
+  }
+
+  /**
+   * Search by adjusting the target of running client threads.
+   *
+   * @param profile The profile the client threads were started with.
+   * @param clients The client threads.
+   * @param completeLatch The latch tracking the completion of the client threads.
+   */
+  void run(final ThroughputProfile.Adjustable profile, final List<ClientThread> clients,
+                  final CountDownLatch completeLatch) throws InterruptedException {
+    final Measurements measurements = Measurements.getMeasurements();
+    measurements.trackWindow(operation);
+    search(new Trial() {
+      @Override
+      public Step run(double target) throws InterruptedException {
+        profile.setTarget(target);
+        if (completeLatch.await(settleNanos, TimeUnit.NANOSECONDS)) {
+          return null;
+        }
+        measurements.getWindow(operation);
+        long ops = getOpsDone(clients);
+        long st = System.nanoTime();
+        if (completeLatch.await(windowNanos, TimeUnit.NANOSECONDS)) {
+          return null;
+        }
+        Histogram window = measurements.getWindow(operation);
+        double throughput = (getOpsDone(clients) - ops) * (double) TimeUnit.SECONDS.toNanos(1)
+            / (System.nanoTime() - st);
+        return evaluate(target, throughput, window);
+      }
+    });
+  }
+
+  private static long getOpsDone(List<ClientThread> clients) {
+    long ops = 0;
+    for (ClientThread client : clients) {
+      ops += client.getOpsDone();
+    }
+    return ops;
+  }
+
+  /**
+   * Judge one window against the objective.
+   */
+  Step evaluate(double target, double throughput, Histogram window) {
+    long latency = window.getTotalCount() == 0 ? Long.MAX_VALUE : window.getValueAtPercentile(percentile);
+    boolean met = latency <= latencyLimit && throughput >= target * (1 - tolerance);
+    return new Step(target, throughput, latency, met);
+  }
+
+  /**
+   * Run the search, one trial per window.
+   */
+  void search(Trial trial) throws InterruptedException {
+    double passed = 0;
+    double failed = 0;
+    double target = max > 0 ? Math.min(start, max) : start;
+    while (steps.size() < maxSteps) {
+      Step step = trial.run(target);
+      if (step == null) {
+        System.err.println("The client threads finished before the search completed.");
+        return;
+      }
+      steps.add(step);
+      System.err.println(String.format("Search step %d: target %.1f ops/sec, achieved %.1f ops/sec, " +
+          "%s %sth percentile %d us: %s", steps.size(), target, step.getThroughput(), operation,
+          format(percentile), step.getLatency(), step.isMet() ? "met" : "missed"));
+
+      if (step.isMet()) {
+        passed = target;
+        best = step;
+        if (max > 0 && passed >= max) {
+          return;
+        }
+      } else {
+        failed = target;
+      }
+
+      if (failed == 0) {
+        target = max > 0 ? Math.min(passed * 2, max) : passed * 2;
+      } else {
+        target = (passed + failed) / 2;
+        if (failed - passed <= Math.max(passed * precision, 1)) {
+          return;
+        }
+      }
+    }
+  }
+
+  private static String format(double value) {
+    return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+  }
+
+  /**
+   * Write the outcome of the search.
+   */
+  public void exportResults(MeasurementsExporter exporter) throws IOException {
+    exporter.write("SEARCH", "MaxSustainableThroughput(ops/sec)", best == null ? 0 : best.getTarget());
+    if (best != null) {
+      exporter.write("SEARCH", "AchievedThroughput(ops/sec)", best.getThroughput());
+      exporter.write("SEARCH", format(percentile) + "thPercentileLatency(us)", best.getLatency());
+    }
+    for (int i = 0; i < steps.size(); i++) {
+      Step step = steps.get(i);
+      String name = "SEARCH-STEP-" + (i + 1);
+      exporter.write(name, "Target(ops/sec)", step.getTarget());
+      exporter.write(name, "Throughput(ops/sec)", step.getThroughput());
+      exporter.write(name, format(percentile) + "thPercentileLatency(us)", step.getLatency());
+      exporter.write(name, "Met", step.isMet() ? 1 : 0);
+    }
+  }
+}
@@ -23,7 +23,9 @@ import java.lang.management.OperatingSystemMXBean;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Utility functions.
@@ -33,18 +35,63 @@ public final class Utils {
     // not used
   }
 
+  /**
+   * The name of the property for the seed that all random numbers are derived from, so that a run can be
+   * repeated. Each client thread draws from its own stream, chosen by its thread id, so a run with one
+   * client thread repeats exactly; with more, the order in which the threads use shared generators (e.g.
+   * for the keys to insert) still varies. Each worker of a distributed run draws from streams of its own.
+   */
+  public static final String SEED_PROPERTY = "random.seed";
+
   private static final Random RAND = new Random();
   private static final ThreadLocal<Random> RNG = new ThreadLocal<Random>();
 
+  // the seed the streams are derived from, or null for random seeds
+  private static volatile Long seed;
+  // the stream of the next thread that isn't a client thread, counting down from -1
+  private static final AtomicLong STREAMS = new AtomicLong(-1);
+
+  /**
+   * @return The random number generator of the calling thread.
+   */
   public static Random random() {
     Random ret = RNG.get();
     if (ret == null) {
-      ret = new Random(RAND.nextLong());
+      Long base = seed;
+      ret = new XoroshiroRandom(base == null ? RAND.nextLong() : streamSeed(base, STREAMS.getAndDecrement()));
       RNG.set(ret);
     }
     return ret;
   }
 
+  /**
+   * Derive the random numbers of threads from the {@link #SEED_PROPERTY} from now on, or from a different
+   * seed every run if it is not set. The calling thread starts over as well.
+   */
+  public static void setSeed(Properties props) {
+    String value = props.getProperty(SEED_PROPERTY);
+    seed = value == null ? null : Long.valueOf(value);
+    STREAMS.set(-1);
+    RNG.remove();
+  }
+
+  /**
+   * Have the calling thread draw from the given stream of the seed, if there is one.
+   */
+  public static void setStream(long stream) {
+    Long base = seed;
+    if (base != null) {
+      RNG.set(new XoroshiroRandom(streamSeed(base, stream)));
+    }
+  }
+
+  /**
+   * @return The seed of a stream of the given seed.
+   */
+  static long streamSeed(long base, long stream) {
+    return base + stream * 0x9E3779B97F4A7C15L;
+  }
+
   /**
    * Hash an integer value.
    */
@@ -170,6 +217,17 @@ public final class Utils {
     return osBean.getSystemLoadAverage();
   }
 
+  /** @return The CPU time used by this JVM in nanoseconds if supported by
+   * the JDK. If it's not supported, the value will be negative. */
+  public static long getProcessCpuTime() {
+    final OperatingSystemMXBean osBean =
+        ManagementFactory.getOperatingSystemMXBean();
+    if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+      return ((com.sun.management.OperatingSystemMXBean) osBean).getProcessCpuTime();
+    }
+    return -1;
+  }
+
   /** @return The total number of garbage collections executed for all
    * memory pools. */
   public static long getGCTotalCollectionCount() {
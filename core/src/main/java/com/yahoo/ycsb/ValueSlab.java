@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * A block of random bytes that is generated once and then shared by all
+ * client threads, which take their field values from it as
+ * {@link SlabByteIterator}s: slices at random offsets that are read in place,
+ * without generating or copying any bytes.
+ * <p>
+ * The bytes are printable characters like those of {@link RandomByteIterator}.
+ * Values are only as unique as the slab is large compared to them, so a store
+ * that deduplicates or compresses across values sees repeated data once it
+ * holds more than a few slabs' worth of a field. The default of 64 MB keeps
+ * values apart within the windows of common compressors.
+ * <p>
+ * A slab can also be made compressible, to match the data a store really
+ * holds rather than incompressible noise. It is then generated in pieces of
+ * {@value #PIECE} bytes, each a run of random characters repeated to fill the
+ * piece, where the run is the compression ratio's share of the piece. An LZ
+ * compressor such as Snappy or LZ4 shrinks a value to about that ratio; one
+ * that also entropy codes, such as deflate or zstd, shrinks the random runs as
+ * well, to about log2(alphabet) / 8 of their size. Values much shorter than a
+ * piece compress less on their own, though a store compressing whole blocks
+ * still sees the ratio.
+ */
+public final class ValueSlab {
+  /**
+   * The length of the pieces of a compressible slab, each of which repeats a random run.
+   */
+  public static final int PIECE = 100;
+
+  /**
+   * The number of different printable characters there are.
+   */
+  public static final int PRINTABLE = 95;
+
+  private final ByteBuffer slab;
+
+  /**
+   * @param size The number of bytes to generate.
+   * @param offheap Whether to keep the bytes outside of the Java heap.
+   */
+  public ValueSlab(int size, boolean offheap) {
+    this(size, offheap, 1.0, PRINTABLE);
+  }
+
+  /**
+   * @param size The number of bytes to generate.
+   * @param offheap Whether to keep the bytes outside of the Java heap.
+   * @param ratio The size a compressor should shrink values to, relative to their length.
+   * @param alphabet The number of different characters to use, up to {@link #PRINTABLE}.
+   */
+  public ValueSlab(int size, boolean offheap, double ratio, int alphabet) {
+    if (size < 1) {
+      throw new IllegalArgumentException("the slab must hold at least one byte");
+    }
+    if (ratio <= 0 || ratio > 1) {
+      throw new IllegalArgumentException("the compression ratio must be above 0 and at most 1");
+    }
+    if (alphabet < 1 || alphabet > PRINTABLE) {
+      throw new IllegalArgumentException("the alphabet must have between 1 and " + PRINTABLE + " characters");
+    }
+    slab = offheap ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    int run = Math.max(1, (int) Math.round(PIECE * ratio));
+    Random random = Utils.random();
+    long bytes = 0;
+    int left = 0;
+    for (int i = 0; i < size; i++) {
+      if (i % PIECE >= run) {
+        // repeat the run of this piece
+        slab.put(i, slab.get(i - run));
+        continue;
+      }
+      if (left == 0) {
+        bytes = random.nextLong();
+        left = 8;
+      }
+      slab.put(i, (byte) (' ' + (int) ((bytes & 0xff) % alphabet)));
+      bytes >>>= 8;
+      left--;
+    }
+  }
+
+  /**
+   * @return The number of bytes in the slab.
+   */
+  public int size() {
+    return slab.capacity();
+  }
+
+  /**
+   * @return A value of the given length at a random offset.
+   */
+  public SlabByteIterator slice(long length) {
+    SlabByteIterator value = new SlabByteIterator(this);
+    value.reset(length);
+    return value;
+  }
+
+  /**
+   * @return A view of the slab with its own position, for one iterator to read from.
+   */
+  ByteBuffer view() {
+    return slab.duplicate();
+  }
+}
@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A warmup phase at the start of the transaction phase. Client threads run the
+ * workload as usual, but once every thread is done warming up everything that
+ * was measured is discarded, so JIT compilation, connection setup and cold
+ * caches don't show up in the results. Operation counts, runtime and
+ * throughput only cover the measured window that follows.
+ * <p>
+ * Properties to control the warmup:
+ * <UL>
+ * <LI><b>warmup.operations</b>: the number of operations to warm up with, divided among the threads
+ * (default: 0)
+ * <LI><b>warmup.seconds</b>: the maximum time each thread spends warming up (default: 0, no limit)
+ * </ul>
+ * If both are set, a thread's warmup ends with whichever comes first. The measured window starts when
+ * every thread has finished its warmup.
+ */
+public class Warmup {
+  public static final String OPERATIONS_PROPERTY = "warmup.operations";
+  public static final String OPERATIONS_PROPERTY_DEFAULT = "0";
+
+  public static final String SECONDS_PROPERTY = "warmup.seconds";
+  public static final String SECONDS_PROPERTY_DEFAULT = "0";
+
+  private final long operations;
+  private final long nanos;
+  private final Phaser phaser;
+  private final List<Runnable> resets = new CopyOnWriteArrayList<>();
+  private volatile long measuredStartMs;
+
+  /**
+   * @param operations The number of operations for all the threads together, 0 for no limit.
+   * @param nanos The time limit for each thread, 0 for no limit.
+   * @param threadcount The number of client threads.
+   */
+  public Warmup(long operations, long nanos, int threadcount) {
+    this.operations = operations;
+    this.nanos = nanos;
+    phaser = new Phaser(threadcount) {
+      @Override
+      protected boolean onAdvance(int phase, int registeredParties) {
+        synchronized (Warmup.this) {
+          for (Runnable reset : resets) {
+            reset.run();
+          }
+          Measurements.getMeasurements().reset();
+          measuredStartMs = System.currentTimeMillis();
+        }
+        System.err.println("Warmup complete, starting measurements.");
+        return true;
+      }
+    };
+  }
+
+  /**
+   * @return The warmup described by the properties, or null if there is none.
+   */
+  public static Warmup create(Properties props, int threadcount) {
+    long operations = Long.parseLong(props.getProperty(OPERATIONS_PROPERTY, OPERATIONS_PROPERTY_DEFAULT));
+    double seconds = Double.parseDouble(props.getProperty(SECONDS_PROPERTY, SECONDS_PROPERTY_DEFAULT));
+    if (operations <= 0 && seconds <= 0) {
+      return null;
+    }
+    return new Warmup(Math.max(operations, 0), (long) (Math.max(seconds, 0) * TimeUnit.SECONDS.toNanos(1)),
+        threadcount);
+  }
+
+  /**
+   * Run an action when the measured window starts, e.g. to start counting operations over. The actions and
+   * the reset of the measurements run while holding the lock on this warmup, so whoever reads the counts
+   * with the lock held sees them either all before or all after the reset.
+   */
+  public void onMeasuredStart(Runnable reset) {
+    resets.add(reset);
+  }
+
+  /**
+   * @return The number of warmup operations for a thread, or 0 for no limit.
+   */
+  public long getOperations(int threadid, int threadcount) {
+    long ops = operations / threadcount;
+    if (threadid < operations % threadcount) {
+      ++ops;
+    }
+    return ops;
+  }
+
+  /**
+   * @return The time at which a thread that started warming up at startTimeNanos stops, or Long.MAX_VALUE.
+   */
+  public long getDeadlineNanos(long startTimeNanos) {
+    return nanos == 0 ? Long.MAX_VALUE : startTimeNanos + nanos;
+  }
+
+  /**
+   * Called by a client thread once it is done warming up. Waits for the other threads, after which the
+   * measurements have been reset.
+   */
+  public void finish() {
+    phaser.arriveAndAwaitAdvance();
+  }
+
+  /**
+   * Called by a client thread that won't take part in the warmup, e.g. because it failed to initialize.
+   */
+  public void leave() {
+    phaser.arriveAndDeregister();
+  }
+
+  /**
+   * Wait for every client thread to finish warming up.
+   */
+  public void await() throws InterruptedException {
+    phaser.awaitAdvanceInterruptibly(0);
+  }
+
+  /**
+   * @return The wall clock time at which the measured window started, or 0 if it hasn't yet.
+   */
+  public long getMeasuredStartMs() {
+    return measuredStartMs;
+  }
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A client process that runs its share of a distributed run on behalf of a
+ * {@link Coordinator}. The worker connects to the coordinator, receives the
+ * properties of its partition, waits for the coordinator to start every worker
+ * at once, and streams the latencies it measures back to the coordinator at
+ * each interval, once its warmup is done. It doesn't export any measurements
+ * itself.
+ * <p>
+ * Workers are either launched by the coordinator, or started by hand with
+ * "-p worker.coordinator=host:port", e.g. on other machines.
+ */
+final class Worker implements PhaseListener {
+  /**
+   * The host:port of the coordinator to work for.
+   */
+  public static final String COORDINATOR_PROPERTY = "worker.coordinator";
+
+  private final DataInputStream in;
+  private final DataOutputStream out;
+  private final long intervalMs;
+  private Thread streamer;
+  // the warmup of the phase, or null; guards measuring
+  private Warmup warmup;
+  private boolean measuring;
+
+  private Worker(DataInputStream in, DataOutputStream out, long intervalMs) {
+    this.in = in;
+    this.out = out;
+    this.intervalMs = intervalMs;
+  }
+
+  /**
+   * Connect to the coordinator and run the phase it hands out.
+   *
+   * @param coordinator The host:port of the coordinator.
+   */
+  static void run(String coordinator) {
+    int colon = coordinator.lastIndexOf(':');
+    if (colon < 0) {
+      System.out.println("Expected host:port for " + COORDINATOR_PROPERTY + " but got " + coordinator);
+      System.exit(0);
+    }
+    String host = coordinator.substring(0, colon);
+    int port = Integer.parseInt(coordinator.substring(colon + 1));
+
+    try (Socket socket = new Socket(host, port)) {
+      socket.setTcpNoDelay(true);
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      if (in.readByte() != Coordinator.CONFIG) {
+        throw new IOException("Expected the configuration from the coordinator");
+      }
+      Properties props = Coordinator.readProperties(in);
+      System.err.println("Connected to coordinator " + coordinator + ".");
+
+      Measurements.setProperties(props);
+      long intervalSeconds = Long.parseLong(props.getProperty(Coordinator.INTERVAL_PROPERTY,
+          Coordinator.INTERVAL_PROPERTY_DEFAULT));
+      Worker worker = new Worker(in, out, TimeUnit.SECONDS.toMillis(intervalSeconds));
+      Client.run(props, null, null, worker);
+    } catch (IOException e) {
+      System.err.println("Lost the connection to the coordinator, error: " + e.getMessage());
+      e.printStackTrace();
+      System.exit(-1);
+    }
+  }
+
+  /**
+   * Tell the coordinator this worker is ready and wait for the signal to start.
+   */
+  @Override
+  public void beforeStart(Warmup phaseWarmup) throws IOException {
+    warmup = phaseWarmup;
+    if (warmup != null) {
+      // the coordinator can't take back what it merged, so nothing is sent until the measurements start over
+      warmup.onMeasuredStart(new Runnable() {
+        @Override
+        public void run() {
+          measuring = true;
+        }
+      });
+    }
+    synchronized (out) {
+      out.writeByte(Coordinator.READY);
+      out.flush();
+    }
+    if (in.readByte() != Coordinator.START) {
+      throw new IOException("Expected the coordinator to start the run");
+    }
+
+    streamer = new Thread("WorkerStreamer") {
+      @Override
+      public void run() {
+        try {
+          while (!isInterrupted()) {
+            sleep(intervalMs);
+            sendIntervals();
+          }
+        } catch (InterruptedException e) {
+          // the run is over
+        } catch (IOException e) {
+          System.err.println("Could not send measurements to the coordinator, error: " + e.getMessage());
+        }
+      }
+    };
+    streamer.setDaemon(true);
+    streamer.start();
+  }
+
+  @Override
+  public void finished(long opsDone, long runtimeMs) throws IOException {
+    streamer.interrupt();
+    try {
+      streamer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    sendIntervals();
+    synchronized (out) {
+      for (Map.Entry<String, Map<Status, Long>> measurement
+          : Measurements.getMeasurements().getStatusCounts().entrySet()) {
+        for (Map.Entry<Status, Long> count : measurement.getValue().entrySet()) {
+          out.writeByte(Coordinator.STATUS);
+          out.writeUTF(measurement.getKey());
+          out.writeUTF(count.getKey().getName());
+          out.writeUTF(count.getKey().getDescription());
+          out.writeLong(count.getValue());
+        }
+      }
+      out.writeByte(Coordinator.DONE);
+      out.writeLong(opsDone);
+      out.writeLong(runtimeMs);
+      out.flush();
+    }
+  }
+
+  private void sendIntervals() throws IOException {
+    Map<String, Histogram> intervals;
+    if (warmup == null) {
+      intervals = Measurements.getMeasurements().getIntervalHistograms();
+    } else {
+      // the measurements are reset with this lock held, so no interval from before the reset gets through
+      synchronized (warmup) {
+        if (!measuring) {
+          return;
+        }
+        intervals = Measurements.getMeasurements().getIntervalHistograms();
+      }
+    }
+    synchronized (out) {
+      for (Map.Entry<String, Histogram> interval : intervals.entrySet()) {
+        if (interval.getValue().getTotalCount() == 0) {
+          continue;
+        }
+        out.writeByte(Coordinator.INTERVAL);
+        out.writeUTF(interval.getKey());
+        Coordinator.writeHistogram(out, interval.getValue());
+      }
+      out.flush();
+    }
+  }
+}
@@ -43,13 +43,14 @@ public abstract class Workload {
   
   private volatile AtomicBoolean stopRequested = new AtomicBoolean(false);
   
-  /** Operations available for a database. */
+  /** Operations a workload chooses from. */
   public enum Operation {
     READ,
     UPDATE,
     INSERT,
     SCAN,
-    DELETE
+    DELETE,
+    READMODIFYWRITE
   }
   
   /**
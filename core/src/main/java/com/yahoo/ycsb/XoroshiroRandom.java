@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb;
+
+import java.util.Random;
+
+/**
+ * A xoroshiro128** generator (Blackman and Vigna, 2018) behind the interface
+ * of {@link Random}. It is several times faster than Random, whose every
+ * number takes a compare-and-set on a shared seed, and has a period of
+ * 2^128 - 1 instead of 2^48.
+ * <p>
+ * Unlike Random it is not thread safe: each thread needs its own instance,
+ * see {@link Utils#random()}.
+ */
+public class XoroshiroRandom extends Random {
+  private static final long serialVersionUID = 1L;
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+  // not initialized here, as Random's constructor sets them through setSeed()
+  private long s0;
+  private long s1;
+
+  public XoroshiroRandom(long seed) {
+    super(seed);
+  }
+
+  /**
+   * Start over from a state derived from the seed with SplitMix64, so that
+   * similar seeds give unrelated sequences. The seed is mixed before both
+   * words are derived from it, as seeds a golden gamma apart would otherwise
+   * share a word.
+   */
+  @Override
+  public void setSeed(long seed) {
+    long mixed = splitMix(seed);
+    s0 = splitMix(mixed);
+    s1 = splitMix(mixed + GOLDEN_GAMMA);
+  }
+
+  private static long splitMix(long x) {
+    long z = x + GOLDEN_GAMMA;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  @Override
+  public long nextLong() {
+    long a = s0;
+    long b = s1;
+    long result = Long.rotateLeft(a * 5, 7) * 9;
+    b ^= a;
+    s0 = Long.rotateLeft(a, 24) ^ b ^ (b << 16);
+    s1 = Long.rotateLeft(b, 37);
+    return result;
+  }
+
+  @Override
+  protected int next(int bits) {
+    return (int) (nextLong() >>> (64 - bits));
+  }
+
+  @Override
+  public int nextInt() {
+    return (int) (nextLong() >>> 32);
+  }
+
+  @Override
+  public double nextDouble() {
+    return (nextLong() >>> 11) * DOUBLE_UNIT;
+  }
+}
@@ -16,31 +16,39 @@
  */
 package com.yahoo.ycsb.generator;
 
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * A CounterGenerator that reports generated integers via lastInt()
  * only after they have been acknowledged.
+ * <p>
+ * Acknowledged values above the limit are kept as bits in pages of
+ * {@value #PAGE_SIZE} values, which are added as values are acknowledged and
+ * dropped once the limit has passed them, so any number of values can be
+ * pending. Acknowledging sets a bit and moves the limit with compare-and-set,
+ * so no thread ever waits for another.
  */
 public class AcknowledgedCounterGenerator extends CounterGenerator {
-  /** The size of the window of pending id ack's. 2^20 = {@value} */
-  static final int WINDOW_SIZE = Integer.rotateLeft(1, 20);
+  private static final int PAGE_BITS = 16;
+
+  /** The number of values a page of acknowledgements covers. 2^16 = {@value} */
+  static final int PAGE_SIZE = 1 << PAGE_BITS;
 
-  /** The mask to use to turn an id into a slot in {@link #window}. */
-  private static final int WINDOW_MASK = WINDOW_SIZE - 1;
+  private static final long PAGE_MASK = PAGE_SIZE - 1;
 
-  private final ReentrantLock lock;
-  private final boolean[] window;
-  private volatile long limit;
+  private final ConcurrentMap<Long, AtomicLongArray> pages;
+  private final AtomicLong limit;
 
   /**
    * Create a counter that starts at countstart.
    */
   public AcknowledgedCounterGenerator(long countstart) {
     super(countstart);
-    lock = new ReentrantLock();
-    window = new boolean[WINDOW_SIZE];
-    limit = countstart - 1;
+    pages = new ConcurrentHashMap<Long, AtomicLongArray>();
+    limit = new AtomicLong(countstart - 1);
   }
 
   /**
@@ -49,40 +57,67 @@ public class AcknowledgedCounterGenerator extends CounterGenerator {
    */
   @Override
   public Long lastValue() {
-    return limit;
+    return limit.get();
+  }
+
+  @Override
+  public long lastLong() {
+    return limit.get();
   }
 
   /**
    * Make a generated counter value available via lastInt().
    */
   public void acknowledge(long value) {
-    final int currentSlot = (int)(value & WINDOW_MASK);
-    if (window[currentSlot]) {
-      throw new RuntimeException("Too many unacknowledged insertion keys.");
+    AtomicLongArray page = pages.get(value >>> PAGE_BITS);
+    if (page == null) {
+      AtomicLongArray added = new AtomicLongArray(PAGE_SIZE / 64);
+      page = pages.putIfAbsent(value >>> PAGE_BITS, added);
+      if (page == null) {
+        page = added;
+      }
     }
+    int word = (int) ((value & PAGE_MASK) >>> 6);
+    long bit = 1L << value;
+    long bits;
+    do {
+      bits = page.get(word);
+    } while (!page.compareAndSet(word, bits, bits | bit));
 
-    window[currentSlot] = true;
-
-    if (lock.tryLock()) {
-      // move a contiguous sequence from the window
-      // over to the "limit" variable
-      try {
-        // Only loop through the entire window at most once.
-        long beforeFirstSlot = (limit & WINDOW_MASK);
-        long index;
-        for (index = limit + 1; index != beforeFirstSlot; ++index) {
-          int slot = (int)(index & WINDOW_MASK);
-          if (!window[slot]) {
-            break;
-          }
-
-          window[slot] = false;
+    // Move the limit over the acknowledged values that follow it. Whoever acknowledges the value
+    // just above the limit last sees all the ones after it, so the limit never gets stuck.
+    while (true) {
+      long current = limit.get();
+      long next = current + contiguous(current + 1);
+      if (next == current) {
+        if (limit.get() == current) {
+          return;
         }
+      } else if (limit.compareAndSet(current, next) && ((next + 1) & PAGE_MASK) == 0) {
+        pages.remove(next >>> PAGE_BITS);
+      }
+    }
+  }
 
-        limit = index - 1;
-      } finally {
-        lock.unlock();
+  /**
+   * @return How many values from the given one on are acknowledged, up to the end of its page.
+   */
+  private long contiguous(long from) {
+    AtomicLongArray page = pages.get(from >>> PAGE_BITS);
+    if (page == null) {
+      return 0;
+    }
+    long count = 0;
+    int skip = (int) (from & 63);
+    for (int word = (int) ((from & PAGE_MASK) >>> 6); word < PAGE_SIZE / 64; word++) {
+      // the bits shifted in from the top are clear, so the ones stop before them
+      int ones = Long.numberOfTrailingZeros(~(page.get(word) >>> skip));
+      count += ones;
+      if (ones < 64 - skip) {
+        break;
       }
+      skip = 0;
     }
+    return count;
   }
 }
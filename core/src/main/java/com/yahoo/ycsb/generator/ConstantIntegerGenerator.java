@@ -35,6 +35,11 @@ public class ConstantIntegerGenerator extends NumberGenerator {
     return i;
   }
 
+  @Override
+  public long nextLong() {
+    return i;
+  }
+
   @Override
   public double mean() {
     return i;
@@ -38,8 +38,20 @@ public class CounterGenerator extends NumberGenerator {
     return counter.getAndIncrement();
   }
 
+  @Override
+  public long nextLong() {
+    return counter.getAndIncrement();
+  }
+
   @Override
   public Long lastValue() {
+    return lastLong();
+  }
+
+  /**
+   * @return The last value generated, without boxing it.
+   */
+  public long lastLong() {
     return counter.get() - 1;
   }
 
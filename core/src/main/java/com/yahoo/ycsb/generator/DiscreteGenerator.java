@@ -20,72 +20,131 @@ package com.yahoo.ycsb.generator;
 import com.yahoo.ycsb.Utils;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.List;
 
 import static java.util.Objects.requireNonNull;
 
 /**
- * Generates a distribution by choosing from a discrete set of values.
+ * Generates a distribution by choosing from a discrete set of values, e.g. the
+ * operations of a workload.
+ * <p>
+ * Values are chosen in constant time with Vose's alias method: the weights are
+ * turned into a table of n columns once, when values are added, and each value
+ * then takes a single random number, which picks a column and decides between
+ * the column's own value and its alias.
  */
-public class DiscreteGenerator extends Generator<String> {
-  private static class Pair {
-    private double weight;
-    private String value;
+public class DiscreteGenerator<V> extends Generator<V> {
+  /**
+   * The alias table for the values added so far, replaced as a whole when a value is added.
+   */
+  private static final class Table<V> {
+    private final List<V> values;
+    // the probability of picking a column's own value rather than its alias
+    private final double[] prob;
+    private final int[] alias;
+
+    private Table(List<V> values, List<Double> weights) {
+      this.values = values;
+      int n = weights.size();
+      prob = new double[n];
+      alias = new int[n];
+
+      double sum = 0;
+      for (double weight : weights) {
+        sum += weight;
+      }
+      double[] scaled = new double[n];
+      int[] small = new int[n];
+      int[] large = new int[n];
+      int smalls = 0;
+      int larges = 0;
+      for (int i = 0; i < n; i++) {
+        scaled[i] = weights.get(i) * n / sum;
+        if (scaled[i] < 1.0) {
+          small[smalls++] = i;
+        } else {
+          large[larges++] = i;
+        }
+      }
+      while (smalls > 0 && larges > 0) {
+        int less = small[--smalls];
+        int more = large[--larges];
+        prob[less] = scaled[less];
+        alias[less] = more;
+        scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+        if (scaled[more] < 1.0) {
+          small[smalls++] = more;
+        } else {
+          large[larges++] = more;
+        }
+      }
+      // whatever is left is 1 up to rounding errors
+      while (larges > 0) {
+        prob[large[--larges]] = 1.0;
+      }
+      while (smalls > 0) {
+        prob[small[--smalls]] = 1.0;
+      }
+    }
 
-    Pair(double weight, String value) {
-      this.weight = weight;
-      this.value = requireNonNull(value);
+    private V next() {
+      double u = Utils.random().nextDouble() * prob.length;
+      int column = (int) u;
+      return values.get(u - column < prob[column] ? column : alias[column]);
     }
   }
 
-  private final Collection<Pair> values = new ArrayList<>();
-  private String lastvalue;
+  private final List<V> values = new ArrayList<>();
+  private final List<Double> weights = new ArrayList<>();
+  private volatile Table<V> table;
+  private V lastvalue;
 
   public DiscreteGenerator() {
     lastvalue = null;
   }
 
   /**
-   * Generate the next string in the distribution.
+   * Generate the next value in the distribution.
    */
   @Override
-  public String nextValue() {
-    double sum = 0;
-
-    for (Pair p : values) {
-      sum += p.weight;
-    }
-
-    double val = Utils.random().nextDouble();
-
-    for (Pair p : values) {
-      double pw = p.weight / sum;
-      if (val < pw) {
-        return p.value;
-      }
-
-      val -= pw;
+  public V nextValue() {
+    Table<V> t = table;
+    if (t == null) {
+      throw new AssertionError("oops. should not get here.");
     }
-
-    throw new AssertionError("oops. should not get here.");
-
+    lastvalue = t.next();
+    return lastvalue;
   }
 
   /**
-   * Return the previous string generated by the distribution; e.g., returned from the last nextString() call.
-   * Calling lastString() should not advance the distribution or have any side effects. If nextString() has not yet
-   * been called, lastString() should return something reasonable.
+   * Return the previous value generated by the distribution; e.g., returned from the last nextValue() call.
+   * Calling lastValue() should not advance the distribution or have any side effects. If nextValue() has not yet
+   * been called, lastValue() should return something reasonable.
    */
   @Override
-  public String lastValue() {
+  public V lastValue() {
     if (lastvalue == null) {
       lastvalue = nextValue();
     }
     return lastvalue;
   }
 
-  public void addValue(double weight, String value) {
-    values.add(new Pair(weight, value));
+  /**
+   * Add a value to choose from.
+   *
+   * @param weight The weight of the value, relative to the others.
+   */
+  public synchronized void addValue(double weight, V value) {
+    if (!(weight >= 0) || Double.isInfinite(weight)) {
+      throw new IllegalArgumentException("Invalid weight " + weight + " for " + value);
+    }
+    values.add(requireNonNull(value));
+    weights.add(weight);
+    double sum = 0;
+    for (double w : weights) {
+      sum += w;
+    }
+    table = sum > 0 ? new Table<>(new ArrayList<>(values), weights) : null;
   }
 
 }
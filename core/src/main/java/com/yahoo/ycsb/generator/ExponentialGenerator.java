@@ -69,6 +69,11 @@ public class ExponentialGenerator extends NumberGenerator {
     return -Math.log(Utils.random().nextDouble()) / gamma;
   }
 
+  @Override
+  public long nextLong() {
+    return (long) (-Math.log(Utils.random().nextDouble()) / gamma);
+  }
+
   @Override
   public double mean() {
     return 1.0 / gamma;
@@ -74,6 +74,11 @@ public class HotspotIntegerGenerator extends NumberGenerator {
 
   @Override
   public Long nextValue() {
+    return nextLong();
+  }
+
+  @Override
+  public long nextLong() {
     long value = 0;
     Random random = Utils.random();
     if (random.nextDouble() < hotOpnFraction) {
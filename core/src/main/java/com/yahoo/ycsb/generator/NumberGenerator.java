@@ -23,6 +23,8 @@ package com.yahoo.ycsb.generator;
  */
 public abstract class NumberGenerator extends Generator<Number> {
   private Number lastVal;
+  private long lastLong;
+  private boolean lastIsLong;
 
   /**
    * Set the last value generated. NumberGenerator subclasses must use this call
@@ -30,12 +32,29 @@ public abstract class NumberGenerator extends Generator<Number> {
    */
   protected void setLastValue(Number last) {
     lastVal = last;
+    lastIsLong = false;
   }
 
+  /**
+   * Set the last value generated, without boxing it.
+   */
+  protected void setLastValue(long last) {
+    lastLong = last;
+    lastIsLong = true;
+  }
 
   @Override
   public Number lastValue() {
-    return lastVal;
+    return lastIsLong ? Long.valueOf(lastLong) : lastVal;
+  }
+
+  /**
+   * Generate the next value as a long, e.g. a key number. Generators of integral
+   * values override this so that callers on the hot path don't box every value;
+   * {@link #nextValue()} returns the same value, boxed.
+   */
+  public long nextLong() {
+    return nextValue().longValue();
   }
 
   /**
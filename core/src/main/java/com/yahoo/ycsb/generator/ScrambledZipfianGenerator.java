@@ -30,6 +30,10 @@ import com.yahoo.ycsb.Utils;
  * @ZipfianGenerator, if you don't want the head of the distribution (the popular items) clustered together.
  */
 public class ScrambledZipfianGenerator extends NumberGenerator {
+  /**
+   * Zeta for ITEM_COUNT items and a zipfian constant of 0.99. Zeta is now computed quickly for any zipfian
+   * constant, this is only kept for code that refers to it.
+   */
   public static final double ZETAN = 26.46902820178302;
   public static final double USED_ZIPFIAN_CONSTANT = 0.99;
   public static final long ITEM_COUNT = 10000000000L;
@@ -61,21 +65,15 @@ public class ScrambledZipfianGenerator extends NumberGenerator {
   /**
    * Create a zipfian generator for the specified number of items using the specified zipfian constant.
    *
-   * @param _items The number of items in the distribution.
-   * @param _zipfianconstant The zipfian constant to use.
+   * @param items The number of items in the distribution.
+   * @param zipfianconstant The zipfian constant to use.
    */
-  /*
-// not supported, as the value of zeta depends on the zipfian constant, and we have only precomputed zeta for one
-zipfian constant
-  public ScrambledZipfianGenerator(long _items, double _zipfianconstant)
-  {
-    this(0,_items-1,_zipfianconstant);
+  public ScrambledZipfianGenerator(long items, double zipfianconstant) {
+    this(0, items - 1, zipfianconstant);
   }
-*/
 
   /**
-   * Create a zipfian generator for items between min and max (inclusive) for the specified zipfian constant. If you
-   * use a zipfian constant other than 0.99, this will take a long time to complete because we need to recompute zeta.
+   * Create a zipfian generator for items between min and max (inclusive) for the specified zipfian constant.
    *
    * @param min             The smallest integer to generate in the sequence.
    * @param max             The largest integer to generate in the sequence.
@@ -85,11 +83,7 @@ zipfian constant
     this.min = min;
     this.max = max;
     itemcount = this.max - this.min + 1;
-    if (zipfianconstant == USED_ZIPFIAN_CONSTANT) {
-      gen = new ZipfianGenerator(0, ITEM_COUNT, zipfianconstant, ZETAN);
-    } else {
-      gen = new ZipfianGenerator(0, ITEM_COUNT, zipfianconstant);
-    }
+    gen = new ZipfianGenerator(0, ITEM_COUNT, zipfianconstant);
   }
 
   /**************************************************************************************************/
@@ -99,7 +93,12 @@ zipfian constant
    */
   @Override
   public Long nextValue() {
-    long ret = gen.nextValue();
+    return nextLong();
+  }
+
+  @Override
+  public long nextLong() {
+    long ret = gen.nextLong();
     ret = min + Utils.fnvhash64(ret) % itemcount;
     setLastValue(ret);
     return ret;
@@ -37,10 +37,7 @@ public class SequentialGenerator extends NumberGenerator {
     interval = countend - countstart + 1;
   }
 
-  /**
-   * If the generator returns numeric (long) values, return the next value as an long.
-   * Default is to return -1, which is appropriate for generators that do not return numeric values.
-   */
+  @Override
   public long nextLong() {
     long ret = countstart + counter.getAndIncrement() % interval;
     setLastValue(ret);
@@ -49,9 +46,7 @@ public class SequentialGenerator extends NumberGenerator {
 
   @Override
   public Number nextValue() {
-    long ret = countstart + counter.getAndIncrement() % interval;
-    setLastValue(ret);
-    return ret;
+    return nextLong();
   }
 
   @Override
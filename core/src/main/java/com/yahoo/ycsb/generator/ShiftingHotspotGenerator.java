@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import com.yahoo.ycsb.Utils;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generate integers resembling a hotspot distribution, as {@link HotspotIntegerGenerator}
+ * does, whose hot set moves over time the way popular items change, so that caches have
+ * to evict what was hot and load what becomes hot.
+ * <p>
+ * The hot set is a range of the numbers, which wraps around at the upper bound, and the
+ * cold set is the rest. The hot set starts at the lower bound when the first number is
+ * generated, and then moves every interval:
+ * <ul>
+ * <li>{@link Shift#ROTATE}: by a fraction of its size at the end of each interval.
+ * <li>{@link Shift#JUMP}: to a random place at the end of each interval.
+ * <li>{@link Shift#DRIFT}: steadily, by a fraction of its size per interval.
+ * </ul>
+ * The hot set only depends on the time, so every thread sees the same one without
+ * coordinating.
+ */
+public class ShiftingHotspotGenerator extends NumberGenerator {
+
+  /**
+   * How the hot set moves.
+   */
+  public enum Shift {
+    ROTATE, JUMP, DRIFT
+  }
+
+  private final long lowerBound;
+  private final long interval;
+  private final long hotInterval;
+  private final long coldInterval;
+  private final double hotOpnFraction;
+  private final Shift shift;
+  private final long shiftNanos;
+  private final long step;
+  private final long seed;
+  private final AtomicLong start = new AtomicLong(Long.MIN_VALUE);
+
+  /**
+   * Create a generator for shifting hotspot distributions.
+   *
+   * @param lowerBound lower bound of the distribution.
+   * @param upperBound upper bound of the distribution.
+   * @param hotsetFraction percentage of data item.
+   * @param hotOpnFraction percentage of operations accessing the hot set.
+   * @param shift how the hot set moves.
+   * @param shiftNanos the interval in nanoseconds at which the hot set moves.
+   * @param shiftFraction how far the hot set moves every interval, relative to its size,
+   *                      when it rotates or drifts.
+   */
+  public ShiftingHotspotGenerator(long lowerBound, long upperBound, double hotsetFraction, double hotOpnFraction,
+                                  Shift shift, long shiftNanos, double shiftFraction) {
+    if (hotsetFraction < 0.0 || hotsetFraction > 1.0) {
+      throw new IllegalArgumentException("Hotset fraction out of range: " + hotsetFraction);
+    }
+    if (hotOpnFraction < 0.0 || hotOpnFraction > 1.0) {
+      throw new IllegalArgumentException("Hot operation fraction out of range: " + hotOpnFraction);
+    }
+    if (lowerBound > upperBound) {
+      throw new IllegalArgumentException("Upper bound of the shifting hotspot generator smaller than the lower bound");
+    }
+    if (shiftNanos <= 0 || shiftFraction < 0) {
+      throw new IllegalArgumentException("The hot set must shift at a positive interval by a fraction of at least 0");
+    }
+    this.lowerBound = lowerBound;
+    this.interval = upperBound - lowerBound + 1;
+    this.hotInterval = Math.max(1, (long) (interval * hotsetFraction));
+    this.coldInterval = interval - hotInterval;
+    this.hotOpnFraction = coldInterval == 0 ? 1.0 : hotOpnFraction;
+    this.shift = shift;
+    this.shiftNanos = shiftNanos;
+    this.step = (long) (hotInterval * shiftFraction);
+    this.seed = Utils.random().nextLong();
+  }
+
+  @Override
+  public Long nextValue() {
+    return nextLong();
+  }
+
+  @Override
+  public long nextLong() {
+    long now = now();
+    if (start.get() == Long.MIN_VALUE) {
+      start.compareAndSet(Long.MIN_VALUE, now);
+    }
+    long offset = hotsetStart(now - start.get());
+    Random random = Utils.random();
+    long value;
+    if (random.nextDouble() < hotOpnFraction) {
+      value = offset + Math.abs(random.nextLong() % hotInterval);
+    } else {
+      value = offset + hotInterval + Math.abs(random.nextLong() % coldInterval);
+    }
+    value = lowerBound + value % interval;
+    setLastValue(value);
+    return value;
+  }
+
+  /**
+   * @param elapsed The time since the first number was generated, in nanoseconds.
+   * @return The first number of the hot set at that time, relative to the lower bound.
+   */
+  long hotsetStart(long elapsed) {
+    long intervals = elapsed / shiftNanos;
+    switch (shift) {
+    case ROTATE:
+      return mod(multiply(intervals, step));
+    case JUMP:
+      return intervals == 0 ? 0 : mod(Utils.fnvhash64(seed + intervals));
+    default:
+      long partial = (long) ((double) (elapsed % shiftNanos) / shiftNanos * step);
+      return mod(multiply(intervals, step) + partial);
+    }
+  }
+
+  /**
+   * The time, in nanoseconds.
+   */
+  protected long now() {
+    return System.nanoTime();
+  }
+
+  // the product modulo the interval, by doubling if it could overflow
+  private long multiply(long a, long b) {
+    long x = mod(a);
+    long y = mod(b);
+    if (x < Integer.MAX_VALUE && y < Integer.MAX_VALUE) {
+      return mod(x * y);
+    }
+    long result = 0;
+    for (; y > 0; y >>= 1) {
+      if ((y & 1) != 0) {
+        result = mod(result + x);
+      }
+      x = mod(x * 2);
+    }
+    return result;
+  }
+
+  private long mod(long value) {
+    long result = value % interval;
+    return result < 0 ? result + interval : result;
+  }
+
+  /**
+   * The mean over time, as the hot set moves over all the numbers.
+   */
+  @Override
+  public double mean() {
+    return lowerBound + (interval - 1) / 2.0;
+  }
+}
@@ -41,6 +41,11 @@ public class UniformLongGenerator extends NumberGenerator {
 
   @Override
   public Long nextValue() {
+    return nextLong();
+  }
+
+  @Override
+  public long nextLong() {
     long ret = Math.abs(Utils.random().nextLong()) % interval  + lb;
     setLastValue(ret);
 
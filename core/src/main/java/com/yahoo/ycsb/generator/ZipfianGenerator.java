@@ -19,6 +19,8 @@ package com.yahoo.ycsb.generator;
 
 import com.yahoo.ycsb.Utils;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * A generator of a zipfian distribution. It produces a sequence of items, such that some items are more popular than
  * others, according to a zipfian distribution. When you construct an instance of this class, you specify the number
@@ -30,12 +32,11 @@ import com.yahoo.ycsb.Utils;
  * popular, and so on (or min is the most popular, min+1 the next most popular, etc.) If you don't want this clustering,
  * and instead want the popular items scattered throughout the item space, then use ScrambledZipfianGenerator instead.
  *
- * Be aware: initializing this generator may take a long time if there are lots of items to choose from (e.g. over a
- * minute for 100 million objects). This is because certain mathematical values need to be computed to properly
- * generate a zipfian skew, and one of those values (zeta) is a sum sequence from 1 to n, where n is the itemcount.
- * Note that if you increase the number of items in the set, we can compute a new zeta incrementally, so it should be
- * fast unless you have added millions of items. However, if you decrease the number of items, we recompute zeta from
- * scratch, so this can take a long time.
+ * Certain mathematical values need to be computed to properly generate a zipfian skew, and one of those values (zeta)
+ * is a sum sequence from 1 to n, where n is the itemcount. Only the first terms are summed one by one; the rest of the
+ * sum is approximated with the Euler-Maclaurin formula, to within rounding error, so creating a generator takes the
+ * same short time for any number of items and any zipfian constant, and so does growing or shrinking the number of
+ * items.
  *
  * The algorithm used here is from "Quickly Generating Billion-Record Synthetic Databases", Jim Gray et al, SIGMOD 1994.
  */
@@ -62,6 +63,16 @@ public class ZipfianGenerator extends NumberGenerator {
    */
   private double alpha, zetan, eta, theta, zeta2theta;
 
+  /**
+   * The number of terms of zeta that are summed exactly, the rest are approximated.
+   */
+  static final long EXACT_TERMS = 1024;
+
+  /**
+   * Zeta constants computed from scratch so far, by item count and zipfian constant.
+   */
+  private static final ConcurrentHashMap<String, Double> ZETA_CACHE = new ConcurrentHashMap<>();
+
   /**
    * The number of items used to compute zetan the last time.
    */
@@ -70,14 +81,13 @@ public class ZipfianGenerator extends NumberGenerator {
   /**
    * Flag to prevent problems. If you increase the number of items the zipfian generator is allowed to choose from,
    * this code will incrementally compute a new zeta value for the larger itemcount. However, if you decrease the
-   * number of items, the code computes zeta from scratch; this is expensive for large itemsets.
+   * number of items, the code computes zeta from scratch.
    * Usually this is not intentional; e.g. one thread thinks the number of items is 1001 and calls "nextLong()" with
    * that item count; then another thread who thinks the number of items is 1000 calls nextLong() with itemcount=1000
-   * triggering the expensive recomputation. (It is expensive for 100 million items, not really for 1000 items.) Why
-   * did the second thread think there were only 1000 items? maybe it read the item count before the first thread
-   * incremented it. So this flag allows you to say if you really do want that recomputation. If true, then the code
-   * will recompute zeta if the itemcount goes down. If false, the code will assume itemcount only goes up, and never
-   * recompute.
+   * triggering the recomputation, and the two threads would keep switching zeta back and forth. Why did the second
+   * thread think there were only 1000 items? maybe it read the item count before the first thread incremented it. So
+   * this flag allows you to say if you really do want that recomputation. If true, then the code will recompute zeta
+   * if the itemcount goes down. If false, the code will assume itemcount only goes up, and never recompute.
    */
   private boolean allowitemcountdecrease = false;
 
@@ -168,7 +178,13 @@ public class ZipfianGenerator extends NumberGenerator {
    * @param theta The zipfian constant.
    */
   static double zetastatic(long n, double theta) {
-    return zetastatic(0, n, theta, 0);
+    String key = n + ":" + theta;
+    Double zetan = ZETA_CACHE.get(key);
+    if (zetan == null) {
+      zetan = zetastatic(0, n, theta, 0);
+      ZETA_CACHE.putIfAbsent(key, zetan);
+    }
+    return zetan;
   }
 
   /**
@@ -197,13 +213,41 @@ public class ZipfianGenerator extends NumberGenerator {
    */
   static double zetastatic(long st, long n, double theta, double initialsum) {
     double sum = initialsum;
-    for (long i = st; i < n; i++) {
+    long exact = n - st <= EXACT_TERMS ? n : Math.min(n, Math.max(st, EXACT_TERMS));
+    for (long i = st; i < exact; i++) {
 
       sum += 1 / (Math.pow(i + 1, theta));
     }
+    if (exact < n) {
+      sum += eulerMaclaurin(exact + 1, n, theta);
+    }
 
-    //System.out.println("countforzeta="+countforzeta);
+    return sum;
+  }
 
+  /**
+   * Approximate the sum of 1/i^theta for i from a to b with the Euler-Maclaurin formula: the integral, the
+   * endpoint correction and the first three Bernoulli terms. With a above {@link #EXACT_TERMS} the remainder is
+   * far below the rounding error of the sum.
+   */
+  static double eulerMaclaurin(long a, long b, double theta) {
+    double fa = Math.pow(a, -theta);
+    double fb = Math.pow(b, -theta);
+    double integral;
+    if (theta == 1.0) {
+      integral = Math.log((double) b / a);
+    } else {
+      integral = (Math.pow(b, 1 - theta) - Math.pow(a, 1 - theta)) / (1 - theta);
+    }
+    double sum = integral + (fa + fb) / 2;
+
+    // the odd derivatives of x^-theta are c * x^(-theta-k), with c the product of -theta .. -(theta+k-1)
+    double c = -theta;
+    double[] bernoulli = {1.0 / 12, -1.0 / 720, 1.0 / 30240};
+    for (int k = 1, j = 0; j < bernoulli.length; k += 2, j++) {
+      sum += bernoulli[j] * c * (Math.pow(b, -theta - k) - Math.pow(a, -theta - k));
+      c *= (theta + k) * (theta + k + 1);
+    }
     return sum;
   }
 
@@ -229,20 +273,11 @@ public class ZipfianGenerator extends NumberGenerator {
 
           //we have added more items. can compute zetan incrementally, which is cheaper
           zetan = zeta(countforzeta, itemcount, theta, zetan);
-          eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2theta / zetan);
+          eta = (1 - Math.pow(2.0 / itemcount, 1 - theta)) / (1 - zeta2theta / zetan);
         } else if ((itemcount < countforzeta) && (allowitemcountdecrease)) {
           //have to start over with zetan
-          //note : for large itemsets, this is very slow. so don't do it!
-
-          //TODO: can also have a negative incremental computation, e.g. if you decrease the number of items,
-          // then just subtract the zeta sequence terms for the items that went away. This would be faster than
-          // recomputing from scratch when the number of items decreases
-
-          System.err.println("WARNING: Recomputing Zipfian distribtion. This is slow and should be avoided. " +
-              "(itemcount=" + itemcount + " countforzeta=" + countforzeta + ")");
-
           zetan = zeta(itemcount, theta);
-          eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2theta / zetan);
+          eta = (1 - Math.pow(2.0 / itemcount, 1 - theta)) / (1 - zeta2theta / zetan);
         }
       }
     }
@@ -274,6 +309,11 @@ public class ZipfianGenerator extends NumberGenerator {
     return nextLong(items);
   }
 
+  @Override
+  public long nextLong() {
+    return nextLong(items);
+  }
+
   public static void main(String[] args) {
     new ZipfianGenerator(ScrambledZipfianGenerator.ITEM_COUNT);
   }
@@ -19,10 +19,15 @@ package com.yahoo.ycsb.measurements;
 
 import com.yahoo.ycsb.Status;
 import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Collects latency measurements, and reports them when requested.
@@ -34,6 +39,7 @@ public class Measurements {
   public enum MeasurementType {
     HISTOGRAM,
     HDRHISTOGRAM,
+    HDRHISTOGRAM_PER_THREAD,
     HDRHISTOGRAM_AND_HISTOGRAM,
     HDRHISTOGRAM_AND_RAW,
     TIMESERIES,
@@ -49,6 +55,19 @@ public class Measurements {
   public static final String MEASUREMENT_TRACK_JVM_PROPERTY = "measurement.trackjvm";
   public static final String MEASUREMENT_TRACK_JVM_PROPERTY_DEFAULT = "false";
 
+  /**
+   * The operations of a DB, whose measurements are looked up by index rather
+   * than by name on every operation.
+   */
+  public enum Operation {
+    READ,
+    SCAN,
+    UPDATE,
+    INSERT,
+    DELETE,
+    CLEANUP
+  }
+
   private static Measurements singleton = null;
   private static Properties measurementproperties = null;
 
@@ -68,6 +87,9 @@ public class Measurements {
 
   private final ConcurrentHashMap<String, OneMeasurement> opToMesurementMap;
   private final ConcurrentHashMap<String, OneMeasurement> opToIntendedMesurementMap;
+  private final ConcurrentHashMap<String, Recorder> windows;
+  private final AtomicReferenceArray<OneMeasurement> byOperation;
+  private final AtomicReferenceArray<OneMeasurement> intendedByOperation;
   private final MeasurementType measurementType;
   private final int measurementInterval;
   private final Properties props;
@@ -78,6 +100,9 @@ public class Measurements {
   public Measurements(Properties props) {
     opToMesurementMap = new ConcurrentHashMap<>();
     opToIntendedMesurementMap = new ConcurrentHashMap<>();
+    windows = new ConcurrentHashMap<>();
+    byOperation = new AtomicReferenceArray<>(Operation.values().length);
+    intendedByOperation = new AtomicReferenceArray<>(Operation.values().length);
 
     this.props = props;
 
@@ -89,6 +114,9 @@ public class Measurements {
     case "hdrhistogram":
       measurementType = MeasurementType.HDRHISTOGRAM;
       break;
+    case "perthreadhdrhistogram":
+      measurementType = MeasurementType.HDRHISTOGRAM_PER_THREAD;
+      break;
     case "hdrhistogram+histogram":
       measurementType = MeasurementType.HDRHISTOGRAM_AND_HISTOGRAM;
       break;
@@ -127,6 +155,8 @@ public class Measurements {
       return new OneMeasurementHistogram(name, props);
     case HDRHISTOGRAM:
       return new OneMeasurementHdrHistogram(name, props);
+    case HDRHISTOGRAM_PER_THREAD:
+      return new OneMeasurementPerThreadHdrHistogram(name, props);
     case HDRHISTOGRAM_AND_HISTOGRAM:
       return new TwoInOneMeasurement(name,
           new OneMeasurementHdrHistogram("Hdr" + name, props),
@@ -184,15 +214,22 @@ public class Measurements {
     if (measurementInterval == 1) {
       return;
     }
-    try {
-      OneMeasurement m = getOpMeasurement(operation);
-      m.measure(latency);
-    } catch (java.lang.ArrayIndexOutOfBoundsException e) {
-      // This seems like a terribly hacky way to cover up for a bug in the measurement code
-      System.out.println("ERROR: java.lang.ArrayIndexOutOfBoundsException - ignoring and continuing");
-      e.printStackTrace();
-      e.printStackTrace(System.out);
+    record(getOpMeasurement(operation), operation, latency);
+  }
+
+  /**
+   * Report a single latency of a DB operation.
+   */
+  public void measure(Operation operation, int latency) {
+    if (measurementInterval == 1) {
+      return;
+    }
+    OneMeasurement m = byOperation.get(operation.ordinal());
+    if (m == null) {
+      m = getOpMeasurement(operation.name());
+      byOperation.set(operation.ordinal(), m);
     }
+    record(m, operation.name(), latency);
   }
 
   /**
@@ -203,9 +240,29 @@ public class Measurements {
     if (measurementInterval == 0) {
       return;
     }
+    OneMeasurement m = getOpIntendedMeasurement(operation);
+    record(m, m.getName(), latency);
+  }
+
+  /**
+   * Report a single intended latency of a DB operation.
+   */
+  public void measureIntended(Operation operation, int latency) {
+    if (measurementInterval == 0) {
+      return;
+    }
+    OneMeasurement m = intendedByOperation.get(operation.ordinal());
+    if (m == null) {
+      m = getOpIntendedMeasurement(operation.name());
+      intendedByOperation.set(operation.ordinal(), m);
+    }
+    record(m, m.getName(), latency);
+  }
+
+  private void record(OneMeasurement m, String name, int latency) {
     try {
-      OneMeasurement m = getOpIntendedMeasurement(operation);
       m.measure(latency);
+      recordWindow(name, latency);
     } catch (java.lang.ArrayIndexOutOfBoundsException e) {
       // This seems like a terribly hacky way to cover up for a bug in the measurement code
       System.out.println("ERROR: java.lang.ArrayIndexOutOfBoundsException - ignoring and continuing");
@@ -239,6 +296,43 @@ public class Measurements {
     return m;
   }
 
+  private void recordWindow(String name, int latency) {
+    if (windows.isEmpty()) {
+      return;
+    }
+    Recorder window = windows.get(name);
+    if (window != null) {
+      window.recordValue(latency);
+    }
+  }
+
+  /**
+   * Start collecting the latencies of a measurement in a window that can be
+   * read, and restarted, independently of the regular measurements. This is
+   * used to judge short stretches of a run, e.g. while searching for the
+   * highest throughput that meets a latency objective.
+   *
+   * @param name The name of the measurement, e.g. "READ" or "Intended-READ".
+   */
+  public void trackWindow(String name) {
+    windows.putIfAbsent(name, new Recorder(3));
+  }
+
+  /**
+   * Return the latencies recorded since the last call for the same
+   * measurement (or since {@link #trackWindow(String)}), and start a new window.
+   *
+   * @param name The name of the measurement, as passed to {@link #trackWindow(String)}.
+   * @return The latencies (in us) of the window that just ended.
+   */
+  public Histogram getWindow(String name) {
+    Recorder window = windows.get(name);
+    if (window == null) {
+      throw new IllegalStateException("No window is tracked for " + name);
+    }
+    return window.getIntervalHistogram();
+  }
+
   /**
    * Report a return code for a single DB operation.
    */
@@ -249,6 +343,22 @@ public class Measurements {
     m.reportStatus(status);
   }
 
+  /**
+   * Report a return code for a single DB operation.
+   */
+  public void reportStatus(final Operation operation, final Status status) {
+    AtomicReferenceArray<OneMeasurement> measurements =
+        measurementInterval == 1 ? intendedByOperation : byOperation;
+    OneMeasurement m = measurements.get(operation.ordinal());
+    if (m == null) {
+      m = measurementInterval == 1 ?
+          getOpIntendedMeasurement(operation.name()) :
+          getOpMeasurement(operation.name());
+      measurements.set(operation.ordinal(), m);
+    }
+    m.reportStatus(status);
+  }
+
   /**
    * Export the current measurements to a suitable format.
    *
@@ -264,6 +374,97 @@ public class Measurements {
     }
   }
 
+  /**
+   * Discard everything measured so far, e.g. at the end of a warmup phase, so
+   * that only what follows is reported.
+   */
+  public synchronized void reset() {
+    for (OneMeasurement measurement : opToMesurementMap.values()) {
+      measurement.reset();
+    }
+    for (OneMeasurement measurement : opToIntendedMesurementMap.values()) {
+      measurement.reset();
+    }
+    for (Recorder window : windows.values()) {
+      window.reset();
+    }
+  }
+
+  /**
+   * Take the latencies recorded since the last call for each measurement, e.g.
+   * to send them to the coordinator of a distributed run. Only HdrHistogram
+   * measurements are included.
+   *
+   * @return The interval histogram of each measurement, by name.
+   */
+  public synchronized Map<String, Histogram> getIntervalHistograms() {
+    Map<String, Histogram> intervals = new HashMap<>();
+    for (OneMeasurement m : opToMesurementMap.values()) {
+      if (m instanceof OneMeasurementHdrHistogram) {
+        intervals.put(m.getName(), ((OneMeasurementHdrHistogram) m).getIntervalHistogram());
+      }
+    }
+    for (OneMeasurement m : opToIntendedMesurementMap.values()) {
+      if (m instanceof OneMeasurementHdrHistogram) {
+        intervals.put(m.getName(), ((OneMeasurementHdrHistogram) m).getIntervalHistogram());
+      }
+    }
+    return intervals;
+  }
+
+  /**
+   * @return The return code counts of each measurement, by name.
+   */
+  public Map<String, Map<Status, Long>> getStatusCounts() {
+    Map<String, Map<Status, Long>> counts = new HashMap<>();
+    for (OneMeasurement m : opToMesurementMap.values()) {
+      counts.put(m.getName(), m.getStatusCounts());
+    }
+    for (OneMeasurement m : opToIntendedMesurementMap.values()) {
+      counts.put(m.getName(), m.getStatusCounts());
+    }
+    return counts;
+  }
+
+  /**
+   * Add latencies measured by another process to a measurement. The
+   * measurements must use the "hdrhistogram" measurement type.
+   *
+   * @param name The name of the measurement, e.g. "READ" or "Intended-READ".
+   * @param histogram The latencies (in us).
+   */
+  public void merge(String name, Histogram histogram) {
+    OneMeasurement m = getOpMeasurement(name);
+    if (!(m instanceof OneMeasurementHdrHistogram)) {
+      throw new IllegalStateException("Only hdrhistogram measurements can be merged");
+    }
+    ((OneMeasurementHdrHistogram) m).merge(histogram);
+  }
+
+  /**
+   * Add return codes counted by another process to a measurement.
+   *
+   * @param name The name of the measurement, e.g. "READ" or "Intended-READ".
+   * @param status The return code.
+   * @param count The number of operations that returned it.
+   */
+  public void mergeStatus(String name, Status status, long count) {
+    getOpMeasurement(name).reportStatus(status, count);
+  }
+
+  /**
+   * Forget every measurement, so that only operations performed from now on are
+   * reported, e.g. between the phases of a run plan.
+   */
+  public synchronized void clear() {
+    opToMesurementMap.clear();
+    opToIntendedMesurementMap.clear();
+    for (int i = 0; i < byOperation.length(); i++) {
+      byOperation.set(i, null);
+      intendedByOperation.set(i, null);
+    }
+  }
+
   /**
    * Return a one line summary of the measurements.
    */
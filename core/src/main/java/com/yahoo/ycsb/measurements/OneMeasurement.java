@@ -21,9 +21,10 @@ import com.yahoo.ycsb.Status;
 import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A single measured metric (such as READ LATENCY).
@@ -31,7 +32,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 public abstract class OneMeasurement {
 
   private final String name;
-  private final ConcurrentHashMap<Status, AtomicInteger> returncodes;
+  private final ConcurrentHashMap<Status, AtomicLong> returncodes;
 
   public String getName() {
     return name;
@@ -53,17 +54,35 @@ public abstract class OneMeasurement {
    * No need for synchronization, using CHM to deal with that.
    */
   public void reportStatus(Status status) {
-    AtomicInteger counter = returncodes.get(status);
+    reportStatus(status, 1);
+  }
+
+  /**
+   * Count several operations with the same return code at once, e.g. when merging the counts of another process.
+   */
+  public void reportStatus(Status status, long count) {
+    AtomicLong counter = returncodes.get(status);
 
     if (counter == null) {
-      counter = new AtomicInteger();
-      AtomicInteger other = returncodes.putIfAbsent(status, counter);
+      counter = new AtomicLong();
+      AtomicLong other = returncodes.putIfAbsent(status, counter);
       if (other != null) {
         counter = other;
       }
     }
 
-    counter.incrementAndGet();
+    counter.addAndGet(count);
+  }
+
+  /**
+   * @return The number of operations reported with each return code so far.
+   */
+  public Map<Status, Long> getStatusCounts() {
+    Map<Status, Long> counts = new HashMap<>();
+    for (Map.Entry<Status, AtomicLong> entry : returncodes.entrySet()) {
+      counts.put(entry.getKey(), entry.getValue().get());
+    }
+    return counts;
   }
 
   /**
@@ -74,9 +93,18 @@ public abstract class OneMeasurement {
    */
   public abstract void exportMeasurements(MeasurementsExporter exporter) throws IOException;
 
+  /**
+   * Discard everything measured so far, e.g. at the end of a warmup phase.
+   */
+  public abstract void reset();
+
   protected final void exportStatusCounts(MeasurementsExporter exporter) throws IOException {
-    for (Map.Entry<Status, AtomicInteger> entry : returncodes.entrySet()) {
-      exporter.write(getName(), "Return=" + entry.getKey().getName(), entry.getValue().get());
+    for (Map.Entry<Status, Long> entry : getStatusCounts().entrySet()) {
+      exporter.write(getName(), "Return=" + entry.getKey().getName(), entry.getValue());
     }
   }
+
+  protected final void resetStatusCounts() {
+    returncodes.clear();
+  }
 }
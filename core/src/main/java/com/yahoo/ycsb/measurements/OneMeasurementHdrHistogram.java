@@ -43,7 +43,8 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
   private final HistogramLogWriter histogramLogWriter;
 
   private final Recorder histogram;
-  private Histogram totalHistogram;
+  // guarded by the lock on this measurement, and cleared rather than replaced on a reset
+  private final Histogram totalHistogram = new Histogram(3);
 
   /**
    * The name of the property for deciding what percentile values to output.
@@ -94,7 +95,7 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
    * This is called from a main thread, on orderly termination.
    */
   @Override
-  public void exportMeasurements(MeasurementsExporter exporter) throws IOException {
+  public synchronized void exportMeasurements(MeasurementsExporter exporter) throws IOException {
     // accumulate the last interval which was not caught by status thread
     Histogram intervalHistogram = getIntervalHistogramAndAccumulate();
     if (histogramLogWriter != null) {
@@ -135,7 +136,7 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
    * @see com.yahoo.ycsb.measurements.OneMeasurement#getSummary()
    */
   @Override
-  public String getSummary() {
+  public synchronized String getSummary() {
     Histogram intervalHistogram = getIntervalHistogramAndAccumulate();
     // we use the summary interval as the histogram file interval.
     if (histogramLogWriter != null) {
@@ -151,14 +152,43 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
         + d.format(intervalHistogram.getValueAtPercentile(99.99)) + "]";
   }
 
-  private Histogram getIntervalHistogramAndAccumulate() {
-    Histogram intervalHistogram = histogram.getIntervalHistogram();
+  /**
+   * Take the latencies recorded since the last interval, e.g. to send them to the
+   * coordinator of a distributed run. They still count towards the total.
+   */
+  public synchronized Histogram getIntervalHistogram() {
+    // a copy, as the recorder may reuse the interval histogram on a reset
+    return getIntervalHistogramAndAccumulate().copy();
+  }
+
+  /**
+   * Add latencies measured elsewhere, e.g. by the workers of a distributed run, to the total.
+   */
+  public synchronized void merge(Histogram other) {
+    totalHistogram.add(other);
+  }
+
+  /**
+   * Drops the current interval of the recorder along with the accumulated total.
+   */
+  @Override
+  public synchronized void reset() {
+    histogram.reset();
+    totalHistogram.reset();
+    resetStatusCounts();
+  }
+
+  /**
+   * Take the latencies recorded since the last call. Called with the lock on this measurement held.
+   */
+  protected Histogram takeIntervalHistogram() {
+    return histogram.getIntervalHistogram();
+  }
+
+  private synchronized Histogram getIntervalHistogramAndAccumulate() {
+    Histogram intervalHistogram = takeIntervalHistogram();
     // add this to the total time histogram.
-    if (totalHistogram == null) {
-      totalHistogram = intervalHistogram;
-    } else {
-      totalHistogram.add(intervalHistogram);
-    }
+    totalHistogram.add(intervalHistogram);
     return intervalHistogram;
   }
 
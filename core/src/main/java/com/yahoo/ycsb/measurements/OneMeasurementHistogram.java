@@ -142,6 +142,20 @@ public class OneMeasurementHistogram extends OneMeasurement {
     exporter.write(getName(), ">" + buckets, histogramoverflow);
   }
 
+  @Override
+  public synchronized void reset() {
+    histogram = new long[buckets];
+    histogramoverflow = 0;
+    operations = 0;
+    totallatency = 0;
+    totalsquaredlatency = 0;
+    windowoperations = 0;
+    windowtotallatency = 0;
+    min = -1;
+    max = -1;
+    resetStatusCounts();
+  }
+
   @Override
   public String getSummary() {
     if (windowoperations == 0) {
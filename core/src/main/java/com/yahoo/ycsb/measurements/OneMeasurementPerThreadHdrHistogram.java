@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.measurements;
+
+import com.yahoo.ycsb.Status;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An HdrHistogram measurement where every thread records into its own
+ * single-writer recorder and return code counters, so that recording never
+ * waits on, or shares a cache line with, another thread. The recorders of all
+ * threads are merged whenever an interval is taken, i.e. by the StatusThread
+ * and at export.
+ */
+public class OneMeasurementPerThreadHdrHistogram extends OneMeasurementHdrHistogram {
+
+  /**
+   * What a single thread records.
+   */
+  private static final class Shard {
+    private final SingleWriterRecorder recorder = new SingleWriterRecorder(3);
+    private final ConcurrentHashMap<Status, AtomicLong> returncodes = new ConcurrentHashMap<>();
+    // the previous interval histogram of the recorder, recycled by the reader
+    private Histogram spare;
+
+    private void count(Status status, long count) {
+      AtomicLong counter = returncodes.get(status);
+      if (counter == null) {
+        counter = new AtomicLong();
+        returncodes.put(status, counter);
+      }
+      // only this shard's thread writes, so there's no need for an atomic add
+      counter.lazySet(counter.get() + count);
+    }
+  }
+
+  private final List<Shard> shards = new CopyOnWriteArrayList<>();
+
+  private final ThreadLocal<Shard> shard = new ThreadLocal<Shard>() {
+    @Override
+    protected Shard initialValue() {
+      Shard s = new Shard();
+      shards.add(s);
+      return s;
+    }
+  };
+
+  public OneMeasurementPerThreadHdrHistogram(String name, Properties props) {
+    super(name, props);
+  }
+
+  @Override
+  public void measure(int latencyInMicros) {
+    shard.get().recorder.recordValue(latencyInMicros);
+  }
+
+  @Override
+  public void reportStatus(Status status, long count) {
+    shard.get().count(status, count);
+  }
+
+  @Override
+  public Map<Status, Long> getStatusCounts() {
+    Map<Status, Long> counts = new HashMap<>();
+    for (Shard s : shards) {
+      for (Map.Entry<Status, AtomicLong> entry : s.returncodes.entrySet()) {
+        Long count = counts.get(entry.getKey());
+        counts.put(entry.getKey(), (count == null ? 0 : count) + entry.getValue().get());
+      }
+    }
+    return counts;
+  }
+
+  @Override
+  protected Histogram takeIntervalHistogram() {
+    Histogram interval = new Histogram(3);
+    for (Shard s : shards) {
+      s.spare = s.recorder.getIntervalHistogram(s.spare);
+      interval.add(s.spare);
+    }
+    return interval;
+  }
+
+  @Override
+  public synchronized void reset() {
+    super.reset();
+    for (Shard s : shards) {
+      s.recorder.reset();
+      s.returncodes.clear();
+    }
+  }
+}
@@ -189,6 +189,15 @@ public class OneMeasurementRaw extends OneMeasurement {
     exportStatusCounts(exporter);
   }
 
+  @Override
+  public synchronized void reset() {
+    measurements.clear();
+    totalLatency = 0;
+    windowOperations = 0;
+    windowTotalLatency = 0;
+    resetStatusCounts();
+  }
+
   @Override
   public synchronized String getSummary() {
     if (windowOperations == 0) {
@@ -131,6 +131,22 @@ public class OneMeasurementTimeSeries extends OneMeasurement {
     }
   }
 
+  @Override
+  public synchronized void reset() {
+    measurements.clear();
+    start = -1;
+    currentunit = -1;
+    count = 0;
+    sum = 0;
+    operations = 0;
+    totallatency = 0;
+    windowoperations = 0;
+    windowtotallatency = 0;
+    min = -1;
+    max = -1;
+    resetStatusCounts();
+  }
+
   @Override
   public String getSummary() {
     if (windowoperations == 0) {
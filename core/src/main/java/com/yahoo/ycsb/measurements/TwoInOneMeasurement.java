@@ -43,6 +43,11 @@ public class TwoInOneMeasurement extends OneMeasurement {
     thing1.reportStatus(status);
   }
 
+  @Override
+  public void reportStatus(final Status status, final long count) {
+    thing1.reportStatus(status, count);
+  }
+
   /**
    * It appears latency is reported in micros.
    * Using {@link org.HdrHistogram.Recorder} to support concurrent updates to histogram.
@@ -62,6 +67,12 @@ public class TwoInOneMeasurement extends OneMeasurement {
     thing2.exportMeasurements(exporter);
   }
 
+  @Override
+  public void reset() {
+    thing1.reset();
+    thing2.reset();
+  }
+
   /**
    * This is called periodically from the StatusThread. There's a single StatusThread per Client process.
    * We optionally serialize the interval to log on this opportunity.
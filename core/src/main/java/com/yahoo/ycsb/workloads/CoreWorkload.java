@@ -24,6 +24,7 @@ import com.yahoo.ycsb.measurements.Measurements;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The core benchmark scenario. Represents a set of clients doing simple CRUD operations. The
@@ -43,11 +44,30 @@ import java.util.*;
  * <LI><b>scanproportion</b>: what proportion of operations should be scans (default: 0)
  * <LI><b>readmodifywriteproportion</b>: what proportion of operations should be read a record,
  * modify it, write it back (default: 0)
+ * <LI><b>deleteproportion</b>: what proportion of operations should be deletes. The deleted keys are
+ * then tracked, so that reads, updates and scans choose live keys and inserts write deleted keys
+ * again before new ones; with as many inserts as deletes the number of records stays the same
+ * (default: 0)
  * <LI><b>requestdistribution</b>: what distribution should be used to select the records to operate
- * on - uniform, zipfian, hotspot, sequential, exponential or latest (default: uniform)
+ * on - uniform, zipfian, hotspot, shiftinghotspot, sequential, exponential or latest (default: uniform)
+ * <LI><b>zipfianconstant</b>: the skew of the zipfian request distribution, the higher the more
+ * skewed (default: 0.99)
+ * <LI><b>hotspotshift</b>: how the hot set of the shiftinghotspot request distribution, sized and
+ * accessed as set by hotspotdatafraction and hotspotopnfraction, moves every hotspotshiftinterval:
+ * rotate by hotspotshiftfraction of its size, jump to a random place, or drift steadily by
+ * hotspotshiftfraction of its size per interval (default: rotate)
+ * <LI><b>hotspotshiftinterval</b>: the interval in seconds at which the hot set moves (default: 60)
+ * <LI><b>hotspotshiftfraction</b>: how far the hot set rotates or drifts every interval, relative to
+ * its size (default: 1.0)
  * <LI><b>maxscanlength</b>: for scans, what is the maximum number of records to scan (default: 1000)
  * <LI><b>scanlengthdistribution</b>: for scans, what distribution should be used to choose the
  * number of records to scan, for each scan, between 1 and maxscanlength (default: uniform)
+ * <LI><b>maxbatchsize</b>: the most records a read, update or insert works on at once, through the batch
+ * operations of the DB; 1 to work on one record at a time (default: 1)
+ * <LI><b>batchsizedistribution</b>: what distribution should be used to choose the number of records of
+ * each batch - constant (always maxbatchsize), uniform or zipfian (default: constant)
+ * <LI><b>batchoperations</b>: which of read, update and insert work on batches, separated by commas
+ * (default: read,update,insert)
  * <LI><b>insertstart</b>: for parallel loads and runs, defines the starting record for this
  * YCSB instance (default: 0)
  * <LI><b>insertcount</b>: for parallel loads and runs, defines the number of records for this
@@ -86,6 +106,10 @@ public class CoreWorkload extends Workload {
   
   private List<String> fieldnames;
 
+  // the field sets to read, shared by all threads as they are never modified
+  private List<Set<String>> singlefields;
+  private Set<String> allfields;
+
   /**
    * The name of the property for the field length distribution. Options are "uniform", "zipfian"
    * (favouring short records), "constant", and "histogram".
@@ -128,6 +152,69 @@ public class CoreWorkload extends Workload {
    */
   protected NumberGenerator fieldlengthgenerator;
 
+  /**
+   * The name of the property for how field values are generated. Options are "random", which generates
+   * the bytes of every value as they are read, "slab", which hands out slices of a block of random
+   * bytes that is generated once, and "compressible", which does the same with a block that compresses
+   * to the compressionratio.
+   */
+  public static final String VALUE_GENERATOR_PROPERTY = "valuegenerator";
+
+  /**
+   * The default value generator.
+   */
+  public static final String VALUE_GENERATOR_PROPERTY_DEFAULT = "random";
+
+  /**
+   * The name of the property for the size of the slab in bytes (only used if valuegenerator is "slab" or
+   * "compressible").
+   */
+  public static final String SLAB_SIZE_PROPERTY = "slabsize";
+
+  /**
+   * The default slab size, 64 MB.
+   */
+  public static final String SLAB_SIZE_PROPERTY_DEFAULT = "67108864";
+
+  /**
+   * The name of the property for whether the slab is kept outside of the Java heap (only used if
+   * valuegenerator is "slab" or "compressible").
+   */
+  public static final String SLAB_OFFHEAP_PROPERTY = "slaboffheap";
+
+  /**
+   * The default is to keep the slab on the heap.
+   */
+  public static final String SLAB_OFFHEAP_PROPERTY_DEFAULT = "false";
+
+  /**
+   * The name of the property for the size values should compress to, relative to their length (only used
+   * if valuegenerator is "compressible"). E.g. 0.3 for values that shrink to 30% of their size.
+   */
+  public static final String COMPRESSION_RATIO_PROPERTY = "compressionratio";
+
+  /**
+   * The default compression ratio.
+   */
+  public static final String COMPRESSION_RATIO_PROPERTY_DEFAULT = "0.5";
+
+  /**
+   * The name of the property for the number of different characters the random parts of compressible
+   * values use, up to 95, which sets how far a compressor that entropy codes can shrink them beyond the
+   * compressionratio (only used if valuegenerator is "compressible").
+   */
+  public static final String COMPRESSION_ALPHABET_PROPERTY = "compressionalphabet";
+
+  /**
+   * The default is all printable characters.
+   */
+  public static final String COMPRESSION_ALPHABET_PROPERTY_DEFAULT = String.valueOf(ValueSlab.PRINTABLE);
+
+  /**
+   * The slab field values are taken from, or null if they are generated as they are read.
+   */
+  protected ValueSlab valueslab;
+
   /**
    * The name of the property for deciding whether to read one field (false) or all fields (true) of
    * a record.
@@ -221,6 +308,16 @@ public class CoreWorkload extends Workload {
    */
   public static final String READMODIFYWRITE_PROPORTION_PROPERTY_DEFAULT = "0.0";
 
+  /**
+   * The name of the property for the proportion of transactions that are deletes.
+   */
+  public static final String DELETE_PROPORTION_PROPERTY = "deleteproportion";
+
+  /**
+   * The default proportion of transactions that are deletes.
+   */
+  public static final String DELETE_PROPORTION_PROPERTY_DEFAULT = "0.00";
+
   /**
    * The name of the property for the the distribution of requests across the keyspace. Options are
    * "uniform", "zipfian" and "latest"
@@ -232,6 +329,16 @@ public class CoreWorkload extends Workload {
    */
   public static final String REQUEST_DISTRIBUTION_PROPERTY_DEFAULT = "uniform";
 
+  /**
+   * The name of the property for the zipfian constant of the zipfian request distribution.
+   */
+  public static final String ZIPFIAN_CONSTANT_PROPERTY = "zipfianconstant";
+
+  /**
+   * The default zipfian constant.
+   */
+  public static final String ZIPFIAN_CONSTANT_PROPERTY_DEFAULT = String.valueOf(ZipfianGenerator.ZIPFIAN_CONSTANT);
+
   /**
    * The name of the property for adding zero padding to record numbers in order to match
    * string sort order. Controls the number of 0s to left pad with.
@@ -265,6 +372,37 @@ public class CoreWorkload extends Workload {
    */
   public static final String SCAN_LENGTH_DISTRIBUTION_PROPERTY_DEFAULT = "uniform";
 
+  /**
+   * The name of the property for the max batch size (number of records).
+   */
+  public static final String MAX_BATCH_SIZE_PROPERTY = "maxbatchsize";
+
+  /**
+   * The default max batch size, i.e. no batches.
+   */
+  public static final String MAX_BATCH_SIZE_PROPERTY_DEFAULT = "1";
+
+  /**
+   * The name of the property for the batch size distribution. Options are "constant", "uniform" and
+   * "zipfian" (favoring small batches).
+   */
+  public static final String BATCH_SIZE_DISTRIBUTION_PROPERTY = "batchsizedistribution";
+
+  /**
+   * The default batch size distribution.
+   */
+  public static final String BATCH_SIZE_DISTRIBUTION_PROPERTY_DEFAULT = "constant";
+
+  /**
+   * The name of the property for the operations that work on batches.
+   */
+  public static final String BATCH_OPERATIONS_PROPERTY = "batchoperations";
+
+  /**
+   * The default operations that work on batches.
+   */
+  public static final String BATCH_OPERATIONS_PROPERTY_DEFAULT = "read,update,insert";
+
   /**
    * The name of the property for the order to insert records. Options are "ordered" or "hashed"
    */
@@ -295,6 +433,37 @@ public class CoreWorkload extends Workload {
    */
   public static final String HOTSPOT_OPN_FRACTION_DEFAULT = "0.8";
 
+  /**
+   * How the hot set of the shiftinghotspot request distribution moves: "rotate", "jump" or "drift".
+   */
+  public static final String HOTSPOT_SHIFT = "hotspotshift";
+
+  /**
+   * Default value of how the hot set moves.
+   */
+  public static final String HOTSPOT_SHIFT_DEFAULT = "rotate";
+
+  /**
+   * The interval in seconds at which the hot set of the shiftinghotspot request distribution moves.
+   */
+  public static final String HOTSPOT_SHIFT_INTERVAL = "hotspotshiftinterval";
+
+  /**
+   * Default value of the interval at which the hot set moves.
+   */
+  public static final String HOTSPOT_SHIFT_INTERVAL_DEFAULT = "60";
+
+  /**
+   * How far the hot set of the shiftinghotspot request distribution rotates or drifts every interval,
+   * relative to its size.
+   */
+  public static final String HOTSPOT_SHIFT_FRACTION = "hotspotshiftfraction";
+
+  /**
+   * Default value of how far the hot set moves every interval.
+   */
+  public static final String HOTSPOT_SHIFT_FRACTION_DEFAULT = "1.0";
+
   /**
    * How many times to retry when insertion of a single item to a DB fails.
    */
@@ -308,11 +477,15 @@ public class CoreWorkload extends Workload {
   public static final String INSERTION_RETRY_INTERVAL_DEFAULT = "3";
 
   protected NumberGenerator keysequence;
-  protected DiscreteGenerator operationchooser;
+  protected DiscreteGenerator<Operation> operationchooser;
   protected NumberGenerator keychooser;
   protected NumberGenerator fieldchooser;
   protected AcknowledgedCounterGenerator transactioninsertkeysequence;
   protected NumberGenerator scanlength;
+  protected NumberGenerator batchsize;
+  protected Set<Operation> batchoperations;
+  // the deleted keys, if there are deletes
+  protected LiveKeyBitmap livekeys;
   protected boolean orderedinserts;
   protected long fieldcount;
   protected long recordcount;
@@ -320,6 +493,9 @@ public class CoreWorkload extends Workload {
   protected int insertionRetryLimit;
   protected int insertionRetryInterval;
 
+  // how many keys to try to find a live one, or one deleted to insert again
+  private static final int LIVE_KEY_ATTEMPTS = 100;
+
   private Measurements measurements = Measurements.getMeasurements();
 
   protected static NumberGenerator getFieldLengthGenerator(Properties p) throws WorkloadException {
@@ -350,6 +526,81 @@ public class CoreWorkload extends Workload {
     return fieldlengthgenerator;
   }
 
+  /**
+   * @return The generator of batch sizes, or null if operations work on one record at a time.
+   */
+  protected static NumberGenerator getBatchSizeGenerator(Properties p) throws WorkloadException {
+    int maxbatchsize = Integer.parseInt(p.getProperty(MAX_BATCH_SIZE_PROPERTY, MAX_BATCH_SIZE_PROPERTY_DEFAULT));
+    String batchsizedistrib =
+        p.getProperty(BATCH_SIZE_DISTRIBUTION_PROPERTY, BATCH_SIZE_DISTRIBUTION_PROPERTY_DEFAULT);
+    if (maxbatchsize <= 1) {
+      return null;
+    } else if (batchsizedistrib.equals("constant")) {
+      return new ConstantIntegerGenerator(maxbatchsize);
+    } else if (batchsizedistrib.equals("uniform")) {
+      return new UniformLongGenerator(1, maxbatchsize);
+    } else if (batchsizedistrib.equals("zipfian")) {
+      return new ZipfianGenerator(1, maxbatchsize);
+    }
+    throw new WorkloadException("Distribution \"" + batchsizedistrib + "\" not allowed for batch size");
+  }
+
+  /**
+   * @return A hotspot generator of the numbers between the bounds, whose hot set moves over time.
+   */
+  protected static NumberGenerator createShiftingHotspotGenerator(Properties p, long lowerbound, long upperbound)
+      throws WorkloadException {
+    double hotsetfraction = Double.parseDouble(p.getProperty(HOTSPOT_DATA_FRACTION, HOTSPOT_DATA_FRACTION_DEFAULT));
+    double hotopnfraction = Double.parseDouble(p.getProperty(HOTSPOT_OPN_FRACTION, HOTSPOT_OPN_FRACTION_DEFAULT));
+    String shift = p.getProperty(HOTSPOT_SHIFT, HOTSPOT_SHIFT_DEFAULT);
+    double seconds = Double.parseDouble(p.getProperty(HOTSPOT_SHIFT_INTERVAL, HOTSPOT_SHIFT_INTERVAL_DEFAULT));
+    double shiftfraction = Double.parseDouble(p.getProperty(HOTSPOT_SHIFT_FRACTION, HOTSPOT_SHIFT_FRACTION_DEFAULT));
+    try {
+      return new ShiftingHotspotGenerator(lowerbound, upperbound, hotsetfraction, hotopnfraction,
+          ShiftingHotspotGenerator.Shift.valueOf(shift.trim().toUpperCase()),
+          (long) (seconds * TimeUnit.SECONDS.toNanos(1)), shiftfraction);
+    } catch (IllegalArgumentException e) {
+      throw new WorkloadException("Invalid shifting hotspot \"" + shift + "\": " + e.getMessage(), e);
+    }
+  }
+
+  protected static Set<Operation> getBatchOperations(Properties p) throws WorkloadException {
+    Set<Operation> operations = EnumSet.noneOf(Operation.class);
+    for (String name : p.getProperty(BATCH_OPERATIONS_PROPERTY, BATCH_OPERATIONS_PROPERTY_DEFAULT).split(",")) {
+      String operation = name.trim().toUpperCase();
+      if (!operation.matches("READ|UPDATE|INSERT")) {
+        throw new WorkloadException("Operation \"" + name + "\" can't work on batches");
+      }
+      operations.add(Operation.valueOf(operation));
+    }
+    return operations;
+  }
+
+  protected static ValueSlab getValueSlab(Properties p) throws WorkloadException {
+    String valuegenerator = p.getProperty(VALUE_GENERATOR_PROPERTY, VALUE_GENERATOR_PROPERTY_DEFAULT);
+    if (valuegenerator.equals("random")) {
+      return null;
+    } else if (!valuegenerator.equals("slab") && !valuegenerator.equals("compressible")) {
+      throw new WorkloadException("Unknown value generator \"" + valuegenerator + "\"");
+    }
+    long size = Long.parseLong(p.getProperty(SLAB_SIZE_PROPERTY, SLAB_SIZE_PROPERTY_DEFAULT));
+    if (size < 1 || size > Integer.MAX_VALUE) {
+      throw new WorkloadException(SLAB_SIZE_PROPERTY + " must be between 1 and " + Integer.MAX_VALUE);
+    }
+    boolean offheap = Boolean.parseBoolean(p.getProperty(SLAB_OFFHEAP_PROPERTY, SLAB_OFFHEAP_PROPERTY_DEFAULT));
+    if (valuegenerator.equals("slab")) {
+      return new ValueSlab((int) size, offheap);
+    }
+    double ratio = Double.parseDouble(p.getProperty(COMPRESSION_RATIO_PROPERTY, COMPRESSION_RATIO_PROPERTY_DEFAULT));
+    int alphabet = Integer.parseInt(p.getProperty(COMPRESSION_ALPHABET_PROPERTY,
+        COMPRESSION_ALPHABET_PROPERTY_DEFAULT));
+    try {
+      return new ValueSlab((int) size, offheap, ratio, alphabet);
+    } catch (IllegalArgumentException e) {
+      throw new WorkloadException(e.getMessage());
+    }
+  }
+
   /**
    * Initialize the scenario.
    * Called once, in the main client thread, before any operations are started.
@@ -361,10 +612,14 @@ public class CoreWorkload extends Workload {
     fieldcount =
         Long.parseLong(p.getProperty(FIELD_COUNT_PROPERTY, FIELD_COUNT_PROPERTY_DEFAULT));
     fieldnames = new ArrayList<>();
+    singlefields = new ArrayList<>();
     for (int i = 0; i < fieldcount; i++) {
       fieldnames.add("field" + i);
+      singlefields.add(Collections.singleton(fieldnames.get(i)));
     }
+    allfields = Collections.unmodifiableSet(new HashSet<>(fieldnames));
     fieldlengthgenerator = CoreWorkload.getFieldLengthGenerator(p);
+    valueslab = CoreWorkload.getValueSlab(p);
 
     recordcount =
         Long.parseLong(p.getProperty(Client.RECORD_COUNT_PROPERTY, Client.DEFAULT_RECORD_COUNT));
@@ -381,7 +636,7 @@ public class CoreWorkload extends Workload {
     long insertstart =
         Long.parseLong(p.getProperty(INSERT_START_PROPERTY, INSERT_START_PROPERTY_DEFAULT));
     long insertcount=
-        Integer.parseInt(p.getProperty(INSERT_COUNT_PROPERTY, String.valueOf(recordcount - insertstart)));
+        Long.parseLong(p.getProperty(INSERT_COUNT_PROPERTY, String.valueOf(recordcount - insertstart)));
     // Confirm valid values for insertstart and insertcount in relation to recordcount
     if (recordcount < (insertstart + insertcount)) {
       System.err.println("Invalid combination of insertstart, insertcount and recordcount.");
@@ -441,10 +696,13 @@ public class CoreWorkload extends Workload {
       // the keyspace doesn't change from the perspective of the scrambled zipfian generator
       final double insertproportion = Double.parseDouble(
           p.getProperty(INSERT_PROPORTION_PROPERTY, INSERT_PROPORTION_PROPERTY_DEFAULT));
-      int opcount = Integer.parseInt(p.getProperty(Client.OPERATION_COUNT_PROPERTY));
-      int expectednewkeys = (int) ((opcount) * insertproportion * 2.0); // 2 is fudge factor
+      long opcount = Long.parseLong(p.getProperty(Client.OPERATION_COUNT_PROPERTY));
+      long expectednewkeys = (long) ((opcount) * insertproportion * 2.0); // 2 is fudge factor
 
-      keychooser = new ScrambledZipfianGenerator(insertstart, insertstart + insertcount + expectednewkeys);
+      double zipfianconstant = Double.parseDouble(
+          p.getProperty(ZIPFIAN_CONSTANT_PROPERTY, ZIPFIAN_CONSTANT_PROPERTY_DEFAULT));
+      keychooser = new ScrambledZipfianGenerator(insertstart, insertstart + insertcount + expectednewkeys,
+          zipfianconstant);
     } else if (requestdistrib.compareTo("latest") == 0) {
       keychooser = new SkewedLatestGenerator(transactioninsertkeysequence);
     } else if (requestdistrib.equals("hotspot")) {
@@ -454,6 +712,8 @@ public class CoreWorkload extends Workload {
           Double.parseDouble(p.getProperty(HOTSPOT_OPN_FRACTION, HOTSPOT_OPN_FRACTION_DEFAULT));
       keychooser = new HotspotIntegerGenerator(insertstart, insertstart + insertcount - 1,
           hotsetfraction, hotopnfraction);
+    } else if (requestdistrib.equals("shiftinghotspot")) {
+      keychooser = createShiftingHotspotGenerator(p, insertstart, insertstart + insertcount - 1);
     } else {
       throw new WorkloadException("Unknown request distribution \"" + requestdistrib + "\"");
     }
@@ -469,63 +729,152 @@ public class CoreWorkload extends Workload {
           "Distribution \"" + scanlengthdistrib + "\" not allowed for scan length");
     }
 
+    batchsize = getBatchSizeGenerator(p);
+    batchoperations = getBatchOperations(p);
+    if (Double.parseDouble(p.getProperty(DELETE_PROPORTION_PROPERTY, DELETE_PROPORTION_PROPERTY_DEFAULT)) > 0) {
+      livekeys = new LiveKeyBitmap();
+    }
+
     insertionRetryLimit = Integer.parseInt(p.getProperty(
         INSERTION_RETRY_LIMIT, INSERTION_RETRY_LIMIT_DEFAULT));
     insertionRetryInterval = Integer.parseInt(p.getProperty(
         INSERTION_RETRY_INTERVAL, INSERTION_RETRY_INTERVAL_DEFAULT));
   }
 
+  /**
+   * The containers a client thread reuses from one operation to the next, so that an operation
+   * allocates little more than its key and whatever the DB returns.
+   */
+  private static final class ThreadState {
+    private final StringBuilder key = new StringBuilder();
+    private final HashMap<String, ByteIterator> cells = new HashMap<>();
+    private final HashMap<String, ByteIterator> values = new HashMap<>();
+    private final Vector<HashMap<String, ByteIterator>> rows = new Vector<>();
+    // per field, the value to write when only that field is updated and the iterator for its data
+    private final List<HashMap<String, ByteIterator>> single;
+    private final ByteIterator[] data;
+    // for batches, the keys, the containers of their records and the state each record is built with
+    private final List<String> keys = new ArrayList<>();
+    private final List<Map<String, ByteIterator>> records = new ArrayList<>();
+    private final List<ThreadState> items = new ArrayList<>();
+
+    private ThreadState(int fields) {
+      single = new ArrayList<>(Collections.<HashMap<String, ByteIterator>>nCopies(fields, null));
+      data = new ByteIterator[fields];
+    }
+
+    private ThreadState item(int i) {
+      while (items.size() <= i) {
+        items.add(new ThreadState(single.size()));
+      }
+      return items.get(i);
+    }
+  }
+
+  @Override
+  public Object initThread(Properties p, int mythreadid, int threadcount) throws WorkloadException {
+    return new ThreadState(fieldnames.size());
+  }
+
+  /**
+   * The containers are only handed to the DB for the duration of a call, but an asynchronous
+   * binding may still use them once the call returned, so it gets new ones for every operation.
+   */
+  private ThreadState state(DB db, Object threadstate) {
+    if (threadstate instanceof ThreadState && !(db instanceof AsyncDBWrapper)) {
+      return (ThreadState) threadstate;
+    }
+    return new ThreadState(fieldnames.size());
+  }
+
   protected String buildKeyName(long keynum) {
+    return buildKeyName(keynum, new StringBuilder());
+  }
+
+  /**
+   * Build the key in the given buffer, which is reused by the client thread.
+   */
+  private String buildKeyName(long keynum, StringBuilder key) {
     if (!orderedinserts) {
       keynum = Utils.hash(keynum);
     }
-    String value = Long.toString(keynum);
-    int fill = zeropadding - value.length();
-    String prekey = "user";
-    for (int i = 0; i < fill; i++) {
-      prekey += '0';
+    key.setLength(0);
+    key.append("user");
+    int digits = key.length();
+    key.append(keynum);
+    for (int fill = zeropadding - (key.length() - digits); fill > 0; fill--) {
+      key.insert(digits, '0');
     }
-    return prekey + value;
+    return key.toString();
   }
 
   /**
    * Builds a value for a randomly chosen field.
    */
-  private HashMap<String, ByteIterator> buildSingleValue(String key) {
-    HashMap<String, ByteIterator> value = new HashMap<>();
-
-    String fieldkey = fieldnames.get(fieldchooser.nextValue().intValue());
-    ByteIterator data;
-    if (dataintegrity) {
-      data = new StringByteIterator(buildDeterministicValue(key, fieldkey));
-    } else {
-      // fill with random data
-      data = new RandomByteIterator(fieldlengthgenerator.nextValue().longValue());
+  private HashMap<String, ByteIterator> buildSingleValue(String key, ThreadState state) {
+    int field = (int) fieldchooser.nextLong();
+    HashMap<String, ByteIterator> value = state.single.get(field);
+    if (value == null) {
+      value = new HashMap<>(2);
+      state.single.set(field, value);
     }
-    value.put(fieldkey, data);
-
+    String fieldkey = fieldnames.get(field);
+    value.put(fieldkey, buildData(key, field, state));
     return value;
   }
 
   /**
    * Builds values for all fields.
    */
-  private HashMap<String, ByteIterator> buildValues(String key) {
-    HashMap<String, ByteIterator> values = new HashMap<>();
-
-    for (String fieldkey : fieldnames) {
-      ByteIterator data;
-      if (dataintegrity) {
-        data = new StringByteIterator(buildDeterministicValue(key, fieldkey));
-      } else {
-        // fill with random data
-        data = new RandomByteIterator(fieldlengthgenerator.nextValue().longValue());
-      }
-      values.put(fieldkey, data);
+  private HashMap<String, ByteIterator> buildValues(String key, ThreadState state) {
+    HashMap<String, ByteIterator> values = state.values;
+    for (int field = 0; field < fieldnames.size(); field++) {
+      values.put(fieldnames.get(field), buildData(key, field, state));
     }
     return values;
   }
 
+  private ByteIterator buildData(String key, int field, ThreadState state) {
+    if (dataintegrity) {
+      return new StringByteIterator(buildDeterministicValue(key, fieldnames.get(field)));
+    }
+    // fill with random data
+    long length = fieldlengthgenerator.nextLong();
+    ByteIterator data = state.data[field];
+    if (data == null) {
+      data = valueslab == null ? new RandomByteIterator(length) : valueslab.slice(length);
+      state.data[field] = data;
+    } else if (valueslab == null) {
+      ((RandomByteIterator) data).reset(length);
+    } else {
+      ((SlabByteIterator) data).reset(length);
+    }
+    return data;
+  }
+
+  /**
+   * @return The fields a read reads: one at random, or null for all of them.
+   */
+  protected Set<String> chooseReadFields() {
+    if (!readallfields) {
+      // read a random field
+      return singlefields.get((int) fieldchooser.nextLong());
+    } else if (dataintegrity) {
+      // pass the full field list if dataintegrity is on for verification
+      return allfields;
+    }
+    return null;
+  }
+
+  /**
+   * Builds the values an update writes: one field at random, or all of them. Unlike those of the
+   * operations of this workload, they are not reused, so the caller may hold on to them.
+   */
+  protected HashMap<String, ByteIterator> buildUpdateValues(String key) {
+    ThreadState scratch = new ThreadState(fieldnames.size());
+    return writeallfields ? buildValues(key, scratch) : buildSingleValue(key, scratch);
+  }
+
   /**
    * Build a deterministic value given the key information.
    */
@@ -552,9 +901,10 @@ public class CoreWorkload extends Workload {
    */
   @Override
   public boolean doInsert(DB db, Object threadstate) {
-    int keynum = keysequence.nextValue().intValue();
-    String dbkey = buildKeyName(keynum);
-    HashMap<String, ByteIterator> values = buildValues(dbkey);
+    ThreadState state = state(db, threadstate);
+    long keynum = keysequence.nextLong();
+    String dbkey = buildKeyName(keynum, state.key);
+    HashMap<String, ByteIterator> values = buildValues(dbkey, state);
 
     Status status;
     int numOfRetries = 0;
@@ -570,7 +920,7 @@ public class CoreWorkload extends Workload {
         System.err.println("Retrying insertion, retry count: " + numOfRetries);
         try {
           // Sleep for a random number between [0.8, 1.2)*insertionRetryInterval.
-          int sleepTime = (int) (1000 * insertionRetryInterval * (0.8 + 0.4 * Math.random()));
+          int sleepTime = (int) (1000 * insertionRetryInterval * (0.8 + 0.4 * Utils.random().nextDouble()));
           Thread.sleep(sleepTime);
         } catch (InterruptedException e) {
           break;
@@ -595,26 +945,42 @@ public class CoreWorkload extends Workload {
    */
   @Override
   public boolean doTransaction(DB db, Object threadstate) {
-    String operation = operationchooser.nextString();
+    Operation operation = operationchooser.nextValue();
     if(operation == null) {
       return false;
     }
 
+    boolean batch = batchsize != null && batchoperations.contains(operation);
     switch (operation) {
-    case "READ":
-      doTransactionRead(db);
+    case READ:
+      if (batch) {
+        doTransactionBatchRead(db, threadstate);
+      } else {
+        doTransactionRead(db, threadstate);
+      }
       break;
-    case "UPDATE":
-      doTransactionUpdate(db);
+    case UPDATE:
+      if (batch) {
+        doTransactionBatchUpdate(db, threadstate);
+      } else {
+        doTransactionUpdate(db, threadstate);
+      }
       break;
-    case "INSERT":
-      doTransactionInsert(db);
+    case INSERT:
+      if (batch) {
+        doTransactionBatchInsert(db, threadstate);
+      } else {
+        doTransactionInsert(db, threadstate);
+      }
       break;
-    case "SCAN":
-      doTransactionScan(db);
+    case SCAN:
+      doTransactionScan(db, threadstate);
+      break;
+    case DELETE:
+      doTransactionDelete(db, threadstate);
       break;
     default:
-      doTransactionReadModifyWrite(db);
+      doTransactionReadModifyWrite(db, threadstate);
     }
 
     return true;
@@ -646,40 +1012,46 @@ public class CoreWorkload extends Workload {
     measurements.reportStatus("VERIFY", verifyStatus);
   }
 
+  /**
+   * @return The key of a record to operate on, one that was not deleted if any can be found.
+   */
   long nextKeynum() {
+    long keynum = nextInsertedKeynum();
+    for (int attempt = 1; livekeys != null && !livekeys.isLive(keynum) && attempt < LIVE_KEY_ATTEMPTS; attempt++) {
+      keynum = nextInsertedKeynum();
+    }
+    return keynum;
+  }
+
+  private long nextInsertedKeynum() {
     long keynum;
     if (keychooser instanceof ExponentialGenerator) {
       do {
-        keynum = transactioninsertkeysequence.lastValue() - keychooser.nextValue().intValue();
+        keynum = transactioninsertkeysequence.lastLong() - keychooser.nextLong();
       } while (keynum < 0);
     } else {
       do {
-        keynum = keychooser.nextValue().intValue();
-      } while (keynum > transactioninsertkeysequence.lastValue());
+        keynum = keychooser.nextLong();
+      } while (keynum > transactioninsertkeysequence.lastLong());
     }
     return keynum;
   }
 
   public void doTransactionRead(DB db) {
+    doTransactionRead(db, null);
+  }
+
+  public void doTransactionRead(DB db, Object threadstate) {
+    ThreadState state = state(db, threadstate);
     // choose a random key
     long keynum = nextKeynum();
 
-    String keyname = buildKeyName(keynum);
+    String keyname = buildKeyName(keynum, state.key);
 
-    HashSet<String> fields = null;
+    Set<String> fields = chooseReadFields();
 
-    if (!readallfields) {
-      // read a random field
-      String fieldname = fieldnames.get(fieldchooser.nextValue().intValue());
-
-      fields = new HashSet<String>();
-      fields.add(fieldname);
-    } else if (dataintegrity) {
-      // pass the full field list if dataintegrity is on for verification
-      fields = new HashSet<String>(fieldnames);
-    }
-
-    HashMap<String, ByteIterator> cells = new HashMap<String, ByteIterator>();
+    HashMap<String, ByteIterator> cells = state.cells;
+    cells.clear();
     db.read(table, keyname, fields, cells);
 
     if (dataintegrity) {
@@ -688,34 +1060,37 @@ public class CoreWorkload extends Workload {
   }
 
   public void doTransactionReadModifyWrite(DB db) {
+    doTransactionReadModifyWrite(db, null);
+  }
+
+  public void doTransactionReadModifyWrite(DB db, Object threadstate) {
+    ThreadState state = state(db, threadstate);
     // choose a random key
     long keynum = nextKeynum();
 
-    String keyname = buildKeyName(keynum);
+    String keyname = buildKeyName(keynum, state.key);
 
-    HashSet<String> fields = null;
+    Set<String> fields = null;
 
     if (!readallfields) {
       // read a random field
-      String fieldname = fieldnames.get(fieldchooser.nextValue().intValue());
-
-      fields = new HashSet<String>();
-      fields.add(fieldname);
+      fields = singlefields.get((int) fieldchooser.nextLong());
     }
 
     HashMap<String, ByteIterator> values;
 
     if (writeallfields) {
       // new data for all the fields
-      values = buildValues(keyname);
+      values = buildValues(keyname, state);
     } else {
       // update a random field
-      values = buildSingleValue(keyname);
+      values = buildSingleValue(keyname, state);
     }
 
     // do the transaction
 
-    HashMap<String, ByteIterator> cells = new HashMap<String, ByteIterator>();
+    HashMap<String, ByteIterator> cells = state.cells;
+    cells.clear();
 
 
     long ist = measurements.getIntendedtartTimeNs();
@@ -735,71 +1110,223 @@ public class CoreWorkload extends Workload {
   }
 
   public void doTransactionScan(DB db) {
+    doTransactionScan(db, null);
+  }
+
+  public void doTransactionScan(DB db, Object threadstate) {
+    ThreadState state = state(db, threadstate);
     // choose a random key
     long keynum = nextKeynum();
 
-    String startkeyname = buildKeyName(keynum);
+    String startkeyname = buildKeyName(keynum, state.key);
 
     // choose a random scan length
-    int len = scanlength.nextValue().intValue();
+    int len = (int) scanlength.nextLong();
 
-    HashSet<String> fields = null;
+    Set<String> fields = null;
 
     if (!readallfields) {
       // read a random field
-      String fieldname = fieldnames.get(fieldchooser.nextValue().intValue());
-
-      fields = new HashSet<String>();
-      fields.add(fieldname);
+      fields = singlefields.get((int) fieldchooser.nextLong());
     }
 
-    db.scan(table, startkeyname, len, fields, new Vector<HashMap<String, ByteIterator>>());
+    state.rows.clear();
+    db.scan(table, startkeyname, len, fields, state.rows);
   }
 
   public void doTransactionUpdate(DB db) {
+    doTransactionUpdate(db, null);
+  }
+
+  public void doTransactionUpdate(DB db, Object threadstate) {
+    ThreadState state = state(db, threadstate);
     // choose a random key
     long keynum = nextKeynum();
 
-    String keyname = buildKeyName(keynum);
+    String keyname = buildKeyName(keynum, state.key);
 
     HashMap<String, ByteIterator> values;
 
     if (writeallfields) {
       // new data for all the fields
-      values = buildValues(keyname);
+      values = buildValues(keyname, state);
     } else {
       // update a random field
-      values = buildSingleValue(keyname);
+      values = buildSingleValue(keyname, state);
     }
 
     db.update(table, keyname, values);
   }
 
   public void doTransactionInsert(DB db) {
+    doTransactionInsert(db, null);
+  }
+
+  public void doTransactionInsert(DB db, Object threadstate) {
+    ThreadState state = state(db, threadstate);
+    long deletedkeynum = claimDeletedKeynum();
+    if (deletedkeynum >= 0) {
+      String dbkey = buildKeyName(deletedkeynum, state.key);
+      db.insert(table, dbkey, buildValues(dbkey, state));
+      return;
+    }
     // choose the next key
-    long keynum = transactioninsertkeysequence.nextValue();
+    final long keynum = transactioninsertkeysequence.nextLong();
 
     try {
-      String dbkey = buildKeyName(keynum);
+      String dbkey = buildKeyName(keynum, state.key);
 
-      HashMap<String, ByteIterator> values = buildValues(dbkey);
+      HashMap<String, ByteIterator> values = buildValues(dbkey, state);
       db.insert(table, dbkey, values);
     } finally {
-      transactioninsertkeysequence.acknowledge(keynum);
+      // readers may choose the key once the record is written, which an asynchronous DB does later
+      db.whenComplete(new Runnable() {
+        @Override
+        public void run() {
+          transactioninsertkeysequence.acknowledge(keynum);
+        }
+      });
     }
   }
 
+  public void doTransactionBatchRead(DB db, Object threadstate) {
+    ThreadState state = state(db, threadstate);
+    int size = (int) batchsize.nextLong();
+    state.keys.clear();
+    state.records.clear();
+    for (int i = 0; i < size; i++) {
+      ThreadState item = state.item(i);
+      state.keys.add(buildKeyName(nextKeynum(), item.key));
+      item.cells.clear();
+      state.records.add(item.cells);
+    }
+
+    Set<String> fields = chooseReadFields();
+
+    db.batchRead(table, state.keys, fields, state.records);
+
+    if (dataintegrity) {
+      for (int i = 0; i < size; i++) {
+        verifyRow(state.keys.get(i), state.item(i).cells);
+      }
+    }
+  }
+
+  public void doTransactionBatchUpdate(DB db, Object threadstate) {
+    ThreadState state = state(db, threadstate);
+    int size = (int) batchsize.nextLong();
+    state.keys.clear();
+    state.records.clear();
+    for (int i = 0; i < size; i++) {
+      ThreadState item = state.item(i);
+      String keyname = buildKeyName(nextKeynum(), item.key);
+      state.keys.add(keyname);
+      if (writeallfields) {
+        // new data for all the fields
+        state.records.add(buildValues(keyname, item));
+      } else {
+        // update a random field
+        state.records.add(buildSingleValue(keyname, item));
+      }
+    }
+
+    db.batchUpdate(table, state.keys, state.records);
+  }
+
+  public void doTransactionBatchInsert(DB db, Object threadstate) {
+    ThreadState state = state(db, threadstate);
+    int size = (int) batchsize.nextLong();
+    state.keys.clear();
+    state.records.clear();
+    final long[] keynums = new long[size];
+    int claimed = 0;
+    try {
+      for (int i = 0; i < size; i++) {
+        long keynum = claimDeletedKeynum();
+        if (keynum < 0) {
+          // choose the next key
+          keynum = transactioninsertkeysequence.nextLong();
+          keynums[claimed++] = keynum;
+        }
+        ThreadState item = state.item(i);
+        String dbkey = buildKeyName(keynum, item.key);
+        state.keys.add(dbkey);
+        state.records.add(buildValues(dbkey, item));
+      }
+      db.batchInsert(table, state.keys, state.records);
+    } finally {
+      final int acknowledged = claimed;
+      db.whenComplete(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < acknowledged; i++) {
+            transactioninsertkeysequence.acknowledge(keynums[i]);
+          }
+        }
+      });
+    }
+  }
+
+  public void doTransactionDelete(DB db) {
+    doTransactionDelete(db, null);
+  }
+
+  public void doTransactionDelete(DB db, Object threadstate) {
+    ThreadState state = state(db, threadstate);
+    // choose a random live key, and take it from the others
+    long keynum = nextKeynum();
+    if (livekeys != null) {
+      boolean deleted = livekeys.delete(keynum);
+      for (int attempt = 1; !deleted && attempt < LIVE_KEY_ATTEMPTS; attempt++) {
+        keynum = nextKeynum();
+        deleted = livekeys.delete(keynum);
+      }
+      if (!deleted) {
+        // every key tried was deleted already, so there may be none left to delete
+        measurements.reportStatus("DELETE", Status.NOT_FOUND);
+        return;
+      }
+    }
+
+    Status status = db.delete(table, buildKeyName(keynum, state.key));
+    if (livekeys != null && (status == null || !status.isOk())) {
+      // the record is still there, so it can be read and deleted again
+      livekeys.revive(keynum);
+    }
+  }
+
+  /**
+   * Take a deleted key to insert again, so that the keyspace stops growing once records are deleted
+   * as fast as they are inserted. The key is live from then on, though the insert may still be
+   * running when it is next read.
+   *
+   * @return The key, or -1 to insert a new one.
+   */
+  private long claimDeletedKeynum() {
+    if (livekeys == null) {
+      return -1;
+    }
+    long limit = transactioninsertkeysequence.lastLong() + 1;
+    for (int attempt = 0; attempt < LIVE_KEY_ATTEMPTS; attempt++) {
+      long keynum = livekeys.findDeleted((long) (Utils.random().nextDouble() * limit), limit);
+      if (keynum < 0 || livekeys.revive(keynum)) {
+        return keynum;
+      }
+    }
+    return -1;
+  }
+
   /**
    * Creates a weighted discrete values with database operations for a workload to perform.
    * Weights/proportions are read from the properties list and defaults are used
    * when values are not configured.
-   * Current operations are "READ", "UPDATE", "INSERT", "SCAN" and "READMODIFYWRITE".
+   * Current operations are READ, UPDATE, INSERT, SCAN, READMODIFYWRITE and DELETE.
    *
    * @param p The properties list to pull weights from.
    * @return A generator that can be used to determine the next operation to perform.
    * @throws IllegalArgumentException if the properties object was null.
    */
-  protected static DiscreteGenerator createOperationGenerator(final Properties p) {
+  protected static DiscreteGenerator<Operation> createOperationGenerator(final Properties p) {
     if (p == null) {
       throw new IllegalArgumentException("Properties object cannot be null");
     }
@@ -813,26 +1340,32 @@ public class CoreWorkload extends Workload {
         p.getProperty(SCAN_PROPORTION_PROPERTY, SCAN_PROPORTION_PROPERTY_DEFAULT));
     final double readmodifywriteproportion = Double.parseDouble(p.getProperty(
         READMODIFYWRITE_PROPORTION_PROPERTY, READMODIFYWRITE_PROPORTION_PROPERTY_DEFAULT));
+    final double deleteproportion = Double.parseDouble(
+        p.getProperty(DELETE_PROPORTION_PROPERTY, DELETE_PROPORTION_PROPERTY_DEFAULT));
 
-    final DiscreteGenerator operationchooser = new DiscreteGenerator();
+    final DiscreteGenerator<Operation> operationchooser = new DiscreteGenerator<>();
     if (readproportion > 0) {
-      operationchooser.addValue(readproportion, "READ");
+      operationchooser.addValue(readproportion, Operation.READ);
     }
 
     if (updateproportion > 0) {
-      operationchooser.addValue(updateproportion, "UPDATE");
+      operationchooser.addValue(updateproportion, Operation.UPDATE);
     }
 
     if (insertproportion > 0) {
-      operationchooser.addValue(insertproportion, "INSERT");
+      operationchooser.addValue(insertproportion, Operation.INSERT);
     }
 
     if (scanproportion > 0) {
-      operationchooser.addValue(scanproportion, "SCAN");
+      operationchooser.addValue(scanproportion, Operation.SCAN);
     }
 
     if (readmodifywriteproportion > 0) {
-      operationchooser.addValue(readmodifywriteproportion, "READMODIFYWRITE");
+      operationchooser.addValue(readmodifywriteproportion, Operation.READMODIFYWRITE);
+    }
+
+    if (deleteproportion > 0) {
+      operationchooser.addValue(deleteproportion, Operation.DELETE);
     }
     return operationchooser;
   }
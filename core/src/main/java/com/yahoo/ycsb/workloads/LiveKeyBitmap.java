@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.workloads;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Which keys of a keyspace are live, kept as a bitmap of the keys that were
+ * deleted, so that every key starts out live and the bitmap only takes memory
+ * where there are deletes: one bit per key, in pages of {@value #PAGE_KEYS}
+ * keys that are allocated on the first delete in them.
+ * <p>
+ * It is safe for concurrent use without locking, except to add a page. Each
+ * key changes state with a compare-and-set, so only one of the threads that
+ * delete or revive the same key at once succeeds.
+ */
+public final class LiveKeyBitmap {
+  private static final int PAGE_BITS = 16;
+
+  /**
+   * The number of keys a page of the bitmap covers.
+   */
+  public static final int PAGE_KEYS = 1 << PAGE_BITS;
+
+  private static final long PAGE_MASK = PAGE_KEYS - 1;
+
+  private static final class Page {
+    private final AtomicLongArray words = new AtomicLongArray(PAGE_KEYS / 64);
+    private final AtomicInteger deleted = new AtomicInteger();
+  }
+
+  // replaced rather than changed when a page is added, so readers need no lock
+  private volatile Page[] pages = new Page[0];
+  private final AtomicLong deleted = new AtomicLong();
+
+  /**
+   * @return Whether the key was not deleted, or was revived since.
+   */
+  public boolean isLive(long key) {
+    Page page = page(key, false);
+    return page == null || (page.words.get(word(key)) & bit(key)) == 0;
+  }
+
+  /**
+   * Mark a key deleted.
+   *
+   * @return False if it already was.
+   */
+  public boolean delete(long key) {
+    Page page = page(key, true);
+    int word = word(key);
+    long bit = bit(key);
+    while (true) {
+      long bits = page.words.get(word);
+      if ((bits & bit) != 0) {
+        return false;
+      }
+      if (page.words.compareAndSet(word, bits, bits | bit)) {
+        page.deleted.incrementAndGet();
+        deleted.incrementAndGet();
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Mark a deleted key live again.
+   *
+   * @return False if it was not deleted.
+   */
+  public boolean revive(long key) {
+    Page page = page(key, false);
+    if (page == null) {
+      return false;
+    }
+    int word = word(key);
+    long bit = bit(key);
+    while (true) {
+      long bits = page.words.get(word);
+      if ((bits & bit) == 0) {
+        return false;
+      }
+      if (page.words.compareAndSet(word, bits, bits & ~bit)) {
+        page.deleted.decrementAndGet();
+        deleted.decrementAndGet();
+        return true;
+      }
+    }
+  }
+
+  /**
+   * @return The number of keys that are deleted.
+   */
+  public long getDeleted() {
+    return deleted.get();
+  }
+
+  /**
+   * Find a deleted key, searching from a key up to a limit and then from 0.
+   *
+   * @param from The key to start from.
+   * @param limit The key to stop before.
+   * @return A deleted key below the limit, or -1 if there is none.
+   */
+  public long findDeleted(long from, long limit) {
+    if (deleted.get() == 0) {
+      return -1;
+    }
+    long found = find(from, limit);
+    return found >= 0 ? found : find(0, Math.min(from, limit));
+  }
+
+  private long find(long from, long limit) {
+    Page[] all = pages;
+    long key = from;
+    while (key < limit) {
+      int index = (int) (key >>> PAGE_BITS);
+      if (index >= all.length) {
+        return -1;
+      }
+      Page page = all[index];
+      if (page == null || page.deleted.get() == 0) {
+        key = (long) (index + 1) << PAGE_BITS;
+        continue;
+      }
+      long bits = page.words.get(word(key)) & (-1L << key);
+      if (bits != 0) {
+        long found = (key & ~63L) + Long.numberOfTrailingZeros(bits);
+        return found < limit ? found : -1;
+      }
+      key = (key | 63) + 1;
+    }
+    return -1;
+  }
+
+  private Page page(long key, boolean create) {
+    int index = (int) (key >>> PAGE_BITS);
+    Page[] all = pages;
+    if (index < all.length && all[index] != null) {
+      return all[index];
+    }
+    if (!create) {
+      return null;
+    }
+    synchronized (this) {
+      all = pages;
+      if (index >= all.length || all[index] == null) {
+        all = Arrays.copyOf(all, Math.max(index + 1, all.length));
+        all[index] = new Page();
+        pages = all;
+      }
+      return all[index];
+    }
+  }
+
+  private static int word(long key) {
+    return (int) ((key & PAGE_MASK) >>> 6);
+  }
+
+  private static long bit(long key) {
+    return 1L << key;
+  }
+}
@@ -41,17 +41,6 @@ import com.yahoo.ycsb.generator.UniformLongGenerator;
  */
 public class RestWorkload extends CoreWorkload {
 
-  /**
-   * The name of the property for the proportion of transactions that are
-   * delete.
-   */
-  public static final String DELETE_PROPORTION_PROPERTY = "deleteproportion";
-
-  /**
-   * The default proportion of transactions that are delete.
-   */
-  public static final String DELETE_PROPORTION_PROPERTY_DEFAULT = "0.00";
-
   /**
    * The name of the property for the file that holds the field length size for insert operations.
    */
@@ -109,7 +98,7 @@ public class RestWorkload extends CoreWorkload {
   private NumberGenerator deleteKeyChooser;
   private NumberGenerator updateKeyChooser;
   private NumberGenerator fieldlengthgenerator;
-  private DiscreteGenerator operationchooser;
+  private DiscreteGenerator<Operation> operationchooser;
 
   @Override
   public void init(Properties p) throws WorkloadException {
@@ -147,16 +136,12 @@ public class RestWorkload extends CoreWorkload {
     fieldlengthgenerator = getFieldLengthGenerator(p);
   }
 
-  public static DiscreteGenerator createOperationGenerator(final Properties p) {
-    // Re-using CoreWorkload method.
-    final DiscreteGenerator operationChooser = CoreWorkload.createOperationGenerator(p);
-    // Needs special handling for delete operations not supported in CoreWorkload.
-    double deleteproportion = Double
-        .parseDouble(p.getProperty(DELETE_PROPORTION_PROPERTY, DELETE_PROPORTION_PROPERTY_DEFAULT));
-    if (deleteproportion > 0) {
-      operationChooser.addValue(deleteproportion, "DELETE");
-    }
-    return operationChooser;
+  /**
+   * Deletes are chosen by {@link CoreWorkload#createOperationGenerator(Properties)} now, as any workload
+   * derived from CoreWorkload supports them.
+   */
+  public static DiscreteGenerator<Operation> createOperationGenerator(final Properties p) {
+    return CoreWorkload.createOperationGenerator(p);
   }
 
   private static NumberGenerator getKeyChooser(String requestDistrib, int recordCount, double zipfContant,
@@ -241,19 +226,19 @@ public class RestWorkload extends CoreWorkload {
 
   @Override
   public boolean doTransaction(DB db, Object threadstate) {
-    String operation = operationchooser.nextString();
+    Operation operation = operationchooser.nextValue();
     if (operation == null) {
       return false;
     }
 
     switch (operation) {
-    case "UPDATE":
+    case UPDATE:
       doTransactionUpdate(db);
       break;
-    case "INSERT":
+    case INSERT:
       doTransactionInsert(db);
       break;
-    case "DELETE":
+    case DELETE:
       doTransactionDelete(db);
       break;
     default:
@@ -0,0 +1,406 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.workloads;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.Client;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.StringByteIterator;
+import com.yahoo.ycsb.Utils;
+import com.yahoo.ycsb.Workload;
+import com.yahoo.ycsb.WorkloadException;
+import com.yahoo.ycsb.generator.DiscreteGenerator;
+import com.yahoo.ycsb.generator.UnixEpochTimestampGenerator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A time-series workload: many series, each a metric with a combination of
+ * tag values, that receive points at regular timestamps and are queried by
+ * time range, as a metrics or monitoring store would be.
+ * <p>
+ * Each point is a record whose key is the series followed by the timestamp,
+ * zero padded so that the points of a series sort by time, e.g.
+ * "metric2;tag0=1;tag1=3;0001483228860". Its fields are the "timestamp" and
+ * the "value". Points are written to the series in turn and each series gets
+ * increasing timestamps, starting at timeseries.starttime and spaced by
+ * timeseries.interval, as a {@link UnixEpochTimestampGenerator} would produce
+ * them. The load phase writes recordcount batches of points, the transaction
+ * phase goes on from there.
+ * <p>
+ * Operations:
+ * <UL>
+ * <LI>insert: write the next timeseries.batchsize points, as a batch if there
+ * is more than one
+ * <LI>read: read one point of a random series that was written already
+ * <LI>scan: query a random time range of timeseries.queryspan intervals of a
+ * random series, i.e. scan that many points from the start of the range. With
+ * timeseries.downsampling, the points are then rolled up into one value per
+ * that many intervals, as a dashboard would
+ * </ul>
+ * Some points can arrive late: a client thread holds them back and writes them
+ * after up to timeseries.latedelay of its later points, so that the store gets
+ * them out of order. Points still held back when the run ends are not written.
+ * <p>
+ * Properties to control the client:
+ * <UL>
+ * <LI><b>timeseries.metrics</b>: the number of metrics (default: 4)
+ * <LI><b>timeseries.tagcardinality</b>: the number of values of each tag, separated by commas. The series
+ * are every combination of a metric and the tag values (default: 4,4)
+ * <LI><b>timeseries.interval</b>: the time between the points of a series (default: 60)
+ * <LI><b>timeseries.timeunit</b>: the unit of the interval, one of {@link TimeUnit}. Timestamps are in that
+ * unit, or in seconds for units longer than that (default: seconds)
+ * <LI><b>timeseries.starttime</b>: the timestamp of the first point of every series (default:
+ * 2017-01-01T00:00:00Z)
+ * <LI><b>timeseries.batchsize</b>: the number of points an insert writes (default: 1)
+ * <LI><b>timeseries.lateproportion</b>: the proportion of points that arrive late (default: 0)
+ * <LI><b>timeseries.latedelay</b>: the most points of the same thread a late point is written after
+ * (default: 100)
+ * <LI><b>timeseries.queryspan</b>: the number of intervals a scan covers (default: 60)
+ * <LI><b>timeseries.downsampling</b>: the number of intervals that are rolled up into one value by a scan, or
+ * 0 to not roll up (default: 0)
+ * <LI><b>timeseries.downsamplingfunction</b>: how points are rolled up: avg, sum, min or max (default: avg)
+ * <LI><b>insertproportion</b>: the proportion of inserts (default: 0.8)
+ * <LI><b>readproportion</b>: the proportion of reads (default: 0.1)
+ * <LI><b>scanproportion</b>: the proportion of scans (default: 0.1)
+ * <LI><b>table</b>: the name of the table (default: usertable)
+ * </ul>
+ */
+public class TimeSeriesWorkload extends Workload {
+  public static final String METRICS_PROPERTY = "timeseries.metrics";
+  public static final String METRICS_PROPERTY_DEFAULT = "4";
+
+  public static final String TAG_CARDINALITY_PROPERTY = "timeseries.tagcardinality";
+  public static final String TAG_CARDINALITY_PROPERTY_DEFAULT = "4,4";
+
+  public static final String INTERVAL_PROPERTY = "timeseries.interval";
+  public static final String INTERVAL_PROPERTY_DEFAULT = "60";
+
+  public static final String TIME_UNIT_PROPERTY = "timeseries.timeunit";
+  public static final String TIME_UNIT_PROPERTY_DEFAULT = "seconds";
+
+  public static final String START_TIME_PROPERTY = "timeseries.starttime";
+
+  public static final String BATCH_SIZE_PROPERTY = "timeseries.batchsize";
+  public static final String BATCH_SIZE_PROPERTY_DEFAULT = "1";
+
+  public static final String LATE_PROPORTION_PROPERTY = "timeseries.lateproportion";
+  public static final String LATE_PROPORTION_PROPERTY_DEFAULT = "0";
+
+  public static final String LATE_DELAY_PROPERTY = "timeseries.latedelay";
+  public static final String LATE_DELAY_PROPERTY_DEFAULT = "100";
+
+  public static final String QUERY_SPAN_PROPERTY = "timeseries.queryspan";
+  public static final String QUERY_SPAN_PROPERTY_DEFAULT = "60";
+
+  public static final String DOWNSAMPLING_PROPERTY = "timeseries.downsampling";
+  public static final String DOWNSAMPLING_PROPERTY_DEFAULT = "0";
+
+  public static final String DOWNSAMPLING_FUNCTION_PROPERTY = "timeseries.downsamplingfunction";
+  public static final String DOWNSAMPLING_FUNCTION_PROPERTY_DEFAULT = "avg";
+
+  public static final String INSERT_PROPORTION_PROPERTY_DEFAULT = "0.8";
+  public static final String READ_PROPORTION_PROPERTY_DEFAULT = "0.1";
+  public static final String SCAN_PROPORTION_PROPERTY_DEFAULT = "0.1";
+
+  public static final String TIMESTAMP_FIELD = "timestamp";
+  public static final String VALUE_FIELD = "value";
+
+  // 2017-01-01T00:00:00Z
+  private static final long DEFAULT_START_SECONDS = 1483228800L;
+  // the digits of the largest long, to which timestamps are padded
+  private static final int TIMESTAMP_DIGITS = 19;
+
+  private String table;
+  private int metrics;
+  private int[] tagcardinality;
+  private long seriescount;
+  private long starttime;
+  private long interval;
+  private int batchsize;
+  private double lateproportion;
+  private int latedelay;
+  private int queryspan;
+  private int downsampling;
+  private String downsamplingfunction;
+  private DiscreteGenerator<Operation> operationchooser;
+
+  // the next point to write; point p is step p / seriescount of series p % seriescount
+  private AtomicLong points;
+
+  /**
+   * A point held back to arrive late: the point and the write of the thread it is due at.
+   */
+  private static final Comparator<long[]> BY_DUE = new Comparator<long[]>() {
+    @Override
+    public int compare(long[] a, long[] b) {
+      return Long.compare(a[1], b[1]);
+    }
+  };
+
+  private static final class ThreadState {
+    private final StringBuilder key = new StringBuilder();
+    private final PriorityQueue<long[]> late = new PriorityQueue<>(16, BY_DUE);
+    private final List<String> keys = new ArrayList<>();
+    private final List<Map<String, ByteIterator>> points = new ArrayList<>();
+    private long writes;
+  }
+
+  @Override
+  public void init(Properties p) throws WorkloadException {
+    table = p.getProperty(CoreWorkload.TABLENAME_PROPERTY, CoreWorkload.TABLENAME_PROPERTY_DEFAULT);
+    metrics = Integer.parseInt(p.getProperty(METRICS_PROPERTY, METRICS_PROPERTY_DEFAULT));
+    String[] cardinalities = p.getProperty(TAG_CARDINALITY_PROPERTY, TAG_CARDINALITY_PROPERTY_DEFAULT).split(",");
+    tagcardinality = new int[cardinalities.length];
+    seriescount = metrics;
+    for (int i = 0; i < cardinalities.length; i++) {
+      tagcardinality[i] = Integer.parseInt(cardinalities[i].trim());
+      seriescount *= tagcardinality[i];
+    }
+    if (seriescount < 1) {
+      throw new WorkloadException("There must be at least one metric and one value of each tag");
+    }
+
+    TimeUnit unit = TimeUnit.valueOf(p.getProperty(TIME_UNIT_PROPERTY, TIME_UNIT_PROPERTY_DEFAULT).toUpperCase());
+    // the generator counts in seconds for longer units
+    TimeUnit stampunit = unit.compareTo(TimeUnit.SECONDS) > 0 ? TimeUnit.SECONDS : unit;
+    long start = Long.parseLong(p.getProperty(START_TIME_PROPERTY,
+        String.valueOf(stampunit.convert(DEFAULT_START_SECONDS, TimeUnit.SECONDS))));
+    UnixEpochTimestampGenerator timestamps = new UnixEpochTimestampGenerator(
+        Long.parseLong(p.getProperty(INTERVAL_PROPERTY, INTERVAL_PROPERTY_DEFAULT)), unit, start);
+    starttime = timestamps.nextValue();
+    interval = timestamps.getOffset(1);
+    if (interval < 1) {
+      throw new WorkloadException(INTERVAL_PROPERTY + " must be positive");
+    }
+
+    batchsize = Integer.parseInt(p.getProperty(BATCH_SIZE_PROPERTY, BATCH_SIZE_PROPERTY_DEFAULT));
+    lateproportion = Double.parseDouble(p.getProperty(LATE_PROPORTION_PROPERTY, LATE_PROPORTION_PROPERTY_DEFAULT));
+    if (lateproportion < 0 || lateproportion >= 1) {
+      throw new WorkloadException(LATE_PROPORTION_PROPERTY + " must be at least 0 and below 1");
+    }
+    latedelay = Integer.parseInt(p.getProperty(LATE_DELAY_PROPERTY, LATE_DELAY_PROPERTY_DEFAULT));
+    queryspan = Integer.parseInt(p.getProperty(QUERY_SPAN_PROPERTY, QUERY_SPAN_PROPERTY_DEFAULT));
+    downsampling = Integer.parseInt(p.getProperty(DOWNSAMPLING_PROPERTY, DOWNSAMPLING_PROPERTY_DEFAULT));
+    downsamplingfunction = p.getProperty(DOWNSAMPLING_FUNCTION_PROPERTY, DOWNSAMPLING_FUNCTION_PROPERTY_DEFAULT);
+    if (!downsamplingfunction.matches("avg|sum|min|max")) {
+      throw new WorkloadException("Unknown downsampling function \"" + downsamplingfunction + "\"");
+    }
+    if (batchsize < 1 || latedelay < 1 || queryspan < 1 || downsampling < 0) {
+      throw new WorkloadException("The batch size, late delay and query span must be positive");
+    }
+
+    operationchooser = new DiscreteGenerator<>();
+    double insertproportion = Double.parseDouble(p.getProperty(CoreWorkload.INSERT_PROPORTION_PROPERTY,
+        INSERT_PROPORTION_PROPERTY_DEFAULT));
+    double readproportion = Double.parseDouble(p.getProperty(CoreWorkload.READ_PROPORTION_PROPERTY,
+        READ_PROPORTION_PROPERTY_DEFAULT));
+    double scanproportion = Double.parseDouble(p.getProperty(CoreWorkload.SCAN_PROPORTION_PROPERTY,
+        SCAN_PROPORTION_PROPERTY_DEFAULT));
+    if (insertproportion > 0) {
+      operationchooser.addValue(insertproportion, Operation.INSERT);
+    }
+    if (readproportion > 0) {
+      operationchooser.addValue(readproportion, Operation.READ);
+    }
+    if (scanproportion > 0) {
+      operationchooser.addValue(scanproportion, Operation.SCAN);
+    }
+
+    // the transaction phase appends to the points of the load phase
+    boolean dotransactions = Boolean.valueOf(p.getProperty(Client.DO_TRANSACTIONS_PROPERTY, "true"));
+    points = new AtomicLong(dotransactions
+        ? batchsize * Long.parseLong(p.getProperty(Client.RECORD_COUNT_PROPERTY, Client.DEFAULT_RECORD_COUNT)) : 0);
+  }
+
+  @Override
+  public Object initThread(Properties p, int mythreadid, int threadcount) throws WorkloadException {
+    return new ThreadState();
+  }
+
+  /**
+   * @return The key of a point.
+   */
+  String buildKeyName(long series, long step, StringBuilder key) {
+    key.setLength(0);
+    key.append("metric").append(series % metrics);
+    long rest = series / metrics;
+    for (int tag = 0; tag < tagcardinality.length; tag++) {
+      key.append(";tag").append(tag).append('=').append(rest % tagcardinality[tag]);
+      rest /= tagcardinality[tag];
+    }
+    key.append(';');
+    int digits = key.length();
+    key.append(timestamp(step));
+    for (int fill = TIMESTAMP_DIGITS - (key.length() - digits); fill > 0; fill--) {
+      key.insert(digits, '0');
+    }
+    return key.toString();
+  }
+
+  long timestamp(long step) {
+    return starttime + step * interval;
+  }
+
+  /**
+   * Take the next point to write: one held back that is due now, or a new one.
+   */
+  private long nextPoint(ThreadState state) {
+    state.writes++;
+    long[] due = state.late.peek();
+    if (due != null && due[1] <= state.writes) {
+      return state.late.poll()[0];
+    }
+    Random random = Utils.random();
+    long point = points.getAndIncrement();
+    while (lateproportion > 0 && random.nextDouble() < lateproportion) {
+      state.late.add(new long[]{point, state.writes + 1 + random.nextInt(latedelay)});
+      point = points.getAndIncrement();
+    }
+    return point;
+  }
+
+  /**
+   * @return The key of the next point to write, after adding its fields to the values.
+   */
+  private String buildPoint(ThreadState state, Map<String, ByteIterator> values) {
+    long point = nextPoint(state);
+    long step = point / seriescount;
+    values.put(TIMESTAMP_FIELD, new StringByteIterator(String.valueOf(timestamp(step))));
+    values.put(VALUE_FIELD, new StringByteIterator(String.valueOf(Utils.random().nextInt(100000) / 100.0)));
+    return buildKeyName(point % seriescount, step, state.key);
+  }
+
+  private boolean writeBatch(DB db, ThreadState state) {
+    if (batchsize == 1) {
+      HashMap<String, ByteIterator> values = new HashMap<>();
+      return db.insert(table, buildPoint(state, values), values).isOk();
+    }
+    state.keys.clear();
+    state.points.clear();
+    for (int i = 0; i < batchsize; i++) {
+      HashMap<String, ByteIterator> values = new HashMap<>();
+      state.keys.add(buildPoint(state, values));
+      state.points.add(values);
+    }
+    return db.batchInsert(table, state.keys, state.points).isOk();
+  }
+
+  @Override
+  public boolean doInsert(DB db, Object threadstate) {
+    return writeBatch(db, (ThreadState) threadstate);
+  }
+
+  @Override
+  public boolean doTransaction(DB db, Object threadstate) {
+    ThreadState state = (ThreadState) threadstate;
+    Operation operation = operationchooser.nextValue();
+    if (operation == null) {
+      return false;
+    }
+    switch (operation) {
+    case INSERT:
+      writeBatch(db, state);
+      break;
+    case READ:
+      doTransactionRead(db, state);
+      break;
+    default:
+      doTransactionScan(db, state);
+    }
+    return true;
+  }
+
+  /**
+   * @return The number of steps every series was written up to.
+   */
+  private long writtenSteps() {
+    return Math.max(1, points.get() / seriescount);
+  }
+
+  private void doTransactionRead(DB db, ThreadState state) {
+    Random random = Utils.random();
+    long series = (long) (random.nextDouble() * seriescount);
+    long step = (long) (random.nextDouble() * writtenSteps());
+    db.read(table, buildKeyName(series, step, state.key), null, new HashMap<String, ByteIterator>());
+  }
+
+  private void doTransactionScan(DB db, ThreadState state) {
+    Random random = Utils.random();
+    long series = (long) (random.nextDouble() * seriescount);
+    long steps = writtenSteps();
+    int span = (int) Math.min(queryspan, steps);
+    long first = (long) (random.nextDouble() * (steps - span + 1));
+    Vector<HashMap<String, ByteIterator>> rows = new Vector<>();
+    db.scan(table, buildKeyName(series, first, state.key), span, null, rows);
+    if (downsampling > 0) {
+      downsample(rows, timestamp(first), span);
+    }
+  }
+
+  /**
+   * Roll up the points of a time range into one value per downsampling intervals.
+   *
+   * @return The values, NaN where there were no points.
+   */
+  double[] downsample(Vector<HashMap<String, ByteIterator>> rows, long start, int span) {
+    double[] values = new double[(span + downsampling - 1) / downsampling];
+    int[] counts = new int[values.length];
+    for (HashMap<String, ByteIterator> row : rows) {
+      ByteIterator timestamp = row.get(TIMESTAMP_FIELD);
+      ByteIterator value = row.get(VALUE_FIELD);
+      if (timestamp == null || value == null) {
+        continue;
+      }
+      long bucket = (Long.parseLong(timestamp.toString()) - start) / interval / downsampling;
+      if (bucket < 0 || bucket >= values.length) {
+        continue;
+      }
+      int i = (int) bucket;
+      double v = Double.parseDouble(value.toString());
+      if (counts[i] == 0) {
+        values[i] = v;
+      } else if ("min".equals(downsamplingfunction)) {
+        values[i] = Math.min(values[i], v);
+      } else if ("max".equals(downsamplingfunction)) {
+        values[i] = Math.max(values[i], v);
+      } else {
+        values[i] += v;
+      }
+      counts[i]++;
+    }
+    for (int i = 0; i < values.length; i++) {
+      if (counts[i] == 0) {
+        values[i] = Double.NaN;
+      } else if ("avg".equals(downsamplingfunction)) {
+        values[i] /= counts[i];
+      }
+    }
+    return values;
+  }
+}
@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.workloads;
+
+import com.yahoo.ycsb.Workload.Operation;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A trace of operations, one per line, that is memory mapped rather than read
+ * onto the heap. Each line holds an operation, a key and optionally a size and
+ * a timestamp, separated by spaces, tabs or commas:
+ * <pre>
+ * READ user1234
+ * UPDATE user42 512 1490000000123
+ * </pre>
+ * The operation is one of {@link Operation}, in any case. The size is the
+ * number of bytes to write for inserts and updates, or the number of records
+ * for scans. Empty lines and lines starting with '#' are skipped. Only the
+ * offsets of the lines are kept in memory, eight bytes per record.
+ */
+final class TraceFile {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final Operation[] OPERATIONS = Operation.values();
+
+  // the file is mapped in chunks, as a single buffer can't be larger than 2 GB
+  private static final int CHUNK_BITS = 30;
+  private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+  private final String path;
+  private final MappedByteBuffer[] chunks;
+  private final long length;
+  private final long[] offsets;
+
+  /**
+   * One record of the trace, reused by a client thread for every record it reads.
+   */
+  static final class Record {
+    private byte[] scratch = new byte[64];
+    private Operation operation;
+    private String key;
+    private long size;
+    private long timestamp;
+
+    Operation getOperation() {
+      return operation;
+    }
+
+    String getKey() {
+      return key;
+    }
+
+    /**
+     * @return The size, or -1 if the record has none.
+     */
+    long getSize() {
+      return size;
+    }
+
+    /**
+     * @return The timestamp, or -1 if the record has none.
+     */
+    long getTimestamp() {
+      return timestamp;
+    }
+  }
+
+  /**
+   * Map the file and find the records in it.
+   */
+  TraceFile(String path) throws IOException {
+    this.path = path;
+    try (RandomAccessFile file = new RandomAccessFile(path, "r");
+         FileChannel channel = file.getChannel()) {
+      length = channel.size();
+      chunks = new MappedByteBuffer[(int) ((length + CHUNK_MASK) >>> CHUNK_BITS)];
+      for (int i = 0; i < chunks.length; i++) {
+        long start = (long) i << CHUNK_BITS;
+        chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_MASK + 1, length - start));
+      }
+    }
+    offsets = index();
+  }
+
+  private long[] index() {
+    long[] found = new long[1024];
+    int count = 0;
+    boolean lineStart = true;
+    for (long pos = 0; pos < length; pos++) {
+      byte b = byteAt(pos);
+      if (lineStart && b != '\n' && b != '\r' && b != '#') {
+        if (count == found.length) {
+          if (count == Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException(path + " holds too many records");
+          }
+          found = Arrays.copyOf(found, (int) Math.min(2L * count, Integer.MAX_VALUE - 8));
+        }
+        found[count++] = pos;
+      }
+      lineStart = b == '\n';
+    }
+    return Arrays.copyOf(found, count);
+  }
+
+  private byte byteAt(long pos) {
+    return chunks[(int) (pos >>> CHUNK_BITS)].get((int) (pos & CHUNK_MASK));
+  }
+
+  /**
+   * @return The number of records in the trace.
+   */
+  long size() {
+    return offsets.length;
+  }
+
+  /**
+   * Parse a record.
+   *
+   * @param index Which record, from 0.
+   * @param record Where to put it.
+   * @throws IllegalArgumentException If the record is malformed.
+   */
+  void read(long index, Record record) {
+    long pos = offsets[(int) index];
+    long end = pos;
+    while (end < length && byteAt(end) != '\n' && byteAt(end) != '\r') {
+      end++;
+    }
+
+    long start = skipSeparators(pos, end);
+    pos = skipToken(start, end);
+    record.operation = operation(start, pos);
+    if (record.operation == null) {
+      throw new IllegalArgumentException("unknown operation in record " + describe(index));
+    }
+
+    start = skipSeparators(pos, end);
+    pos = skipToken(start, end);
+    if (start == pos) {
+      throw new IllegalArgumentException("missing key in record " + describe(index));
+    }
+    int keyLength = (int) (pos - start);
+    if (record.scratch.length < keyLength) {
+      record.scratch = new byte[Math.max(keyLength, 2 * record.scratch.length)];
+    }
+    for (int i = 0; i < keyLength; i++) {
+      record.scratch[i] = byteAt(start + i);
+    }
+    record.key = new String(record.scratch, 0, keyLength, UTF_8);
+
+    start = skipSeparators(pos, end);
+    pos = skipToken(start, end);
+    record.size = number(start, pos, index);
+
+    start = skipSeparators(pos, end);
+    pos = skipToken(start, end);
+    record.timestamp = number(start, pos, index);
+  }
+
+  private String describe(long index) {
+    return (index + 1) + " of " + path;
+  }
+
+  private static boolean isSeparator(byte b) {
+    return b == ' ' || b == '\t' || b == ',';
+  }
+
+  private long skipSeparators(long pos, long end) {
+    while (pos < end && isSeparator(byteAt(pos))) {
+      pos++;
+    }
+    return pos;
+  }
+
+  private long skipToken(long pos, long end) {
+    while (pos < end && !isSeparator(byteAt(pos))) {
+      pos++;
+    }
+    return pos;
+  }
+
+  private Operation operation(long start, long end) {
+    for (Operation operation : OPERATIONS) {
+      String name = operation.name();
+      if (name.length() != end - start) {
+        continue;
+      }
+      int i = 0;
+      while (i < name.length() && Character.toUpperCase((char) byteAt(start + i)) == name.charAt(i)) {
+        i++;
+      }
+      if (i == name.length()) {
+        return operation;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return The number between start and end, or -1 if there is none.
+   */
+  private long number(long start, long end, long index) {
+    if (start == end) {
+      return -1;
+    }
+    long value = 0;
+    for (long pos = start; pos < end; pos++) {
+      int digit = byteAt(pos) - '0';
+      if (digit < 0 || digit > 9) {
+        throw new IllegalArgumentException("expected a number in record " + describe(index));
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+}
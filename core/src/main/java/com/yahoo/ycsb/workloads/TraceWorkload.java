@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.workloads;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.RandomByteIterator;
+import com.yahoo.ycsb.ValueSlab;
+import com.yahoo.ycsb.Workload;
+import com.yahoo.ycsb.WorkloadException;
+import com.yahoo.ycsb.measurements.Measurements;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a trace of operations, e.g. a production access log, in the order
+ * of the trace. See {@link TraceFile} for its format. The trace is memory
+ * mapped, so it may be much larger than the heap. The client threads take the
+ * next record of the trace in turn, without locking.
+ * <p>
+ * If the records have timestamps, the trace can be replayed with its original
+ * timing, or sped up or slowed down. Each operation then starts when it is due
+ * relative to the first one, and its intended latency (see
+ * "measurement.interval") is measured from then, so a store that falls behind
+ * the trace shows it in the latencies. There must be enough client threads to
+ * have as many operations outstanding as the trace does.
+ * <p>
+ * The load phase inserts the key of every record, whatever its operation.
+ * <p>
+ * Properties to control the client:
+ * <UL>
+ * <LI><b>trace.file</b>: the trace to replay (required)
+ * <LI><b>trace.speed</b>: how much faster than the trace's timestamps to replay it, e.g. 1 for the original
+ * timing or 2 for twice as fast. 0 replays as fast as the threads can (default: 0)
+ * <LI><b>trace.timeunit</b>: the unit of the timestamps, one of {@link TimeUnit} (default: milliseconds)
+ * <LI><b>trace.loop</b>: whether to start over once the trace is done, rather than end the run. Each pass
+ * starts where the previous one ended in time (default: false)
+ * <LI><b>table</b>: the name of the table (default: usertable)
+ * <LI><b>fieldlength</b>: the number of bytes to write for records without a size (default: 100)
+ * <LI><b>valuegenerator</b>: how values are generated, as for {@link CoreWorkload} (default: random)
+ * </ul>
+ * Values are written to a single field, "field0", and reads and scans read all fields.
+ */
+public class TraceWorkload extends Workload {
+  public static final String FILE_PROPERTY = "trace.file";
+
+  public static final String SPEED_PROPERTY = "trace.speed";
+  public static final String SPEED_PROPERTY_DEFAULT = "0";
+
+  public static final String TIME_UNIT_PROPERTY = "trace.timeunit";
+  public static final String TIME_UNIT_PROPERTY_DEFAULT = "milliseconds";
+
+  public static final String LOOP_PROPERTY = "trace.loop";
+  public static final String LOOP_PROPERTY_DEFAULT = "false";
+
+  private static final String FIELD = "field0";
+
+  // how long to wait for a record before checking whether the run was stopped
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final Measurements measurements = Measurements.getMeasurements();
+  private final AtomicLong next = new AtomicLong();
+  private final AtomicLong startNanos = new AtomicLong(Long.MIN_VALUE);
+
+  private TraceFile trace;
+  private String table;
+  private long defaultSize;
+  private ValueSlab valueslab;
+  private boolean loop;
+  // nanoseconds per unit of the timestamps, divided by the speed, or 0 to not wait for them
+  private double nanosPerTick;
+  private long firstTimestamp;
+  private long duration;
+
+  /**
+   * The record a client thread reuses from one operation to the next.
+   */
+  private static final class ThreadState {
+    private final TraceFile.Record record = new TraceFile.Record();
+    // the pass over the trace the record belongs to
+    private long pass;
+  }
+
+  @Override
+  public void init(Properties p) throws WorkloadException {
+    String file = p.getProperty(FILE_PROPERTY);
+    if (file == null) {
+      throw new WorkloadException("Missing the " + FILE_PROPERTY + " property");
+    }
+    try {
+      trace = new TraceFile(file);
+    } catch (IOException | IllegalArgumentException e) {
+      throw new WorkloadException("Could not read the trace " + file + ": " + e.getMessage(), e);
+    }
+    if (trace.size() == 0) {
+      throw new WorkloadException("The trace " + file + " holds no records");
+    }
+
+    table = p.getProperty(CoreWorkload.TABLENAME_PROPERTY, CoreWorkload.TABLENAME_PROPERTY_DEFAULT);
+    defaultSize = Long.parseLong(p.getProperty(CoreWorkload.FIELD_LENGTH_PROPERTY,
+        CoreWorkload.FIELD_LENGTH_PROPERTY_DEFAULT));
+    valueslab = CoreWorkload.getValueSlab(p);
+    loop = Boolean.parseBoolean(p.getProperty(LOOP_PROPERTY, LOOP_PROPERTY_DEFAULT));
+
+    double speed = Double.parseDouble(p.getProperty(SPEED_PROPERTY, SPEED_PROPERTY_DEFAULT));
+    if (speed > 0) {
+      TimeUnit unit = TimeUnit.valueOf(p.getProperty(TIME_UNIT_PROPERTY, TIME_UNIT_PROPERTY_DEFAULT).toUpperCase());
+      nanosPerTick = unit.toNanos(1) / speed;
+      TraceFile.Record record = new TraceFile.Record();
+      try {
+        trace.read(0, record);
+        firstTimestamp = record.getTimestamp();
+        trace.read(trace.size() - 1, record);
+        duration = record.getTimestamp() - firstTimestamp;
+      } catch (IllegalArgumentException e) {
+        throw new WorkloadException(e.getMessage(), e);
+      }
+      if (firstTimestamp < 0) {
+        throw new WorkloadException("The trace " + file + " has no timestamps to replay it at " + SPEED_PROPERTY);
+      }
+    }
+  }
+
+  @Override
+  public Object initThread(Properties p, int mythreadid, int threadcount) throws WorkloadException {
+    return new ThreadState();
+  }
+
+  /**
+   * Take the next record of the trace.
+   *
+   * @return False if the trace is done.
+   */
+  private boolean claim(ThreadState state) {
+    while (true) {
+      long index = next.getAndIncrement();
+      state.pass = index / trace.size();
+      if (state.pass > 0 && !loop) {
+        return false;
+      }
+      try {
+        trace.read(index % trace.size(), state.record);
+        return true;
+      } catch (IllegalArgumentException e) {
+        System.err.println("Skipping a record of the trace: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * With the original timing, wait until the record is due.
+   */
+  private void awaitRecord(ThreadState state) {
+    long timestamp = state.record.getTimestamp();
+    if (nanosPerTick == 0 || timestamp < 0) {
+      return;
+    }
+    startNanos.compareAndSet(Long.MIN_VALUE, System.nanoTime());
+    long due = startNanos.get()
+        + (long) ((timestamp - firstTimestamp + state.pass * duration) * nanosPerTick);
+    long now = System.nanoTime();
+    while (now < due && !isStopRequested()) {
+      LockSupport.parkNanos(Math.min(due - now, MAX_PARK_NANOS));
+      now = System.nanoTime();
+    }
+    measurements.setIntendedStartTimeNs(due);
+  }
+
+  private HashMap<String, ByteIterator> buildValues(ThreadState state) {
+    long size = state.record.getSize() < 0 ? defaultSize : state.record.getSize();
+    HashMap<String, ByteIterator> values = new HashMap<>();
+    values.put(FIELD, valueslab == null ? new RandomByteIterator(size) : valueslab.slice(size));
+    return values;
+  }
+
+  @Override
+  public boolean doInsert(DB db, Object threadstate) {
+    ThreadState state = (ThreadState) threadstate;
+    if (!claim(state)) {
+      return false;
+    }
+    return db.insert(table, state.record.getKey(), buildValues(state)).isOk();
+  }
+
+  @Override
+  public boolean doTransaction(DB db, Object threadstate) {
+    ThreadState state = (ThreadState) threadstate;
+    if (!claim(state)) {
+      return false;
+    }
+    awaitRecord(state);
+
+    String key = state.record.getKey();
+    switch (state.record.getOperation()) {
+    case READ:
+      db.read(table, key, null, new HashMap<String, ByteIterator>());
+      break;
+    case UPDATE:
+      db.update(table, key, buildValues(state));
+      break;
+    case INSERT:
+      db.insert(table, key, buildValues(state));
+      break;
+    case SCAN:
+      db.scan(table, key, (int) Math.max(1, state.record.getSize()), null,
+          new Vector<HashMap<String, ByteIterator>>());
+      break;
+    case DELETE:
+      db.delete(table, key);
+      break;
+    default:
+      db.read(table, key, null, new HashMap<String, ByteIterator>());
+      db.update(table, key, buildValues(state));
+    }
+    return true;
+  }
+}
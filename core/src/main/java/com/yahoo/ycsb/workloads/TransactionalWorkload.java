@@ -0,0 +1,202 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.workloads;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.Utils;
+import com.yahoo.ycsb.WorkloadException;
+import com.yahoo.ycsb.measurements.Measurements;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A workload of multi-key read-write transactions, for stores whose binding
+ * implements {@link DB#begin()}, {@link DB#commit()} and {@link DB#abort()}.
+ * The records are loaded as by {@link CoreWorkload}, whose properties for the
+ * records, the request distribution and the fields to read and write apply.
+ * <p>
+ * Every operation is a transaction: it reads transaction.keys distinct
+ * records, updating some of them right after reading them, and commits. A
+ * transaction that fails, e.g. because it conflicted with another one, is
+ * aborted and tried again, up to transaction.retries times. To make
+ * transactions contend, some of their keys can be taken from a small hot set
+ * of keys that every transaction shares.
+ * <p>
+ * Besides the operations, which the DB measures as usual along with BEGIN,
+ * COMMIT and ABORT, each transaction is measured as TRANSACTION, from its
+ * first begin to its last commit, with its final result. Each attempt that is
+ * retried is measured as TRANSACTION-RETRY. An attempt is aborted either by
+ * ABORT, once one of its operations failed, or by the binding when its COMMIT
+ * fails, so the abort rate is the count of ABORT plus the COMMIT operations
+ * that didn't return OK, and the retry rate the count of TRANSACTION-RETRY,
+ * both relative to TRANSACTION.
+ * <p>
+ * Properties to control the client:
+ * <UL>
+ * <LI><b>transaction.keys</b>: the number of records a transaction reads (default: 4)
+ * <LI><b>transaction.writeproportion</b>: the proportion of the records of a transaction it updates
+ * (default: 0.5)
+ * <LI><b>transaction.hotkeys</b>: the number of records in the hot set, the first ones loaded, or 0 for
+ * none (default: 0)
+ * <LI><b>transaction.hotproportion</b>: the proportion of the keys of a transaction that are taken from
+ * the hot set (default: 0.5)
+ * <LI><b>transaction.retries</b>: how many times to retry a failed transaction (default: 3)
+ * <LI><b>transaction.backoff</b>: the mean time in milliseconds to wait before the first retry, doubling
+ * for every further one, or 0 to retry at once (default: 1)
+ * </ul>
+ */
+public class TransactionalWorkload extends CoreWorkload {
+  public static final String KEYS_PROPERTY = "transaction.keys";
+  public static final String KEYS_PROPERTY_DEFAULT = "4";
+
+  public static final String WRITE_PROPORTION_PROPERTY = "transaction.writeproportion";
+  public static final String WRITE_PROPORTION_PROPERTY_DEFAULT = "0.5";
+
+  public static final String HOT_KEYS_PROPERTY = "transaction.hotkeys";
+  public static final String HOT_KEYS_PROPERTY_DEFAULT = "0";
+
+  public static final String HOT_PROPORTION_PROPERTY = "transaction.hotproportion";
+  public static final String HOT_PROPORTION_PROPERTY_DEFAULT = "0.5";
+
+  public static final String RETRIES_PROPERTY = "transaction.retries";
+  public static final String RETRIES_PROPERTY_DEFAULT = "3";
+
+  public static final String BACKOFF_PROPERTY = "transaction.backoff";
+  public static final String BACKOFF_PROPERTY_DEFAULT = "1";
+
+  // how many keys to draw to find one the transaction does not have yet
+  private static final int DISTINCT_KEY_ATTEMPTS = 100;
+
+  private final Measurements measurements = Measurements.getMeasurements();
+
+  private int keys;
+  private double writeproportion;
+  private int hotkeys;
+  private double hotproportion;
+  private int retries;
+  private long backoffnanos;
+
+  @Override
+  public void init(Properties p) throws WorkloadException {
+    super.init(p);
+    keys = Integer.parseInt(p.getProperty(KEYS_PROPERTY, KEYS_PROPERTY_DEFAULT));
+    writeproportion = Double.parseDouble(p.getProperty(WRITE_PROPORTION_PROPERTY, WRITE_PROPORTION_PROPERTY_DEFAULT));
+    hotkeys = Integer.parseInt(p.getProperty(HOT_KEYS_PROPERTY, HOT_KEYS_PROPERTY_DEFAULT));
+    hotproportion = Double.parseDouble(p.getProperty(HOT_PROPORTION_PROPERTY, HOT_PROPORTION_PROPERTY_DEFAULT));
+    retries = Integer.parseInt(p.getProperty(RETRIES_PROPERTY, RETRIES_PROPERTY_DEFAULT));
+    backoffnanos = (long) (Double.parseDouble(p.getProperty(BACKOFF_PROPERTY, BACKOFF_PROPERTY_DEFAULT))
+        * TimeUnit.MILLISECONDS.toNanos(1));
+    if (keys < 1) {
+      throw new WorkloadException(KEYS_PROPERTY + " must be at least 1");
+    }
+    if (hotkeys < 0 || retries < 0 || backoffnanos < 0) {
+      throw new WorkloadException("The hot keys, retries and backoff of transactions can't be negative");
+    }
+  }
+
+  /**
+   * @return The keys of a transaction, in the order it accesses them.
+   */
+  List<String> chooseKeys() {
+    Random random = Utils.random();
+    List<String> chosen = new ArrayList<>(keys);
+    for (int i = 0; i < keys; i++) {
+      boolean hot = hotkeys > 0 && random.nextDouble() < hotproportion;
+      String key = null;
+      for (int attempt = 0; attempt < DISTINCT_KEY_ATTEMPTS && (key == null || chosen.contains(key)); attempt++) {
+        key = buildKeyName(hot ? random.nextInt(hotkeys) : nextKeynum());
+      }
+      chosen.add(key);
+    }
+    return chosen;
+  }
+
+  /**
+   * Run one transaction, retrying it if it fails.
+   */
+  @Override
+  public boolean doTransaction(DB db, Object threadstate) {
+    List<String> chosen = chooseKeys();
+    Random random = Utils.random();
+    boolean[] writes = new boolean[chosen.size()];
+    for (int i = 0; i < writes.length; i++) {
+      writes[i] = random.nextDouble() < writeproportion;
+    }
+
+    long ist = measurements.getIntendedtartTimeNs();
+    long st = System.nanoTime();
+    Status status;
+    for (int attempt = 0;; attempt++) {
+      long ast = System.nanoTime();
+      status = attempt(db, chosen, writes);
+      if (status.isOk() || attempt == retries || isStopRequested()) {
+        break;
+      }
+      measurements.measure("TRANSACTION-RETRY", (int) ((System.nanoTime() - ast) / 1000));
+      backoff(attempt);
+    }
+    long en = System.nanoTime();
+    String name = status.isOk() ? "TRANSACTION" : "TRANSACTION-FAILED";
+    measurements.measure(name, (int) ((en - st) / 1000));
+    measurements.measureIntended(name, (int) ((en - ist) / 1000));
+    measurements.reportStatus("TRANSACTION", status);
+    return true;
+  }
+
+  /**
+   * @return The result of the commit, or of the operation that failed.
+   */
+  private Status attempt(DB db, List<String> chosen, boolean[] writes) {
+    Status status = db.begin();
+    if (!status.isOk()) {
+      return status;
+    }
+    for (int i = 0; i < chosen.size(); i++) {
+      String key = chosen.get(i);
+      status = db.read(table, key, chooseReadFields(), new HashMap<String, ByteIterator>());
+      if (status.isOk() && writes[i]) {
+        status = db.update(table, key, buildUpdateValues(key));
+      }
+      if (!status.isOk()) {
+        db.abort();
+        return status;
+      }
+    }
+    return db.commit();
+  }
+
+  /**
+   * Wait a random time, on average twice as long after each attempt, so that conflicting
+   * transactions don't retry in lockstep.
+   */
+  private void backoff(int attempt) {
+    if (backoffnanos == 0) {
+      return;
+    }
+    double mean = backoffnanos * Math.pow(2, attempt);
+    LockSupport.parkNanos((long) (2 * mean * Utils.random().nextDouble()));
+  }
+}
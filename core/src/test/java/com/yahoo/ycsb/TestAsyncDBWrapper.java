@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.htrace.core.HTraceConfiguration;
+import org.apache.htrace.core.Tracer;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.yahoo.ycsb.measurements.Measurements;
+
+/**
+ * Tests for {@link AsyncDBWrapper}.
+ */
+public class TestAsyncDBWrapper {
+
+  /** An AsyncDB that never completes operations on its own. */
+  static class PendingDB extends AsyncDB {
+    final ConcurrentLinkedQueue<StatusFuture> pending = new ConcurrentLinkedQueue<>();
+
+    private StatusFuture dispatch() {
+      StatusFuture future = new StatusFuture();
+      pending.add(future);
+      return future;
+    }
+
+    void completeOne() {
+      pending.poll().complete(Status.OK);
+    }
+
+    @Override
+    public StatusFuture readAsync(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+      return dispatch();
+    }
+
+    @Override
+    public StatusFuture scanAsync(String table, String startkey, int recordcount, Set<String> fields,
+                                  Vector<HashMap<String, ByteIterator>> result) {
+      return dispatch();
+    }
+
+    @Override
+    public StatusFuture updateAsync(String table, String key, Map<String, ByteIterator> values) {
+      return dispatch();
+    }
+
+    @Override
+    public StatusFuture insertAsync(String table, String key, Map<String, ByteIterator> values) {
+      return dispatch();
+    }
+
+    @Override
+    public StatusFuture deleteAsync(String table, String key) {
+      return StatusFuture.completed(Status.NOT_FOUND);
+    }
+  }
+
+  private final Tracer tracer = new Tracer.Builder("test").conf(HTraceConfiguration.EMPTY).build();
+
+  @BeforeClass
+  public void setUp() {
+    Measurements.setProperties(new Properties());
+  }
+
+  @Test
+  public void completedOperationsReturnTheirStatus() {
+    AsyncDBWrapper wrapper = new AsyncDBWrapper(new PendingDB(), tracer, 4);
+    assertSame(wrapper.delete("t", "k"), Status.NOT_FOUND);
+    assertEquals(wrapper.getOutstanding(), 0);
+  }
+
+  @Test
+  public void windowBoundsOutstandingOperations() throws Exception {
+    final PendingDB db = new PendingDB();
+    final AsyncDBWrapper wrapper = new AsyncDBWrapper(db, tracer, 2);
+
+    assertSame(wrapper.read("t", "k1", null, new HashMap<String, ByteIterator>()), Status.BATCHED_OK);
+    assertSame(wrapper.update("t", "k2", new HashMap<String, ByteIterator>()), Status.BATCHED_OK);
+    assertEquals(wrapper.getOutstanding(), 2);
+
+    Thread third = new Thread() {
+      @Override
+      public void run() {
+        wrapper.insert("t", "k3", new HashMap<String, ByteIterator>());
+      }
+    };
+    third.start();
+    third.join(TimeUnit.MILLISECONDS.toMillis(200));
+    assertTrue(third.isAlive(), "a full window should block further dispatches");
+
+    db.completeOne();
+    third.join(TimeUnit.SECONDS.toMillis(10));
+    assertFalse(third.isAlive());
+    assertEquals(wrapper.getOutstanding(), 2);
+  }
+
+  @Test
+  public void cleanupWaitsForOutstandingOperations() throws Exception {
+    final PendingDB db = new PendingDB();
+    final AsyncDBWrapper wrapper = new AsyncDBWrapper(db, tracer, 3);
+    wrapper.read("t", "k1", null, new HashMap<String, ByteIterator>());
+    wrapper.read("t", "k2", null, new HashMap<String, ByteIterator>());
+
+    Thread cleanup = new Thread() {
+      @Override
+      public void run() {
+        try {
+          wrapper.cleanup();
+        } catch (DBException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    cleanup.start();
+    cleanup.join(200);
+    assertTrue(cleanup.isAlive());
+
+    db.completeOne();
+    db.completeOne();
+    cleanup.join(TimeUnit.SECONDS.toMillis(10));
+    assertFalse(cleanup.isAlive());
+    assertEquals(wrapper.getOutstanding(), 0);
+  }
+
+  @Test
+  public void batchesAreDispatchedRecordByRecord() {
+    PendingDB db = new PendingDB();
+    AsyncDBWrapper wrapper = new AsyncDBWrapper(db, tracer, 4);
+    List<Map<String, ByteIterator>> values = Arrays.<Map<String, ByteIterator>>asList(
+        new HashMap<String, ByteIterator>(), new HashMap<String, ByteIterator>());
+    assertSame(wrapper.batchUpdate("t", Arrays.asList("k1", "k2"), values), Status.BATCHED_OK);
+    assertEquals(wrapper.getOutstanding(), 2);
+    db.completeOne();
+    db.completeOne();
+    assertEquals(wrapper.getOutstanding(), 0);
+  }
+
+  @Test
+  public void actionsWaitForTheLastCall() {
+    PendingDB db = new PendingDB();
+    AsyncDBWrapper wrapper = new AsyncDBWrapper(db, tracer, 4);
+    final AtomicInteger done = new AtomicInteger();
+    Runnable count = new Runnable() {
+      @Override
+      public void run() {
+        done.incrementAndGet();
+      }
+    };
+    wrapper.whenComplete(count);
+    assertEquals(done.get(), 1, "with nothing in flight the action runs right away");
+
+    wrapper.insert("t", "k1", new HashMap<String, ByteIterator>());
+    wrapper.insert("t", "k2", new HashMap<String, ByteIterator>());
+    wrapper.whenComplete(count);
+    db.completeOne();
+    assertEquals(done.get(), 1, "the action doesn't wait for earlier calls");
+    wrapper.insert("t", "k3", new HashMap<String, ByteIterator>());
+    db.completeOne();
+    assertEquals(done.get(), 2, "the action doesn't wait for later calls");
+
+    List<Map<String, ByteIterator>> values = Arrays.<Map<String, ByteIterator>>asList(
+        new HashMap<String, ByteIterator>(), new HashMap<String, ByteIterator>());
+    wrapper.batchInsert("t", Arrays.asList("k4", "k5"), values);
+    wrapper.whenComplete(count);
+    db.completeOne();
+    db.completeOne();
+    assertEquals(done.get(), 2, "the action waits for every record of a batch");
+    db.completeOne();
+    assertEquals(done.get(), 3);
+  }
+}
@@ -17,6 +17,10 @@
 
 package com.yahoo.ycsb;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
 import org.testng.annotations.Test;
 import static org.testng.AssertJUnit.*;
 
@@ -36,4 +40,62 @@ public class TestByteIterator {
     assertFalse(itor.hasNext());
     assertEquals(0, itor.bytesLeft());
   }
+
+  @Test
+  public void testSlabByteIterator() {
+    for (boolean offheap : new boolean[]{false, true}) {
+      ValueSlab slab = new ValueSlab(1000, offheap);
+      SlabByteIterator itor = slab.slice(100);
+      assertEquals(100, itor.bytesLeft());
+      byte[] bytes = itor.toArray();
+      assertEquals(100, bytes.length);
+      assertFalse(itor.hasNext());
+      for (byte b : bytes) {
+        assertTrue(b >= ' ' && b < 127);
+      }
+
+      itor.reset();
+      ByteBuffer buffer = itor.toByteBuffer();
+      assertTrue(buffer.isReadOnly());
+      assertEquals(0, itor.bytesLeft());
+      byte[] viewed = new byte[buffer.remaining()];
+      buffer.get(viewed);
+      assertTrue(Arrays.equals(bytes, viewed));
+
+      // longer than the slab, so it wraps around
+      itor.reset(2500);
+      assertEquals(2500, itor.toString().length());
+      itor.reset();
+      assertEquals(2500, itor.toByteBuffer().remaining());
+    }
+  }
+
+  @Test
+  public void testCompressibleSlab() {
+    assertEquals(0.3, compressed(new ValueSlab(1 << 20, false, 0.3, ValueSlab.PRINTABLE)), 0.05);
+    assertTrue(compressed(new ValueSlab(1 << 20, false, 1, ValueSlab.PRINTABLE)) > 0.75);
+    // fewer characters leave less for an entropy coder to find
+    assertTrue(compressed(new ValueSlab(1 << 20, false, 1, 4)) < 0.4);
+  }
+
+  private static double compressed(ValueSlab slab) {
+    byte[] value = slab.slice(4096).toArray();
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    deflater.setInput(value);
+    deflater.finish();
+    int size = deflater.deflate(new byte[2 * value.length]);
+    deflater.end();
+    return size / (double) value.length;
+  }
+
+  @Test
+  public void testByteArrayByteIteratorBuffer() {
+    byte[] bytes = "0123456789".getBytes();
+    ByteIterator itor = new ByteArrayByteIterator(bytes, 2, 5);
+    itor.nextByte();
+    ByteBuffer buffer = itor.toByteBuffer();
+    assertEquals(4, buffer.remaining());
+    assertEquals('3', buffer.get(0));
+    assertFalse(itor.hasNext());
+  }
 }
@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Properties;
+
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link ConcurrencySweep}.
+ */
+public class TestConcurrencySweep {
+
+  @Test
+  public void threadCounts() {
+    assertEquals(ConcurrencySweep.parseThreads("1:256"), Arrays.asList(1, 2, 4, 8, 16, 32, 64, 128, 256));
+    assertEquals(ConcurrencySweep.parseThreads("1:6, 12"), Arrays.asList(1, 2, 4, 6, 12));
+    assertEquals(ConcurrencySweep.parseThreads("3"), Arrays.asList(3));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void noThreads() {
+    ConcurrencySweep.parseThreads("0:4");
+  }
+
+  @Test
+  public void stepsForEachThreadCountAndTarget() {
+    Properties props = new Properties();
+    props.setProperty(ConcurrencySweep.THREADS_PROPERTY, "1,2");
+    props.setProperty(ConcurrencySweep.TARGETS_PROPERTY, "100,0");
+    ConcurrencySweep sweep = new ConcurrencySweep(props);
+    assertEquals(sweep.getSteps().size(), 4);
+    assertEquals(sweep.getSteps().get(0).getName(), "1threads@100");
+    assertEquals(sweep.getSteps().get(3).getName(), "2threads");
+  }
+
+  @Test
+  public void sweepRecordsTheCurve() throws IOException {
+    Properties props = new Properties();
+    props.setProperty(Client.WORKLOAD_PROPERTY, "com.yahoo.ycsb.workloads.CoreWorkload");
+    props.setProperty(Client.DB_PROPERTY, "com.yahoo.ycsb.BasicDB");
+    props.setProperty(BasicDB.VERBOSE, "false");
+    props.setProperty(Client.RECORD_COUNT_PROPERTY, "100");
+    props.setProperty(Client.OPERATION_COUNT_PROPERTY, "200");
+    props.setProperty(ConcurrencySweep.THREADS_PROPERTY, "1:2");
+
+    ConcurrencySweep sweep = new ConcurrencySweep(props);
+    sweep.run(new MeasurementsExporter() {
+      @Override
+      public void write(String metric, String measurement, int i) {
+      }
+
+      @Override
+      public void write(String metric, String measurement, long i) {
+      }
+
+      @Override
+      public void write(String metric, String measurement, double d) {
+      }
+
+      @Override
+      public void close() {
+      }
+    });
+
+    assertEquals(sweep.getSteps().size(), 2);
+    for (ConcurrencySweep.Step step : sweep.getSteps()) {
+      assertTrue(step.getThroughput() > 0);
+      assertTrue(step.getLatencies().containsKey("READ"));
+    }
+
+    ByteArrayOutputStream json = new ByteArrayOutputStream();
+    sweep.writeJson(json);
+    String curve = json.toString("UTF-8");
+    assertTrue(curve.contains("\"threads\" : 2"), curve);
+    assertTrue(curve.contains("\"READ\""), curve);
+  }
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import com.yahoo.ycsb.workloads.CoreWorkload;
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link Coordinator} and {@link Worker}.
+ */
+public class TestCoordinator {
+
+  @Test
+  public void loadIsSplitIntoKeyRanges() throws IOException {
+    Properties props = new Properties();
+    props.setProperty(Client.DO_TRANSACTIONS_PROPERTY, "false");
+    props.setProperty(Client.RECORD_COUNT_PROPERTY, "1000");
+    props.setProperty(Workload.INSERT_START_PROPERTY, "10");
+    props.setProperty(Client.TARGET_PROPERTY, "300");
+    props.setProperty(Client.EXPORT_FILE_PROPERTY, "out.txt");
+    props.setProperty(Coordinator.WORKERS_PROPERTY, "3");
+
+    long next = 10;
+    for (int i = 0; i < 3; i++) {
+      Properties part = Coordinator.partition(props, i, 3);
+      assertEquals(Long.parseLong(part.getProperty(Workload.INSERT_START_PROPERTY)), next);
+      long count = Long.parseLong(part.getProperty(Client.INSERT_COUNT_PROPERTY));
+      assertEquals(count, 330);
+      next += count;
+      assertEquals(ThroughputProfile.create(part).getTarget(0), 100.0, 0.001);
+      assertEquals(part.getProperty(Measurements.MEASUREMENT_TYPE_PROPERTY), "hdrhistogram");
+      assertNull(part.getProperty(Client.EXPORT_FILE_PROPERTY));
+      assertNull(part.getProperty(Coordinator.WORKERS_PROPERTY));
+    }
+    assertEquals(next, 1000);
+  }
+
+  @Test
+  public void operationsAreSplitEvenly() throws IOException {
+    Properties props = new Properties();
+    props.setProperty(Client.OPERATION_COUNT_PROPERTY, "10");
+
+    assertEquals(Coordinator.partition(props, 0, 4).getProperty(Client.OPERATION_COUNT_PROPERTY), "3");
+    assertEquals(Coordinator.partition(props, 1, 4).getProperty(Client.OPERATION_COUNT_PROPERTY), "3");
+    assertEquals(Coordinator.partition(props, 2, 4).getProperty(Client.OPERATION_COUNT_PROPERTY), "2");
+    assertEquals(Coordinator.partition(props, 3, 4).getProperty(Client.OPERATION_COUNT_PROPERTY), "2");
+    assertNull(ThroughputProfile.create(Coordinator.partition(props, 0, 4)));
+  }
+
+  @Test
+  public void workersGetTheirOwnSeeds() {
+    Properties props = new Properties();
+    assertNull(Coordinator.partition(props, 0, 2).getProperty(Utils.SEED_PROPERTY));
+
+    props.setProperty(Utils.SEED_PROPERTY, "42");
+    assertEquals(Coordinator.partition(props, 0, 2).getProperty(Utils.SEED_PROPERTY), "42");
+    assertNotEquals(Coordinator.partition(props, 1, 2).getProperty(Utils.SEED_PROPERTY), "42");
+    // the same every time, so the run can be repeated
+    assertEquals(Coordinator.partition(props, 1, 2).getProperty(Utils.SEED_PROPERTY),
+        Coordinator.partition(props, 1, 2).getProperty(Utils.SEED_PROPERTY));
+  }
+
+  @Test
+  public void budgetsAreSplit() {
+    Properties props = new Properties();
+    props.setProperty("throttle.update", "100");
+
+    Properties part = Coordinator.partition(props, 0, 4);
+    assertEquals(Double.parseDouble(part.getProperty("throttle.update")), 25.0);
+    assertNull(part.getProperty("throttle.read"));
+  }
+
+  @Test
+  public void targetProfilesAreScaled() throws IOException {
+    Properties props = new Properties();
+    props.setProperty(ThroughputProfile.PROFILE_PROPERTY, "ramp");
+    props.setProperty(ThroughputProfile.START_PROPERTY, "1000");
+    props.setProperty(ThroughputProfile.END_PROPERTY, "3000");
+    props.setProperty(ThroughputProfile.DURATION_PROPERTY, "10");
+
+    ThroughputProfile profile = ThroughputProfile.create(Coordinator.partition(props, 1, 4));
+    assertEquals(profile.getTarget(0), 250.0, 0.001);
+    assertEquals(profile.getTarget(TimeUnit.SECONDS.toNanos(10)), 750.0, 0.001);
+  }
+
+  @Test
+  public void histogramsSurviveTheWire() throws IOException {
+    Histogram histogram = new Histogram(3);
+    for (int i = 1; i <= 1000; i++) {
+      histogram.recordValue(i);
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Coordinator.writeHistogram(new DataOutputStream(bytes), histogram);
+    Histogram copy = Coordinator.readHistogram(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+    assertEquals(copy.getTotalCount(), 1000);
+    assertEquals(copy.getValueAtPercentile(50), histogram.getValueAtPercentile(50));
+    assertEquals(copy.getMaxValue(), histogram.getMaxValue());
+  }
+
+  private static Properties workerProperties() {
+    Properties props = new Properties();
+    props.setProperty(Client.WORKLOAD_PROPERTY, "com.yahoo.ycsb.workloads.CoreWorkload");
+    props.setProperty(Client.DB_PROPERTY, "com.yahoo.ycsb.BasicDB");
+    props.setProperty(BasicDB.VERBOSE, "false");
+    props.setProperty(Client.RECORD_COUNT_PROPERTY, "100");
+    props.setProperty(Coordinator.WORKERS_PROPERTY, "1");
+    props.setProperty(Coordinator.LAUNCH_PROPERTY, "false");
+    return props;
+  }
+
+  @Test
+  public void workerReportsToTheCoordinator() throws Exception {
+    Properties props = workerProperties();
+    props.setProperty(Client.DO_TRANSACTIONS_PROPERTY, "false");
+
+    RecordingExporter exporter = runWorker(props);
+    assertEquals(exporter.values.get("OVERALL/Operations"), 100.0);
+    assertEquals(exporter.values.get("INSERT/Operations"), 100.0);
+    assertEquals(exporter.values.get("INSERT/Return=OK"), 100.0);
+  }
+
+  @Test
+  public void workerSendsNothingFromTheWarmup() throws Exception {
+    Properties props = workerProperties();
+    props.setProperty(Client.OPERATION_COUNT_PROPERTY, "100");
+    props.setProperty(CoreWorkload.READ_PROPORTION_PROPERTY, "1");
+    props.setProperty(CoreWorkload.UPDATE_PROPORTION_PROPERTY, "0");
+    props.setProperty(Warmup.OPERATIONS_PROPERTY, "5000");
+    props.setProperty(Coordinator.INTERVAL_PROPERTY, "0");
+
+    RecordingExporter exporter = runWorker(props);
+    assertEquals(exporter.values.get("OVERALL/Operations"), 100.0);
+    assertEquals(exporter.values.get("READ/Operations"), 100.0);
+    assertEquals(exporter.values.get("READ/Return=OK"), 100.0);
+  }
+
+  @Test
+  public void throughputLeavesOutTheWarmup() throws Exception {
+    Properties props = workerProperties();
+    props.setProperty(Client.OPERATION_COUNT_PROPERTY, "200");
+    props.setProperty(Client.TARGET_PROPERTY, "1000");
+    props.setProperty(Warmup.OPERATIONS_PROPERTY, "500");
+
+    RecordingExporter exporter = runWorker(props);
+    assertEquals(exporter.values.get("OVERALL/Operations"), 200.0);
+    // the warmup takes half a second at the target, more than twice the measured window
+    double runtime = exporter.values.get("OVERALL/RunTime(ms)");
+    assertTrue(runtime >= 150 && runtime < 450, String.valueOf(runtime));
+    assertEquals(exporter.values.get("OVERALL/Throughput(ops/sec)"), 1000.0 * 200 / runtime, 0.001);
+  }
+
+  private static RecordingExporter runWorker(Properties props) throws Exception {
+    final Coordinator coordinator = new Coordinator(props);
+    final RecordingExporter exporter = new RecordingExporter();
+    final Exception[] failure = new Exception[1];
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          coordinator.run(exporter);
+        } catch (Exception e) {
+          failure[0] = e;
+        }
+      }
+    };
+    String address = coordinator.listen();
+    thread.start();
+    Worker.run(address);
+    thread.join();
+
+    assertNull(failure[0]);
+    assertEquals(exporter.values.get("OVERALL/Operations"), (double) coordinator.getOpsDone());
+    return exporter;
+  }
+
+  private static final class RecordingExporter implements MeasurementsExporter {
+    private final Map<String, Double> values = new HashMap<>();
+
+    @Override
+    public void write(String metric, String measurement, int i) {
+      values.put(metric + "/" + measurement, (double) i);
+    }
+
+    @Override
+    public void write(String metric, String measurement, long i) {
+      values.put(metric + "/" + measurement, (double) i);
+    }
+
+    @Override
+    public void write(String metric, String measurement, double d) {
+      values.put(metric + "/" + measurement, d);
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+
+import org.apache.htrace.core.HTraceConfiguration;
+import org.apache.htrace.core.Tracer;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.yahoo.ycsb.measurements.Measurements;
+
+/**
+ * Tests for the batch and transaction operations of {@link DB} and {@link DBWrapper}.
+ */
+public class TestDBWrapper {
+
+  /** A DB that only knows the key "missing" is not there. */
+  private static class KeyDB extends DB {
+    private final List<String> calls = new ArrayList<String>();
+
+    @Override
+    public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+      calls.add("read " + key);
+      if (key.equals("missing")) {
+        return Status.NOT_FOUND;
+      }
+      result.put("field0", new StringByteIterator(key));
+      return Status.OK;
+    }
+
+    @Override
+    public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                       Vector<HashMap<String, ByteIterator>> result) {
+      return Status.NOT_IMPLEMENTED;
+    }
+
+    @Override
+    public Status update(String table, String key, Map<String, ByteIterator> values) {
+      calls.add("update " + key);
+      return Status.OK;
+    }
+
+    @Override
+    public Status insert(String table, String key, Map<String, ByteIterator> values) {
+      calls.add("insert " + key);
+      return Status.OK;
+    }
+
+    @Override
+    public Status delete(String table, String key) {
+      return Status.NOT_IMPLEMENTED;
+    }
+  }
+
+  private final Tracer tracer = new Tracer.Builder("test").conf(HTraceConfiguration.EMPTY).build();
+
+  @BeforeClass
+  public void setUp() {
+    Measurements.setProperties(new Properties());
+  }
+
+  private static List<Map<String, ByteIterator>> maps(int count) {
+    List<Map<String, ByteIterator>> maps = new ArrayList<Map<String, ByteIterator>>();
+    for (int i = 0; i < count; i++) {
+      maps.add(new HashMap<String, ByteIterator>());
+    }
+    return maps;
+  }
+
+  private static long count(String operation, Status status) {
+    Map<Status, Long> counts = Measurements.getMeasurements().getStatusCounts().get(operation);
+    Long count = counts == null ? null : counts.get(status);
+    return count == null ? 0 : count;
+  }
+
+  @Test
+  public void batchesFallBackToEachRecord() {
+    KeyDB db = new KeyDB();
+    List<Map<String, ByteIterator>> results = maps(3);
+    assertSame(db.batchRead("t", Arrays.asList("a", "missing", "b"), null, results), Status.NOT_FOUND);
+    assertEquals(results.get(0).get("field0").toString(), "a");
+    assertEquals(results.get(1).size(), 0);
+    assertEquals(results.get(2).get("field0").toString(), "b");
+
+    assertSame(db.batchInsert("t", Arrays.asList("c", "d"), maps(2)), Status.OK);
+    assertSame(db.batchUpdate("t", Arrays.asList("e"), maps(1)), Status.OK);
+    assertEquals(db.calls.toString(), "[read a, read missing, read b, insert c, insert d, update e]");
+  }
+
+  @Test
+  public void measuresTheBatchAndEachRecord() {
+    DBWrapper wrapper = new DBWrapper(new KeyDB(), tracer);
+    long batches = count("BATCH-INSERT", Status.OK);
+    long records = count("BATCH-INSERT-ITEM", Status.OK);
+    long single = count("INSERT", Status.OK);
+    assertSame(wrapper.batchInsert("t", Arrays.asList("a", "b", "c"), maps(3)), Status.OK);
+    assertEquals(count("BATCH-INSERT", Status.OK), batches + 1);
+    assertEquals(count("BATCH-INSERT-ITEM", Status.OK), records + 3);
+    assertEquals(count("INSERT", Status.OK), single);
+  }
+
+  @Test
+  public void measuresTransactions() {
+    DBWrapper wrapper = new DBWrapper(new KeyDB() {
+      @Override
+      public Status commit() {
+        return Status.CONFLICT;
+      }
+    }, tracer);
+    long begins = count("BEGIN", Status.OK);
+    long conflicts = count("COMMIT", Status.CONFLICT);
+    long aborts = count("ABORT", Status.OK);
+    assertSame(wrapper.begin(), Status.OK);
+    assertSame(wrapper.commit(), Status.CONFLICT);
+    assertSame(wrapper.abort(), Status.OK);
+    assertEquals(count("BEGIN", Status.OK), begins + 1);
+    assertEquals(count("COMMIT", Status.CONFLICT), conflicts + 1);
+    assertEquals(count("ABORT", Status.OK), aborts + 1);
+  }
+}
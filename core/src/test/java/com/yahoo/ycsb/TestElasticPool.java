@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Properties;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link ElasticPool}.
+ */
+public class TestElasticPool {
+
+  @Test
+  public void fixedThreadsByDefault() {
+    assertNull(ElasticPool.create(new Properties(), 4));
+  }
+
+  @Test
+  public void schedule() {
+    List<long[]> schedule = ElasticPool.parseSchedule("0:4, 1.5:64,90:0");
+    assertEquals(schedule.size(), 3);
+    assertEquals(schedule.get(1)[0], 1500000000L);
+    assertEquals(schedule.get(1)[1], 64);
+    assertEquals(schedule.get(2)[1], 0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void scheduleOutOfOrder() {
+    ElasticPool.parseSchedule("10:4,5:8");
+  }
+
+  @Test
+  public void poolGrowsToTheLargestCount() {
+    Properties props = new Properties();
+    props.setProperty(ElasticPool.SCHEDULE_PROPERTY, "0:2,10:16");
+    ElasticPool pool = ElasticPool.create(props, 4);
+    assertEquals(pool.getMaxThreads(), 16);
+    assertEquals(pool.getActive(), 2);
+    assertTrue(pool.isActive(1));
+    assertFalse(pool.isActive(2));
+  }
+
+  @Test
+  public void commands() {
+    Properties props = new Properties();
+    props.setProperty(ElasticPool.CONTROL_PROPERTY, "0");
+    props.setProperty(ElasticPool.MAX_PROPERTY, "8");
+    ElasticPool pool = ElasticPool.create(props, 4);
+    assertEquals(pool.execute("threads"), "threads 4");
+    assertEquals(pool.execute("threads 8"), "threads 8");
+    assertEquals(pool.getActive(), 8);
+    assertTrue(pool.execute("threads 9").startsWith("error"));
+    assertTrue(pool.execute("grow").startsWith("error"));
+    assertEquals(pool.getActive(), 8);
+  }
+}
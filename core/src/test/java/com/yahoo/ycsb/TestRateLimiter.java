@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.util.Properties;
+
+import com.yahoo.ycsb.measurements.Measurements;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link RateLimiter}.
+ */
+public class TestRateLimiter {
+  private static final long MS = 1000000;
+
+  @Test
+  public void slotsAreSpacedByTheTarget() {
+    RateLimiter limiter = new RateLimiter(new ThroughputProfile.Constant(1000), 1, false);
+    limiter.restart(0);
+    assertEquals(limiter.reserve(0), 0);
+    assertEquals(limiter.reserve(0), MS);
+    assertEquals(limiter.reserve(0), 2 * MS);
+    // the slots missed by an idle client are not made up beyond the burst
+    assertEquals(limiter.reserve(10 * MS), 10 * MS);
+    assertEquals(limiter.reserve(10 * MS), 11 * MS);
+  }
+
+  @Test
+  public void idleTimeAllowsABurst() {
+    RateLimiter limiter = new RateLimiter(new ThroughputProfile.Constant(1000), 4, false);
+    limiter.restart(0);
+    long now = 100 * MS;
+    for (int i = 0; i < 4; i++) {
+      assertEquals(limiter.reserve(now), now - (3 - i) * MS);
+    }
+    assertEquals(limiter.reserve(now), now + MS);
+  }
+
+  @Test
+  public void theScheduleIsKept() {
+    RateLimiter limiter = new RateLimiter(new ThroughputProfile.Constant(1000), 1, false, true);
+    limiter.restart(0);
+    assertEquals(limiter.reserve(0), 0);
+    // every thread was busy for 10 ms: the slots missed are still handed out, late
+    for (int i = 1; i <= 10; i++) {
+      assertEquals(limiter.reserve(10 * MS), i * MS);
+    }
+    assertEquals(limiter.reserve(10 * MS), 11 * MS);
+  }
+
+  @Test
+  public void zeroTargetPauses() {
+    ThroughputProfile.Adjustable profile = new ThroughputProfile.Adjustable(0);
+    RateLimiter limiter = new RateLimiter(profile, 1, false, true);
+    limiter.restart(0);
+    assertEquals(limiter.reserve(0), RateLimiter.PAUSED);
+    // no slots are due for the time spent paused
+    assertEquals(limiter.reserve(10 * MS), RateLimiter.PAUSED);
+    profile.setTarget(1000);
+    assertEquals(limiter.reserve(10 * MS), 10 * MS);
+  }
+
+  @Test
+  public void perThreadByDefault() {
+    Properties p = new Properties();
+    assertNull(RateLimiter.create(p, new ThroughputProfile.Constant(100)));
+    p.setProperty(RateLimiter.THROTTLE_PROPERTY, "global");
+    assertNotNull(RateLimiter.create(p, new ThroughputProfile.Constant(100)));
+    assertNull(RateLimiter.create(p, null));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void unknownThrottle() {
+    Properties p = new Properties();
+    p.setProperty(RateLimiter.THROTTLE_PROPERTY, "sometimes");
+    RateLimiter.create(p, new ThroughputProfile.Constant(100));
+  }
+
+  @Test
+  public void budgetsPerOperation() {
+    Properties p = new Properties();
+    assertNull(RateLimiter.createBudgets(p));
+    p.setProperty("throttle.update", "50");
+    RateLimiter[] budgets = RateLimiter.createBudgets(p);
+    assertNotNull(budgets[Measurements.Operation.UPDATE.ordinal()]);
+    assertNull(budgets[Measurements.Operation.READ.ordinal()]);
+  }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Properties;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link RunPlan}.
+ */
+public class TestRunPlan {
+
+  @Test
+  public void phasesOverrideTheBaseProperties() throws Exception {
+    Properties base = new Properties();
+    base.setProperty(Client.WORKLOAD_PROPERTY, "com.yahoo.ycsb.workloads.CoreWorkload");
+    base.setProperty(Client.RECORD_COUNT_PROPERTY, "1000");
+    base.setProperty(Client.THREAD_COUNT_PROPERTY, "2");
+
+    String plan = "# a comment\n"
+        + "load  -load -threads 8\n"
+        + "\n"
+        + "  run   -t -p readproportion=1.0   -p recordcount=2000\n"
+        + "again\n";
+    List<RunPlan.Phase> phases = RunPlan.parse(new BufferedReader(new StringReader(plan)), base);
+
+    assertEquals(phases.size(), 3);
+    RunPlan.Phase load = phases.get(0);
+    assertEquals(load.getName(), "load");
+    assertEquals(load.getProperties().getProperty(Client.DO_TRANSACTIONS_PROPERTY), "false");
+    assertEquals(load.getProperties().getProperty(Client.THREAD_COUNT_PROPERTY), "8");
+    assertEquals(load.getProperties().getProperty(Client.RECORD_COUNT_PROPERTY), "1000");
+
+    RunPlan.Phase run = phases.get(1);
+    assertEquals(run.getName(), "run");
+    assertEquals(run.getProperties().getProperty(Client.DO_TRANSACTIONS_PROPERTY), "true");
+    assertEquals(run.getProperties().getProperty(Client.THREAD_COUNT_PROPERTY), "2");
+    assertEquals(run.getProperties().getProperty(Client.RECORD_COUNT_PROPERTY), "2000");
+    assertEquals(run.getProperties().getProperty("readproportion"), "1.0");
+
+    RunPlan.Phase again = phases.get(2);
+    assertNull(again.getProperties().getProperty(Client.DO_TRANSACTIONS_PROPERTY));
+    assertEquals(again.getProperties().getProperty(Client.WORKLOAD_PROPERTY),
+        "com.yahoo.ycsb.workloads.CoreWorkload");
+    assertEquals(base.size(), 3);
+  }
+}
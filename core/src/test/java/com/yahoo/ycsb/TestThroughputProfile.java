@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link ThroughputProfile}.
+ */
+public class TestThroughputProfile {
+
+  private static long sec(double seconds) {
+    return (long) (seconds * TimeUnit.SECONDS.toNanos(1));
+  }
+
+  @Test
+  public void noTargetMeansUnthrottled() throws IOException {
+    assertNull(ThroughputProfile.create(new Properties()));
+  }
+
+  @Test
+  public void constant() throws IOException {
+    Properties p = new Properties();
+    p.setProperty(Client.TARGET_PROPERTY, "500");
+    ThroughputProfile profile = ThroughputProfile.create(p);
+    assertEquals(profile.getTarget(0), 500.0);
+    assertEquals(profile.getTarget(sec(3600)), 500.0);
+  }
+
+  @Test
+  public void ramp() throws IOException {
+    Properties p = new Properties();
+    p.setProperty(ThroughputProfile.PROFILE_PROPERTY, "ramp");
+    p.setProperty(Client.TARGET_PROPERTY, "2000");
+    p.setProperty(ThroughputProfile.START_PROPERTY, "1000");
+    p.setProperty(ThroughputProfile.DURATION_PROPERTY, "10");
+    ThroughputProfile profile = ThroughputProfile.create(p);
+    assertEquals(profile.getTarget(0), 1000.0, 0.001);
+    assertEquals(profile.getTarget(sec(5)), 1500.0, 0.001);
+    assertEquals(profile.getTarget(sec(20)), 2000.0, 0.001);
+  }
+
+  @Test
+  public void steps() throws IOException {
+    Properties p = new Properties();
+    p.setProperty(ThroughputProfile.PROFILE_PROPERTY, "step");
+    p.setProperty(ThroughputProfile.STEPS_PROPERTY, "0:100, 10:500,30:50");
+    ThroughputProfile profile = ThroughputProfile.create(p);
+    assertEquals(profile.getTarget(sec(9.9)), 100.0);
+    assertEquals(profile.getTarget(sec(10)), 500.0);
+    assertEquals(profile.getTarget(sec(29)), 500.0);
+    assertEquals(profile.getTarget(sec(1000)), 50.0);
+  }
+
+  @Test
+  public void sine() throws IOException {
+    Properties p = new Properties();
+    p.setProperty(ThroughputProfile.PROFILE_PROPERTY, "sine");
+    p.setProperty(Client.TARGET_PROPERTY, "1000");
+    p.setProperty(ThroughputProfile.AMPLITUDE_PROPERTY, "400");
+    p.setProperty(ThroughputProfile.PERIOD_PROPERTY, "60");
+    ThroughputProfile profile = ThroughputProfile.create(p);
+    assertEquals(profile.getTarget(0), 1000.0, 0.001);
+    assertEquals(profile.getTarget(sec(15)), 1400.0, 0.001);
+    assertEquals(profile.getTarget(sec(45)), 600.0, 0.001);
+    assertEquals(profile.getTarget(sec(75)), 1400.0, 0.001);
+  }
+
+  @Test
+  public void file() throws IOException {
+    File curve = File.createTempFile("curve", ".txt");
+    curve.deleteOnExit();
+    try (FileWriter out = new FileWriter(curve)) {
+      out.write("# ops/sec per second\n100\n\n200\n300\n");
+    }
+    Properties p = new Properties();
+    p.setProperty(ThroughputProfile.PROFILE_PROPERTY, "file");
+    p.setProperty(ThroughputProfile.FILE_PROPERTY, curve.getPath());
+    ThroughputProfile profile = ThroughputProfile.create(p);
+    assertEquals(profile.getTarget(sec(0.5)), 100.0);
+    assertEquals(profile.getTarget(sec(1.5)), 200.0);
+    assertEquals(profile.getTarget(sec(60)), 300.0);
+  }
+
+  @Test
+  public void scaled() throws IOException {
+    Properties p = new Properties();
+    p.setProperty(ThroughputProfile.PROFILE_PROPERTY, "step");
+    p.setProperty(ThroughputProfile.STEPS_PROPERTY, "0:100,10:500");
+    p.setProperty(ThroughputProfile.SCALE_PROPERTY, "0.25");
+    ThroughputProfile profile = ThroughputProfile.create(p);
+    assertEquals(profile.getTarget(0), 25.0);
+    assertEquals(profile.getTarget(sec(10)), 125.0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void unknownProfile() throws IOException {
+    Properties p = new Properties();
+    p.setProperty(ThroughputProfile.PROFILE_PROPERTY, "zigzag");
+    ThroughputProfile.create(p);
+  }
+}
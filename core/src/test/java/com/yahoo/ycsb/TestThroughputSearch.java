@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link ThroughputSearch}.
+ */
+public class TestThroughputSearch {
+
+  /** A system whose 99th percentile latency shoots up past a fixed capacity. */
+  private static ThroughputSearch.Trial capacity(final ThroughputSearch search, final double capacity) {
+    return new ThroughputSearch.Trial() {
+      @Override
+      public ThroughputSearch.Step run(double target) {
+        Histogram window = new Histogram(3);
+        window.recordValueWithCount(target <= capacity ? 1000 : 50000, 100);
+        return search.evaluate(target, Math.min(target, capacity * 1.2), window);
+      }
+    };
+  }
+
+  private static Properties props() {
+    Properties p = new Properties();
+    p.setProperty(ThroughputSearch.LATENCY_PROPERTY, "5000");
+    p.setProperty(ThroughputSearch.START_PROPERTY, "100");
+    return p;
+  }
+
+  @Test
+  public void findsCapacity() throws Exception {
+    ThroughputSearch search = new ThroughputSearch(props());
+    search.search(capacity(search, 3000));
+    ThroughputSearch.Step best = search.getBest();
+    assertTrue(best.isMet());
+    assertTrue(best.getTarget() <= 3000);
+    assertTrue(best.getTarget() >= 3000 * 0.95, "found " + best.getTarget());
+  }
+
+  @Test
+  public void stopsAtMax() throws Exception {
+    Properties p = props();
+    p.setProperty(ThroughputSearch.MAX_PROPERTY, "1000");
+    ThroughputSearch search = new ThroughputSearch(p);
+    search.search(capacity(search, 3000));
+    assertEquals(search.getBest().getTarget(), 1000.0);
+    assertEquals(search.getSteps().size(), 5);
+  }
+
+  @Test
+  public void neverMet() throws Exception {
+    Properties p = props();
+    p.setProperty(ThroughputSearch.MAX_STEPS_PROPERTY, "5");
+    ThroughputSearch search = new ThroughputSearch(p);
+    search.search(capacity(search, 0));
+    assertNull(search.getBest());
+    assertEquals(search.getSteps().size(), 5);
+  }
+
+  @Test
+  public void shortfallMissesTheObjective() {
+    ThroughputSearch search = new ThroughputSearch(props());
+    Histogram window = new Histogram(3);
+    window.recordValueWithCount(100, 10);
+    assertTrue(search.evaluate(1000, 990, window).isMet());
+    assertFalse(search.evaluate(1000, 800, window).isMet());
+    assertFalse(search.evaluate(1000, 1000, new Histogram(3)).isMet());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void latencyIsRequired() {
+    new ThroughputSearch(new Properties());
+  }
+}
@@ -18,9 +18,12 @@
 package com.yahoo.ycsb;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
 
 import org.testng.annotations.Test;
 
@@ -116,6 +119,43 @@ public class TestUtils {
     assertTrue(Utils.getGCStatst().size() >= 0);
   }
    
+  @Test
+  public void seedRepeatsTheNumbers() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(Utils.SEED_PROPERTY, "42");
+    try {
+      Utils.setSeed(props);
+      long first = Utils.random().nextLong();
+      Utils.setStream(0);
+      long stream0 = Utils.random().nextLong();
+      Utils.setStream(1);
+      long stream1 = Utils.random().nextLong();
+
+      Utils.setSeed(props);
+      assertEquals(Utils.random().nextLong(), first);
+      Utils.setStream(0);
+      assertEquals(Utils.random().nextLong(), stream0);
+      assertNotEquals(stream0, stream1);
+    } finally {
+      Utils.setSeed(new Properties());
+    }
+  }
+
+  @Test
+  public void xoroshiroRanges() throws Exception {
+    Random random = new XoroshiroRandom(1);
+    int[] counts = new int[10];
+    for (int i = 0; i < 100000; i++) {
+      double d = random.nextDouble();
+      assertTrue(d >= 0 && d < 1);
+      counts[random.nextInt(10)]++;
+    }
+    for (int count : counts) {
+      assertTrue(count > 9500 && count < 10500, String.valueOf(count));
+    }
+    assertEquals(new XoroshiroRandom(7).nextLong(), new XoroshiroRandom(7).nextLong());
+  }
+
   /**
    * Since this version of TestNG doesn't appear to have an assertArrayEquals,
    * this will compare the two to make sure they're the same. 
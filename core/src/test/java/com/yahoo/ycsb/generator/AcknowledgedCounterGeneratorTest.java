@@ -16,6 +16,11 @@
  */
 package com.yahoo.ycsb.generator;
 
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
@@ -32,7 +37,7 @@ public class AcknowledgedCounterGeneratorTest {
    */
   @Test
   public void testIncrementPastIntegerMaxValue() {
-    final long toTry = AcknowledgedCounterGenerator.WINDOW_SIZE * 3;
+    final long toTry = AcknowledgedCounterGenerator.PAGE_SIZE * 48;
 
     AcknowledgedCounterGenerator generator =
         new AcknowledgedCounterGenerator(Integer.MAX_VALUE - 1000);
@@ -58,4 +63,58 @@ public class AcknowledgedCounterGeneratorTest {
     }
 
   }
+
+  /**
+   * Test that any number of values can wait for an earlier one to be acknowledged.
+   */
+  @Test
+  public void testManyPendingValues() {
+    final int pending = AcknowledgedCounterGenerator.PAGE_SIZE * 40;
+    AcknowledgedCounterGenerator generator = new AcknowledgedCounterGenerator(5);
+    long first = generator.nextLong();
+    for (int i = 1; i <= pending; i++) {
+      generator.acknowledge(generator.nextLong());
+    }
+    assertEquals(generator.lastLong(), 4);
+
+    generator.acknowledge(first);
+    assertEquals(generator.lastLong(), 5 + pending);
+    generator.acknowledge(generator.nextLong());
+    assertEquals(generator.lastLong(), 6 + pending);
+  }
+
+  /**
+   * Test that the limit reaches the last value when threads acknowledge out of order.
+   */
+  @Test
+  public void testConcurrentAcknowledgements() throws Exception {
+    final AcknowledgedCounterGenerator generator = new AcknowledgedCounterGenerator(0);
+    final int perThread = 200000;
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      final long seed = t;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          Random rand = new Random(seed);
+          List<Long> held = new ArrayList<Long>();
+          for (int i = 0; i < perThread; i++) {
+            held.add(generator.nextLong());
+            if (held.size() == 100 || i == perThread - 1) {
+              Collections.shuffle(held, rand);
+              for (long value : held) {
+                generator.acknowledge(value);
+              }
+              held.clear();
+            }
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(generator.lastLong(), threads.length * perThread - 1);
+  }
 }
@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package com.yahoo.ycsb.generator;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class TestDiscreteGenerator {
+
+  @Test
+  public void followsTheWeights() {
+    DiscreteGenerator<Integer> generator = new DiscreteGenerator<>();
+    double[] weights = {0.5, 0.25, 0.125, 0.0, 0.125};
+    for (int i = 0; i < weights.length; i++) {
+      generator.addValue(weights[i], i);
+    }
+
+    int samples = 200000;
+    int[] counts = new int[weights.length];
+    for (int i = 0; i < samples; i++) {
+      counts[generator.nextValue()]++;
+    }
+    assertEquals(counts[3], 0);
+    for (int i = 0; i < weights.length; i++) {
+      assertEquals(counts[i] / (double) samples, weights[i], 0.01);
+    }
+  }
+
+  @Test
+  public void weightsNeedNotAddUpToOne() {
+    DiscreteGenerator<String> generator = new DiscreteGenerator<>();
+    generator.addValue(3, "a");
+    for (int i = 0; i < 100; i++) {
+      assertEquals(generator.nextValue(), "a");
+    }
+    generator.addValue(1, "b");
+    int as = 0;
+    for (int i = 0; i < 10000; i++) {
+      if ("a".equals(generator.nextValue())) {
+        as++;
+      }
+    }
+    assertTrue(as > 7000 && as < 8000, String.valueOf(as));
+    assertEquals(generator.lastValue(), generator.lastValue());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void negativeWeight() {
+    new DiscreteGenerator<String>().addValue(-1, "a");
+  }
+}
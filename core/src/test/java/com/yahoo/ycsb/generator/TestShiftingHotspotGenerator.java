@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.generator;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+import com.yahoo.ycsb.generator.ShiftingHotspotGenerator.Shift;
+
+/**
+ * Tests for {@link ShiftingHotspotGenerator}.
+ */
+public class TestShiftingHotspotGenerator {
+
+  /** A generator whose time is set by the test. */
+  private static class ClockedGenerator extends ShiftingHotspotGenerator {
+    private long time;
+
+    ClockedGenerator(Shift shift, double shiftFraction) {
+      // 100 to 199, of which 10 are hot, moving every 1000 ns
+      this(100, 199, 0.1, 1.0, shift, shiftFraction);
+    }
+
+    ClockedGenerator(long lowerBound, long upperBound, double hotsetFraction, double hotOpnFraction, Shift shift,
+                     double shiftFraction) {
+      super(lowerBound, upperBound, hotsetFraction, hotOpnFraction, shift, 1000, shiftFraction);
+    }
+
+    @Override
+    protected long now() {
+      return time;
+    }
+  }
+
+  private static Set<Long> sample(ShiftingHotspotGenerator generator) {
+    Set<Long> values = new HashSet<Long>();
+    for (int i = 0; i < 1000; i++) {
+      long value = generator.nextLong();
+      assertTrue(value >= 100 && value <= 199);
+      values.add(value);
+    }
+    return values;
+  }
+
+  private static Set<Long> range(long from, long count) {
+    Set<Long> values = new HashSet<Long>();
+    for (long i = 0; i < count; i++) {
+      values.add(100 + (from - 100 + i) % 100);
+    }
+    return values;
+  }
+
+  @Test
+  public void rotates() {
+    ClockedGenerator generator = new ClockedGenerator(Shift.ROTATE, 0.5);
+    generator.time = 5000;
+    assertEquals(sample(generator), range(100, 10));
+    generator.time = 5999;
+    assertEquals(sample(generator), range(100, 10));
+    generator.time = 6000;
+    assertEquals(sample(generator), range(105, 10));
+    // wraps around at the upper bound
+    generator.time = 5000 + 19 * 1000;
+    assertEquals(sample(generator), range(195, 10));
+  }
+
+  @Test
+  public void drifts() {
+    ClockedGenerator generator = new ClockedGenerator(Shift.DRIFT, 1.0);
+    assertEquals(generator.hotsetStart(0), 0);
+    assertEquals(generator.hotsetStart(500), 5);
+    assertEquals(generator.hotsetStart(1000), 10);
+    assertEquals(generator.hotsetStart(1300), 13);
+    assertEquals(generator.hotsetStart(10000), 0);
+  }
+
+  @Test
+  public void jumps() {
+    ClockedGenerator generator = new ClockedGenerator(Shift.JUMP, 1.0);
+    assertEquals(generator.hotsetStart(999), 0);
+    Set<Long> starts = new HashSet<Long>();
+    for (long interval = 1; interval <= 20; interval++) {
+      long start = generator.hotsetStart(interval * 1000);
+      assertTrue(start >= 0 && start < 100);
+      assertEquals(generator.hotsetStart(interval * 1000 + 999), start);
+      starts.add(start);
+    }
+    assertTrue(starts.size() > 5);
+  }
+
+  @Test
+  public void coldSetIsTheRest() {
+    ClockedGenerator generator = new ClockedGenerator(0, 9, 0.5, 0.0, Shift.ROTATE, 1.0);
+    Set<Long> values = new HashSet<Long>();
+    for (int i = 0; i < 1000; i++) {
+      values.add(generator.nextLong());
+    }
+    // the hot set is 0 to 4 and never accessed
+    Set<Long> cold = new HashSet<Long>();
+    for (long value = 5; value < 10; value++) {
+      cold.add(value);
+    }
+    assertEquals(values, cold);
+  }
+}
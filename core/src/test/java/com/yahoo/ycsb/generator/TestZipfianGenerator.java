@@ -19,7 +19,9 @@ package com.yahoo.ycsb.generator;
 
 import org.testng.annotations.Test;
 
+import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
 
 
 public class TestZipfianGenerator {
@@ -36,4 +38,42 @@ public class TestZipfianGenerator {
         }
 
     }
+
+    private static double summedZeta(long n, double theta) {
+        double sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+
+    @Test
+    public void zetaMatchesTheSum() {
+        for (double theta : new double[]{0.5, 0.99, 1.0, 1.5}) {
+            for (long n : new long[]{10, 1024, 1025, 100000}) {
+                double sum = summedZeta(n, theta);
+                assertEquals(sum, ZipfianGenerator.zetastatic(0, n, theta, 0), sum * 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void zetaGrowsIncrementally() {
+        double zeta = ZipfianGenerator.zetastatic(0, 2000, 0.9, 0);
+        zeta = ZipfianGenerator.zetastatic(2000, 2001, 0.9, zeta);
+        zeta = ZipfianGenerator.zetastatic(2001, 300000, 0.9, zeta);
+        assertEquals(summedZeta(300000, 0.9), zeta, zeta * 1e-12);
+    }
+
+    @Test
+    public void hugeItemCountsAreQuick() {
+        assertEquals(ScrambledZipfianGenerator.ZETAN,
+            ZipfianGenerator.zetastatic(0, ScrambledZipfianGenerator.ITEM_COUNT, 0.99, 0), 1e-9);
+
+        ScrambledZipfianGenerator scrambled = new ScrambledZipfianGenerator(100, 1000000000000L, 0.7);
+        for (int i = 0; i < 10000; i++) {
+            long rnd = scrambled.nextValue();
+            assertTrue(rnd >= 100 && rnd <= 1000000000000L);
+        }
+    }
 }
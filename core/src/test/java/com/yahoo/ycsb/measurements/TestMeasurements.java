@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.measurements;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+
+/**
+ * Tests for {@link Measurements}.
+ */
+public class TestMeasurements {
+
+  /** Keeps the exported values by "metric/measurement". */
+  static class MapExporter implements MeasurementsExporter {
+    final Map<String, Number> values = new HashMap<>();
+
+    @Override
+    public void write(String metric, String measurement, int i) {
+      values.put(metric + "/" + measurement, i);
+    }
+
+    @Override
+    public void write(String metric, String measurement, long i) {
+      values.put(metric + "/" + measurement, i);
+    }
+
+    @Override
+    public void write(String metric, String measurement, double d) {
+      values.put(metric + "/" + measurement, d);
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  @DataProvider(name = "types")
+  public Object[][] types() {
+    return new Object[][] {{"hdrhistogram"}, {"perthreadhdrhistogram"}, {"histogram"}, {"hdrhistogram+histogram"}};
+  }
+
+  @Test(dataProvider = "types")
+  public void resetDiscardsEarlierMeasurements(String type) throws Exception {
+    Properties props = new Properties();
+    props.setProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, type);
+    Measurements measurements = new Measurements(props);
+    for (int i = 0; i < 100; i++) {
+      measurements.measure("READ", 1000000);
+      measurements.reportStatus("READ", Status.ERROR);
+    }
+    measurements.reset();
+    measurements.measure("READ", 10);
+    measurements.reportStatus("READ", Status.OK);
+
+    MapExporter exporter = new MapExporter();
+    measurements.exportMeasurements(exporter);
+    String name = type.startsWith("hdrhistogram+") ? "HdrREAD" : "READ";
+    assertEquals(exporter.values.get(name + "/Operations").longValue(), 1);
+    assertEquals(exporter.values.get(name + "/MaxLatency(us)").longValue(), 10);
+    assertEquals(exporter.values.get(name + "/Return=OK").longValue(), 1);
+    assertNull(exporter.values.get(name + "/Return=ERROR"));
+  }
+
+  @Test
+  public void resetWhileMergingAndSummarizing() throws Exception {
+    final OneMeasurementHdrHistogram measurement = new OneMeasurementHdrHistogram("READ", new Properties());
+    final org.HdrHistogram.Histogram other = new org.HdrHistogram.Histogram(3);
+    other.recordValue(100);
+    final Throwable[] failure = new Throwable[1];
+    Thread merger = new Thread() {
+      @Override
+      public void run() {
+        try {
+          for (int i = 0; i < 20000; i++) {
+            measurement.measure(10);
+            measurement.merge(other);
+            measurement.getSummary();
+            measurement.exportMeasurements(new MapExporter());
+          }
+        } catch (Throwable t) {
+          failure[0] = t;
+        }
+      }
+    };
+    merger.start();
+    while (merger.isAlive()) {
+      measurement.reset();
+    }
+    assertNull(failure[0]);
+  }
+
+  @Test
+  public void perThreadRecordersAreMerged() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, "perthreadhdrhistogram");
+    final Measurements measurements = new Measurements(props);
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      final int latency = (t + 1) * 100;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 1000; i++) {
+            measurements.measure(Measurements.Operation.READ, latency);
+            measurements.reportStatus(Measurements.Operation.READ, Status.OK);
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    // a status interval takes what the threads recorded so far
+    measurements.getSummary();
+    measurements.measure("READ", 1000);
+
+    MapExporter exporter = new MapExporter();
+    measurements.exportMeasurements(exporter);
+    assertEquals(exporter.values.get("READ/Operations").longValue(), 4001);
+    assertEquals(exporter.values.get("READ/MinLatency(us)").longValue(), 100);
+    assertEquals(exporter.values.get("READ/MaxLatency(us)").longValue(), 1000, 1);
+    assertEquals(exporter.values.get("READ/Return=OK").longValue(), 4000);
+  }
+
+  @Test
+  public void windowsRestartOnEachRead() {
+    Measurements measurements = new Measurements(new Properties());
+    measurements.trackWindow("READ");
+    measurements.measure("READ", 100);
+    measurements.measure("UPDATE", 100);
+    assertEquals(measurements.getWindow("READ").getTotalCount(), 1);
+    measurements.measure("READ", 200);
+    measurements.measure("READ", 300);
+    assertEquals(measurements.getWindow("READ").getMaxValue(), 300, 1);
+    assertEquals(measurements.getWindow("READ").getTotalCount(), 0);
+  }
+}
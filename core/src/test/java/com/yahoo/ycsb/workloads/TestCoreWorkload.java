@@ -16,16 +16,104 @@
  */
 package com.yahoo.ycsb.workloads;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
 
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.Client;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.StringByteIterator;
+import com.yahoo.ycsb.Workload;
 import com.yahoo.ycsb.generator.DiscreteGenerator;
+import com.yahoo.ycsb.measurements.Measurements;
 
 public class TestCoreWorkload {
 
+  @BeforeClass
+  public static void setUpMeasurements() {
+    Measurements.setProperties(new Properties());
+  }
+
+  /**
+   * A DB that records the operations, the containers they were given and the records that exist, and which
+   * operations found a record missing, a record already there or a container that was not cleared.
+   */
+  private static class RecordingDB extends DB {
+    private final List<String> ops = new ArrayList<String>();
+    private final List<Map<String, ByteIterator>> containers = new ArrayList<Map<String, ByteIterator>>();
+    private final Set<String> records = new HashSet<String>();
+    private final List<String> failed = new ArrayList<String>();
+
+    @Override
+    public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+      ops.add("read " + key);
+      if (!records.contains(key) || !result.isEmpty()) {
+        failed.add("read " + key);
+      }
+      if (fields != null) {
+        for (String field : fields) {
+          result.put(field, new StringByteIterator(""));
+        }
+      }
+      containers.add(result);
+      return Status.OK;
+    }
+
+    @Override
+    public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                       Vector<HashMap<String, ByteIterator>> result) {
+      ops.add("scan " + startkey);
+      return Status.OK;
+    }
+
+    @Override
+    public Status update(String table, String key, Map<String, ByteIterator> values) {
+      ops.add("update " + key);
+      return Status.OK;
+    }
+
+    @Override
+    public Status insert(String table, String key, Map<String, ByteIterator> values) {
+      ops.add("insert " + key);
+      if (!records.add(key)) {
+        failed.add("insert " + key);
+      }
+      containers.add(values);
+      return Status.OK;
+    }
+
+    @Override
+    public Status batchInsert(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+      ops.add("insert " + keys);
+      records.addAll(keys);
+      containers.addAll(values);
+      return Status.OK;
+    }
+
+    @Override
+    public Status delete(String table, String key) {
+      ops.add("delete " + key);
+      if (!records.remove(key)) {
+        failed.add("delete " + key);
+      }
+      return Status.OK;
+    }
+  }
+
   @Test
   public void createOperationChooser() {
     final Properties p = new Properties();
@@ -34,21 +122,21 @@ public class TestCoreWorkload {
     p.setProperty(CoreWorkload.INSERT_PROPORTION_PROPERTY, "0.20");
     p.setProperty(CoreWorkload.SCAN_PROPORTION_PROPERTY, "0.20");
     p.setProperty(CoreWorkload.READMODIFYWRITE_PROPORTION_PROPERTY, "0.20");
-    final DiscreteGenerator generator = CoreWorkload.createOperationGenerator(p);
+    final DiscreteGenerator<Workload.Operation> generator = CoreWorkload.createOperationGenerator(p);
     final int[] counts = new int[5];
     
     for (int i = 0; i < 100; ++i) {
-      switch (generator.nextString()) {
-      case "READ":
+      switch (generator.nextValue()) {
+      case READ:
         ++counts[0];
         break;
-      case "UPDATE":
+      case UPDATE:
         ++counts[1];
         break;
-      case "INSERT": 
+      case INSERT: 
         ++counts[2];
         break;
-      case "SCAN":
+      case SCAN:
         ++counts[3];
         break;
       default:
@@ -67,4 +155,208 @@ public class TestCoreWorkload {
   public void createOperationChooserNullProperties() {
     CoreWorkload.createOperationGenerator(null);
   }
+
+  @Test
+  public void keysBeyondIntegerRange() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "5000000000");
+    p.setProperty(CoreWorkload.INSERT_START_PROPERTY, "4000000000");
+    p.setProperty(CoreWorkload.INSERT_COUNT_PROPERTY, "10");
+    p.setProperty(CoreWorkload.INSERT_ORDER_PROPERTY, "ordered");
+    p.setProperty(CoreWorkload.FIELD_COUNT_PROPERTY, "1");
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+
+    final RecordingDB db = new RecordingDB();
+
+    workload.doInsert(db, null);
+    workload.doInsert(db, null);
+    assertEquals(db.ops.get(0), "insert user4000000000");
+    assertEquals(db.ops.get(1), "insert user4000000001");
+
+    workload.doTransactionRead(db);
+    final long keynum = Long.parseLong(db.ops.get(2).substring("read user".length()));
+    assertTrue(keynum >= 4000000000L && keynum < 4000000010L);
+  }
+
+  @Test
+  public void threadReusesContainers() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "10");
+    p.setProperty(CoreWorkload.INSERT_ORDER_PROPERTY, "ordered");
+    p.setProperty(CoreWorkload.ZERO_PADDING_PROPERTY, "4");
+    p.setProperty(CoreWorkload.FIELD_COUNT_PROPERTY, "2");
+    p.setProperty(CoreWorkload.FIELD_LENGTH_PROPERTY, "8");
+    p.setProperty(CoreWorkload.READ_ALL_FIELDS_PROPERTY, "false");
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+    final Object state = workload.initThread(p, 0, 1);
+
+    final RecordingDB db = new RecordingDB();
+
+    for (int i = 0; i < 10; i++) {
+      workload.doInsert(db, state);
+    }
+    assertEquals(db.ops.get(0), "insert user0000");
+    assertEquals(db.ops.get(1), "insert user0001");
+    assertSame(db.containers.get(0), db.containers.get(1));
+    assertEquals(db.containers.get(0).size(), 2);
+    for (ByteIterator value : db.containers.get(0).values()) {
+      assertEquals(value.toArray().length, 8);
+    }
+
+    workload.doTransactionRead(db, state);
+    workload.doTransactionRead(db, state);
+    assertEquals(db.containers.get(10).size(), 1);
+    assertSame(db.containers.get(10), db.containers.get(11));
+    // the container was cleared before it was read into again
+    assertTrue(db.failed.isEmpty(), db.failed.toString());
+  }
+
+  @Test
+  public void batchesRecords() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "10");
+    p.setProperty(CoreWorkload.INSERT_ORDER_PROPERTY, "ordered");
+    p.setProperty(CoreWorkload.FIELD_COUNT_PROPERTY, "2");
+    p.setProperty(CoreWorkload.MAX_BATCH_SIZE_PROPERTY, "3");
+    p.setProperty(CoreWorkload.BATCH_OPERATIONS_PROPERTY, "insert, read");
+    p.setProperty(CoreWorkload.READ_PROPORTION_PROPERTY, "0.5");
+    p.setProperty(CoreWorkload.UPDATE_PROPORTION_PROPERTY, "0");
+    p.setProperty(CoreWorkload.INSERT_PROPORTION_PROPERTY, "0.5");
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+    final Object state = workload.initThread(p, 0, 1);
+
+    final RecordingDB db = new RecordingDB();
+    final List<String> batches = db.ops;
+
+    workload.doTransactionBatchInsert(db, state);
+    assertEquals(batches.toString(), "[insert [user10, user11, user12]]");
+    assertEquals(db.containers.size(), 3);
+    assertTrue(db.containers.get(0) != db.containers.get(1) && db.containers.get(1) != db.containers.get(2));
+    assertTrue(db.containers.get(0).get("field0") != db.containers.get(1).get("field0"));
+    // the inserted records can be read once acknowledged
+    assertEquals(workload.transactioninsertkeysequence.lastValue().longValue(), 12);
+
+    workload.doTransactionBatchRead(db, state);
+    assertEquals(batches.size(), 4);
+    for (int i = 0; i < 20; i++) {
+      workload.doTransaction(db, state);
+    }
+    int reads = 0;
+    for (String batch : batches) {
+      reads += batch.startsWith("read ") ? 1 : 0;
+    }
+    // every read is part of a batch of three
+    assertEquals(reads % 3, 0);
+  }
+
+  @Test
+  public void deletesKeepTheDatasetSteady() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "1000");
+    p.setProperty(CoreWorkload.FIELD_COUNT_PROPERTY, "1");
+    p.setProperty(CoreWorkload.REQUEST_DISTRIBUTION_PROPERTY, "uniform");
+    p.setProperty(CoreWorkload.READ_PROPORTION_PROPERTY, "0.4");
+    p.setProperty(CoreWorkload.UPDATE_PROPORTION_PROPERTY, "0");
+    p.setProperty(CoreWorkload.INSERT_PROPORTION_PROPERTY, "0.3");
+    p.setProperty(CoreWorkload.DELETE_PROPORTION_PROPERTY, "0.3");
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+    final Object state = workload.initThread(p, 0, 1);
+
+    final RecordingDB db = new RecordingDB();
+    final Set<String> records = db.records;
+
+    for (int i = 0; i < 1000; i++) {
+      workload.doInsert(db, state);
+    }
+    int deletes = 0;
+    int deleted = 0;
+    int newkeys = 0;
+    for (int i = 0; i < 3000; i++) {
+      int before = records.size();
+      workload.doTransaction(db, state);
+      if (records.size() < before) {
+        deletes++;
+        deleted++;
+      } else if (records.size() > before && deleted > 0) {
+        deleted--;
+      } else if (records.size() > before) {
+        newkeys++;
+      }
+    }
+    assertTrue(deletes > 0);
+    // reads and deletes only found live records, and inserts only wrote missing ones
+    assertTrue(db.failed.isEmpty(), db.failed.toString());
+    // inserts wrote deleted keys again rather than new ones as long as there were any
+    assertEquals(workload.transactioninsertkeysequence.lastValue() + 1 - 1000, newkeys);
+    assertEquals(records.size(), 1000 + newkeys - deleted);
+  }
+
+  @Test
+  public void nothingIsDeletedOnceEveryRecordIs() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "3");
+    p.setProperty(CoreWorkload.FIELD_COUNT_PROPERTY, "1");
+    p.setProperty(CoreWorkload.REQUEST_DISTRIBUTION_PROPERTY, "uniform");
+    p.setProperty(CoreWorkload.READ_PROPORTION_PROPERTY, "0");
+    p.setProperty(CoreWorkload.UPDATE_PROPORTION_PROPERTY, "0");
+    p.setProperty(CoreWorkload.DELETE_PROPORTION_PROPERTY, "1");
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+    final Object state = workload.initThread(p, 0, 1);
+
+    final RecordingDB db = new RecordingDB();
+    for (int i = 0; i < 3; i++) {
+      workload.doInsert(db, state);
+    }
+    long skipped = notFound("DELETE");
+    for (int i = 0; i < 10; i++) {
+      workload.doTransaction(db, state);
+    }
+    assertTrue(db.records.isEmpty());
+    assertEquals(db.ops.size(), 6);
+    assertTrue(db.failed.isEmpty(), db.failed.toString());
+    // the deletes that found nothing left are reported rather than dropped
+    assertEquals(notFound("DELETE"), skipped + 7);
+  }
+
+  @Test
+  public void failedDeletesLeaveTheKeyLive() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "3");
+    p.setProperty(CoreWorkload.FIELD_COUNT_PROPERTY, "1");
+    p.setProperty(CoreWorkload.REQUEST_DISTRIBUTION_PROPERTY, "uniform");
+    p.setProperty(CoreWorkload.READ_PROPORTION_PROPERTY, "0");
+    p.setProperty(CoreWorkload.UPDATE_PROPORTION_PROPERTY, "0");
+    p.setProperty(CoreWorkload.DELETE_PROPORTION_PROPERTY, "1");
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+    final Object state = workload.initThread(p, 0, 1);
+
+    final RecordingDB db = new RecordingDB() {
+      @Override
+      public Status delete(String table, String key) {
+        super.ops.add("delete " + key);
+        return Status.ERROR;
+      }
+    };
+    for (int i = 0; i < 3; i++) {
+      workload.doInsert(db, state);
+    }
+    for (int i = 0; i < 10; i++) {
+      workload.doTransaction(db, state);
+    }
+    // every transaction found a key to delete, since none of them was gone
+    assertEquals(db.records.size(), 3);
+    assertEquals(db.ops.size(), 13);
+  }
+
+  private static long notFound(String operation) {
+    Map<Status, Long> counts = Measurements.getMeasurements().getStatusCounts().get(operation);
+    Long count = counts == null ? null : counts.get(Status.NOT_FOUND);
+    return count == null ? 0 : count;
+  }
 }
\ No newline at end of file
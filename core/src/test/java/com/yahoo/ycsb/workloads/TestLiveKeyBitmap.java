@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests for {@link LiveKeyBitmap}.
+ */
+public class TestLiveKeyBitmap {
+
+  @Test
+  public void keysStartLive() {
+    LiveKeyBitmap keys = new LiveKeyBitmap();
+    assertTrue(keys.isLive(0));
+    assertTrue(keys.isLive(123456789L));
+    assertFalse(keys.revive(5));
+    assertEquals(keys.findDeleted(0, 1000), -1);
+  }
+
+  @Test
+  public void deletesAndRevives() {
+    LiveKeyBitmap keys = new LiveKeyBitmap();
+    long far = 3L * LiveKeyBitmap.PAGE_KEYS + 70;
+    assertTrue(keys.delete(63));
+    assertTrue(keys.delete(far));
+    assertFalse(keys.delete(far));
+    assertFalse(keys.isLive(63));
+    assertTrue(keys.isLive(64));
+    assertEquals(keys.getDeleted(), 2);
+
+    assertEquals(keys.findDeleted(0, far + 1), 63);
+    assertEquals(keys.findDeleted(64, far + 1), far);
+    // wraps around to the start
+    assertEquals(keys.findDeleted(64, far), 63);
+    assertEquals(keys.findDeleted(far + 1, far + 2), 63);
+
+    assertTrue(keys.revive(63));
+    assertTrue(keys.isLive(63));
+    assertEquals(keys.findDeleted(0, far + 1), far);
+    assertTrue(keys.revive(far));
+    assertEquals(keys.getDeleted(), 0);
+    assertEquals(keys.findDeleted(0, far + 1), -1);
+  }
+
+  @Test
+  public void onlyOneThreadDeletesAKey() throws Exception {
+    final LiveKeyBitmap keys = new LiveKeyBitmap();
+    final AtomicInteger deletes = new AtomicInteger();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          for (long key = 0; key < 3 * LiveKeyBitmap.PAGE_KEYS; key++) {
+            if (keys.delete(key)) {
+              deletes.incrementAndGet();
+            }
+          }
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(deletes.get(), 3 * LiveKeyBitmap.PAGE_KEYS);
+    assertEquals(keys.getDeleted(), 3 * LiveKeyBitmap.PAGE_KEYS);
+  }
+}
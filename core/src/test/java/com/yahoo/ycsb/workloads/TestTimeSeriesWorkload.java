@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.Vector;
+
+import org.testng.annotations.Test;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.Client;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.StringByteIterator;
+import com.yahoo.ycsb.measurements.Measurements;
+
+/**
+ * Tests for {@link TimeSeriesWorkload}.
+ */
+public class TestTimeSeriesWorkload {
+
+  /**
+   * Keeps the points sorted by key, in the order they were written.
+   */
+  private static class SortedDB extends DB {
+    private final TreeMap<String, Map<String, String>> rows = new TreeMap<String, Map<String, String>>();
+    private final List<String> inserts = new ArrayList<String>();
+
+    @Override
+    public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+      return rows.containsKey(key) ? Status.OK : Status.NOT_FOUND;
+    }
+
+    @Override
+    public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                       Vector<HashMap<String, ByteIterator>> result) {
+      for (Map<String, String> row : rows.tailMap(startkey).values()) {
+        if (result.size() == recordcount) {
+          break;
+        }
+        HashMap<String, ByteIterator> values = new HashMap<String, ByteIterator>();
+        StringByteIterator.putAllAsByteIterators(values, row);
+        result.add(values);
+      }
+      return Status.OK;
+    }
+
+    @Override
+    public Status update(String table, String key, Map<String, ByteIterator> values) {
+      return Status.NOT_IMPLEMENTED;
+    }
+
+    @Override
+    public Status insert(String table, String key, Map<String, ByteIterator> values) {
+      inserts.add(key);
+      rows.put(key, StringByteIterator.getStringMap(values));
+      return Status.OK;
+    }
+
+    @Override
+    public Status delete(String table, String key) {
+      return Status.NOT_IMPLEMENTED;
+    }
+  }
+
+  private static Properties properties() {
+    Properties props = new Properties();
+    props.setProperty(TimeSeriesWorkload.METRICS_PROPERTY, "2");
+    props.setProperty(TimeSeriesWorkload.TAG_CARDINALITY_PROPERTY, "3");
+    props.setProperty(TimeSeriesWorkload.START_TIME_PROPERTY, "1000");
+    props.setProperty(TimeSeriesWorkload.INTERVAL_PROPERTY, "10");
+    props.setProperty(Client.RECORD_COUNT_PROPERTY, "60");
+    Measurements.setProperties(props);
+    return props;
+  }
+
+  private static SortedDB load(TimeSeriesWorkload workload, Properties props) throws Exception {
+    props.setProperty(Client.DO_TRANSACTIONS_PROPERTY, "false");
+    workload.init(props);
+    Object state = workload.initThread(props, 0, 1);
+    SortedDB db = new SortedDB();
+    for (int i = 0; i < 60; i++) {
+      assertTrue(workload.doInsert(db, state));
+    }
+    return db;
+  }
+
+  private static String series(String key) {
+    return key.substring(0, key.lastIndexOf(';'));
+  }
+
+  private static long timestamp(String key) {
+    return Long.parseLong(key.substring(key.lastIndexOf(';') + 1));
+  }
+
+  @Test
+  public void keysSortByTime() throws Exception {
+    TimeSeriesWorkload workload = new TimeSeriesWorkload();
+    Properties props = properties();
+    props.setProperty(TimeSeriesWorkload.TAG_CARDINALITY_PROPERTY, "3,2");
+    workload.init(props);
+    StringBuilder key = new StringBuilder();
+    assertEquals(workload.buildKeyName(0, 0, key), "metric0;tag0=0;tag1=0;0000000000000001000");
+    assertEquals(workload.buildKeyName(11, 7, key), "metric1;tag0=2;tag1=1;0000000000000001070");
+    assertTrue(workload.buildKeyName(3, 9, key).compareTo(workload.buildKeyName(3, 10, key)) < 0);
+  }
+
+  @Test
+  public void writesEverySeriesInTimeOrder() throws Exception {
+    SortedDB db = load(new TimeSeriesWorkload(), properties());
+    assertEquals(db.rows.size(), 60);
+    Map<String, Long> last = new HashMap<String, Long>();
+    for (String key : db.inserts) {
+      Long previous = last.put(series(key), timestamp(key));
+      assertEquals(timestamp(key), previous == null ? 1000 : previous + 10, key);
+    }
+    assertEquals(last.size(), 6);
+    assertEquals(db.rows.get("metric1;tag0=2;0000000000000001090").get(TimeSeriesWorkload.TIMESTAMP_FIELD), "1090");
+  }
+
+  @Test
+  public void latePointsArriveOutOfOrder() throws Exception {
+    Properties props = properties();
+    props.setProperty(TimeSeriesWorkload.LATE_PROPORTION_PROPERTY, "0.3");
+    props.setProperty(TimeSeriesWorkload.LATE_DELAY_PROPERTY, "10");
+    SortedDB db = load(new TimeSeriesWorkload(), props);
+    // every point is written once, though those held back at the end are missing
+    assertEquals(db.rows.size(), 60);
+    int late = 0;
+    Map<String, Long> last = new HashMap<String, Long>();
+    for (String key : db.inserts) {
+      Long previous = last.put(series(key), timestamp(key));
+      if (previous != null && previous > timestamp(key)) {
+        late++;
+      }
+    }
+    assertTrue(late > 0);
+  }
+
+  @Test
+  public void batchesWrites() throws Exception {
+    Properties props = properties();
+    props.setProperty(TimeSeriesWorkload.BATCH_SIZE_PROPERTY, "4");
+    SortedDB db = load(new TimeSeriesWorkload(), props);
+    assertEquals(db.rows.size(), 240);
+  }
+
+  @Test
+  public void queriesTimeRanges() throws Exception {
+    Properties props = properties();
+    SortedDB db = load(new TimeSeriesWorkload(), props);
+    props.setProperty(Client.DO_TRANSACTIONS_PROPERTY, "true");
+    props.setProperty(CoreWorkload.INSERT_PROPORTION_PROPERTY, "0");
+    props.setProperty(CoreWorkload.SCAN_PROPORTION_PROPERTY, "1");
+    props.setProperty(TimeSeriesWorkload.QUERY_SPAN_PROPERTY, "4");
+    props.setProperty(TimeSeriesWorkload.DOWNSAMPLING_PROPERTY, "2");
+    props.setProperty(TimeSeriesWorkload.DOWNSAMPLING_FUNCTION_PROPERTY, "max");
+    TimeSeriesWorkload workload = new TimeSeriesWorkload();
+    workload.init(props);
+    Object state = workload.initThread(props, 0, 1);
+    for (int i = 0; i < 20; i++) {
+      assertTrue(workload.doTransaction(db, state));
+    }
+
+    Vector<HashMap<String, ByteIterator>> rows = new Vector<HashMap<String, ByteIterator>>();
+    db.scan("usertable", workload.buildKeyName(4, 3, new StringBuilder()), 3, null, rows);
+    double[] values = workload.downsample(rows, 1030, 4);
+    assertEquals(values.length, 2);
+    assertEquals(values[0], Math.max(Double.parseDouble(rows.get(0).get("value").toString()),
+        Double.parseDouble(rows.get(1).get("value").toString())));
+    assertEquals(values[1], Double.parseDouble(rows.get(2).get("value").toString()));
+  }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+
+import org.testng.annotations.Test;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.WorkloadException;
+import com.yahoo.ycsb.measurements.Measurements;
+
+/**
+ * Tests for {@link TraceWorkload}.
+ */
+public class TestTraceWorkload {
+
+  /**
+   * Records the operations as "OP key size".
+   */
+  private static class RecordingDB extends DB {
+    private final List<String> ops = new ArrayList<String>();
+
+    @Override
+    public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+      ops.add("READ " + key);
+      return Status.OK;
+    }
+
+    @Override
+    public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                       Vector<HashMap<String, ByteIterator>> result) {
+      ops.add("SCAN " + startkey + " " + recordcount);
+      return Status.OK;
+    }
+
+    @Override
+    public Status update(String table, String key, Map<String, ByteIterator> values) {
+      ops.add("UPDATE " + key + " " + values.get("field0").bytesLeft());
+      return Status.OK;
+    }
+
+    @Override
+    public Status insert(String table, String key, Map<String, ByteIterator> values) {
+      ops.add("INSERT " + key + " " + values.get("field0").bytesLeft());
+      return Status.OK;
+    }
+
+    @Override
+    public Status delete(String table, String key) {
+      ops.add("DELETE " + key);
+      return Status.OK;
+    }
+  }
+
+  private static Properties trace(String contents) throws IOException {
+    File file = File.createTempFile("trace", ".txt");
+    file.deleteOnExit();
+    try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+      writer.write(contents);
+    }
+    Properties props = new Properties();
+    props.setProperty(TraceWorkload.FILE_PROPERTY, file.getPath());
+    Measurements.setProperties(props);
+    return props;
+  }
+
+  private static List<String> replay(TraceWorkload workload, Properties props) throws WorkloadException {
+    workload.init(props);
+    Object state = workload.initThread(props, 0, 1);
+    RecordingDB db = new RecordingDB();
+    while (workload.doTransaction(db, state)) {
+      assertTrue(db.ops.size() < 100);
+    }
+    return db.ops;
+  }
+
+  @Test
+  public void replaysTheTrace() throws Exception {
+    Properties props = trace("# a comment\n"
+        + "read user1\n"
+        + "\n"
+        + "UPDATE,user2,10\r\n"
+        + "insert\tuser3 20 1234\n"
+        + "BOGUS user4\n"
+        + "scan user5 7\n"
+        + "delete user6");
+    List<String> ops = replay(new TraceWorkload(), props);
+    assertEquals(ops.toString(), "[READ user1, UPDATE user2 10, INSERT user3 20, SCAN user5 7, DELETE user6]");
+  }
+
+  @Test
+  public void loopsOverTheTrace() throws Exception {
+    Properties props = trace("read a\nread b\n");
+    props.setProperty(TraceWorkload.LOOP_PROPERTY, "true");
+    TraceWorkload workload = new TraceWorkload();
+    workload.init(props);
+    Object state = workload.initThread(props, 0, 1);
+    RecordingDB db = new RecordingDB();
+    for (int i = 0; i < 5; i++) {
+      assertTrue(workload.doTransaction(db, state));
+    }
+    assertEquals(db.ops.toString(), "[READ a, READ b, READ a, READ b, READ a]");
+  }
+
+  @Test
+  public void replaysWithTheOriginalTiming() throws Exception {
+    Properties props = trace("read a 0 1000\nread b 0 1100\nread c 0 1300\n");
+    props.setProperty(TraceWorkload.SPEED_PROPERTY, "2");
+    long start = System.nanoTime();
+    assertEquals(replay(new TraceWorkload(), props).size(), 3);
+    long millis = (System.nanoTime() - start) / 1000000;
+    assertTrue(millis >= 150 && millis < 1000, String.valueOf(millis));
+  }
+
+  @Test(expectedExceptions = WorkloadException.class)
+  public void timingNeedsTimestamps() throws Exception {
+    Properties props = trace("read a\n");
+    props.setProperty(TraceWorkload.SPEED_PROPERTY, "1");
+    new TraceWorkload().init(props);
+  }
+
+  @Test
+  public void loadsTheKeys() throws Exception {
+    Properties props = trace("read a\nupdate b 5\n");
+    TraceWorkload workload = new TraceWorkload();
+    workload.init(props);
+    Object state = workload.initThread(props, 0, 1);
+    RecordingDB db = new RecordingDB();
+    assertTrue(workload.doInsert(db, state));
+    assertTrue(workload.doInsert(db, state));
+    assertFalse(workload.doInsert(db, state));
+    assertEquals(db.ops.toString(), "[INSERT a 100, INSERT b 5]");
+  }
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2017 YCSB contributors. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package com.yahoo.ycsb.workloads;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.yahoo.ycsb.ByteIterator;
+import com.yahoo.ycsb.Client;
+import com.yahoo.ycsb.DB;
+import com.yahoo.ycsb.Status;
+import com.yahoo.ycsb.measurements.Measurements;
+
+/**
+ * Tests for {@link TransactionalWorkload}.
+ */
+public class TestTransactionalWorkload {
+
+  /** A DB that records the calls of transactions and fails the first commits. */
+  private static class TransactionDB extends DB {
+    private final List<String> calls = new ArrayList<String>();
+    private int conflicts;
+
+    TransactionDB(int conflicts) {
+      this.conflicts = conflicts;
+    }
+
+    @Override
+    public Status begin() {
+      calls.add("begin");
+      return Status.OK;
+    }
+
+    @Override
+    public Status commit() {
+      calls.add("commit");
+      if (conflicts > 0) {
+        conflicts--;
+        return Status.CONFLICT;
+      }
+      return Status.OK;
+    }
+
+    @Override
+    public Status abort() {
+      calls.add("abort");
+      return Status.OK;
+    }
+
+    @Override
+    public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+      calls.add("read " + key);
+      return Status.OK;
+    }
+
+    @Override
+    public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                       Vector<HashMap<String, ByteIterator>> result) {
+      return Status.NOT_IMPLEMENTED;
+    }
+
+    @Override
+    public Status update(String table, String key, Map<String, ByteIterator> values) {
+      calls.add("update " + key);
+      return Status.OK;
+    }
+
+    @Override
+    public Status insert(String table, String key, Map<String, ByteIterator> values) {
+      return Status.NOT_IMPLEMENTED;
+    }
+
+    @Override
+    public Status delete(String table, String key) {
+      return Status.NOT_IMPLEMENTED;
+    }
+  }
+
+  @BeforeClass
+  public void setUp() {
+    Measurements.setProperties(new Properties());
+  }
+
+  private static Properties properties() {
+    Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "1000");
+    p.setProperty(CoreWorkload.FIELD_COUNT_PROPERTY, "2");
+    p.setProperty(TransactionalWorkload.BACKOFF_PROPERTY, "0");
+    return p;
+  }
+
+  private static long count(String operation, Status status) {
+    Map<Status, Long> counts = Measurements.getMeasurements().getStatusCounts().get(operation);
+    Long count = counts == null ? null : counts.get(status);
+    return count == null ? 0 : count;
+  }
+
+  @Test
+  public void readsAndWritesDistinctKeys() throws Exception {
+    Properties p = properties();
+    p.setProperty(TransactionalWorkload.KEYS_PROPERTY, "3");
+    p.setProperty(TransactionalWorkload.WRITE_PROPORTION_PROPERTY, "1");
+    p.setProperty(TransactionalWorkload.HOT_KEYS_PROPERTY, "3");
+    p.setProperty(TransactionalWorkload.HOT_PROPORTION_PROPERTY, "1");
+    TransactionalWorkload workload = new TransactionalWorkload();
+    workload.init(p);
+
+    TransactionDB db = new TransactionDB(0);
+    assertTrue(workload.doTransaction(db, workload.initThread(p, 0, 1)));
+    // every key is from the hot set of three, so the transaction has all of them
+    Set<String> keys = new HashSet<String>();
+    assertEquals(db.calls.size(), 8);
+    assertEquals(db.calls.get(0), "begin");
+    for (int i = 0; i < 3; i++) {
+      String read = db.calls.get(1 + 2 * i);
+      assertTrue(read.startsWith("read "));
+      keys.add(read.substring("read ".length()));
+      assertEquals(db.calls.get(2 + 2 * i), "update " + read.substring("read ".length()));
+    }
+    assertEquals(keys.size(), 3);
+    assertEquals(db.calls.get(7), "commit");
+  }
+
+  @Test
+  public void retriesConflicts() throws Exception {
+    Properties p = properties();
+    p.setProperty(TransactionalWorkload.KEYS_PROPERTY, "1");
+    p.setProperty(TransactionalWorkload.WRITE_PROPORTION_PROPERTY, "0");
+    p.setProperty(TransactionalWorkload.RETRIES_PROPERTY, "2");
+    TransactionalWorkload workload = new TransactionalWorkload();
+    workload.init(p);
+    Object state = workload.initThread(p, 0, 1);
+
+    long committed = count("TRANSACTION", Status.OK);
+    long failed = count("TRANSACTION", Status.CONFLICT);
+    TransactionDB db = new TransactionDB(2);
+    workload.doTransaction(db, state);
+    assertEquals(db.calls.size(), 9);
+    assertEquals(db.calls.get(2), "commit");
+    assertEquals(db.calls.get(8), "commit");
+    assertEquals(count("TRANSACTION", Status.OK), committed + 1);
+
+    // gives up once the retries are used up
+    db = new TransactionDB(3);
+    workload.doTransaction(db, state);
+    assertEquals(db.calls.size(), 9);
+    assertEquals(count("TRANSACTION", Status.CONFLICT), failed + 1);
+  }
+}
@@ -200,10 +200,8 @@ public class JdbcDBClient extends DB {
         System.out.println("Adding shard node URL: " + url);
         Connection conn = DriverManager.getConnection(url, user, passwd);
 
-        // Since there is no explicit commit method in the DB interface, all
-        // operations should auto commit, except when explicitly told not to
-        // (this is necessary in cases such as for PostgreSQL when running a
-        // scan workload with fetchSize)
+        // Only workloads that commit their transactions leave auto commit off,
+        // as does a scan workload with fetchSize on e.g. PostgreSQL
         conn.setAutoCommit(autoCommit);
 
         shardCount++;
@@ -334,8 +332,7 @@ public class JdbcDBClient extends DB {
       resultSet.close();
       return Status.OK;
     } catch (SQLException e) {
-      System.err.println("Error in processing read of table " + tableName + ": " + e);
-      return Status.ERROR;
+      return transactionStatus(e, "Error in processing read of table " + tableName + ": ");
     }
   }
 
@@ -364,8 +361,7 @@ public class JdbcDBClient extends DB {
       resultSet.close();
       return Status.OK;
     } catch (SQLException e) {
-      System.err.println("Error in processing scan of table: " + tableName + e);
-      return Status.ERROR;
+      return transactionStatus(e, "Error in processing scan of table: " + tableName);
     }
   }
 
@@ -391,8 +387,7 @@ public class JdbcDBClient extends DB {
       }
       return Status.UNEXPECTED_STATE;
     } catch (SQLException e) {
-      System.err.println("Error in processing update to table: " + tableName + e);
-      return Status.ERROR;
+      return transactionStatus(e, "Error in processing update to table: " + tableName);
     }
   }
 
@@ -458,8 +453,7 @@ public class JdbcDBClient extends DB {
       }
       return Status.UNEXPECTED_STATE;
     } catch (SQLException e) {
-      System.err.println("Error in processing insert to table: " + tableName + e);
-      return Status.ERROR;
+      return transactionStatus(e, "Error in processing insert to table: " + tableName);
     }
   }
 
@@ -478,11 +472,59 @@ public class JdbcDBClient extends DB {
       }
       return Status.UNEXPECTED_STATE;
     } catch (SQLException e) {
-      System.err.println("Error in processing delete to table: " + tableName + e);
+      return transactionStatus(e, "Error in processing delete to table: " + tableName);
+    }
+  }
+
+  /**
+   * Commit the transaction on every shard, which is only atomic with a single one. Does nothing with auto commit.
+   */
+  @Override
+  public Status commit() {
+    if (autoCommit) {
+      return Status.OK;
+    }
+    try {
+      for (Connection conn : conns) {
+        conn.commit();
+      }
+      return Status.OK;
+    } catch (SQLException e) {
+      Status status = transactionStatus(e, "Error in committing the transaction. ");
+      abort();
+      return status;
+    }
+  }
+
+  @Override
+  public Status abort() {
+    if (autoCommit) {
+      return Status.OK;
+    }
+    try {
+      for (Connection conn : conns) {
+        conn.rollback();
+      }
+      return Status.OK;
+    } catch (SQLException e) {
+      System.err.println("Error in rolling back the transaction. " + e);
       return Status.ERROR;
     }
   }
 
+  /**
+   * @param message What to print, followed by the exception, if it is an error.
+   * @return {@link Status#CONFLICT} if the transaction was rolled back because of another one, which SQL reports
+   * as a transaction rollback (class 40), e.g. a serialization failure or a deadlock; else {@link Status#ERROR}.
+   */
+  private static Status transactionStatus(SQLException e, String message) {
+    if (e.getSQLState() != null && e.getSQLState().startsWith("40")) {
+      return Status.CONFLICT;
+    }
+    System.err.println(message + e);
+    return Status.ERROR;
+  }
+
   private OrderedFieldInfo getFieldInfo(Map<String, ByteIterator> values) {
     String fieldKeys = "";
     List<String> fieldValues = new ArrayList<>();